@@ -1,7 +1,9 @@
 
 import java.awt.*;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.swing.*;
 
 /**
@@ -10,6 +12,13 @@ import javax.swing.*;
 public class Application extends JFrame {
 
     public Application() {
+        this(MemoAnimaliaEngine.DEFAULT_ROWS, MemoAnimaliaEngine.DEFAULT_COLS, MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT);
+    }
+
+    /**
+     * Ventana con un tablero de las dimensiones indicadas
+     */
+    public Application(int rows, int cols, int attemptLimit) {
         setTitle("MemoAnimalia - Juego de Memoria");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setResizable(false);
@@ -18,7 +27,7 @@ public class Application extends JFrame {
         List<String> animalIds = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo");
 
         // Crear el panel principal del juego
-        MemoAnimaliaController gamePanel = new MemoAnimaliaController(animalIds);
+        MemoAnimaliaController gamePanel = new MemoAnimaliaController(animalIds, rows, cols, attemptLimit);
 
         // Configurar el layout
         setLayout(new BorderLayout());
@@ -29,7 +38,28 @@ public class Application extends JFrame {
         setLocationRelativeTo(null);
     }
 
+    /**
+     * Uso: Application [filas columnas [intentos]]
+     *
+     * Las métricas se publican por JMX como memoanimalia:type=Metrics. Con
+     * -Dmemoanimalia.metrics.dump=archivo se agrega además una instantánea al
+     * archivo cada 10 segundos. Con -Dmemoanimalia.edtWatchdog=archivo se
+     * registran los bloqueos del EDT (ver EdtWatchdog).
+     */
     public static void main(String[] args) {
+        int rows = args.length >= 2 ? Integer.parseInt(args[0]) : MemoAnimaliaEngine.DEFAULT_ROWS;
+        int cols = args.length >= 2 ? Integer.parseInt(args[1]) : MemoAnimaliaEngine.DEFAULT_COLS;
+        int attemptLimit = args.length >= 3 ? Integer.parseInt(args[2]) : MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT;
+
+        MemoAnimaliaMetrics metrics = MemoAnimaliaMetrics.global();
+        metrics.registerMBean();
+        String dump = System.getProperty("memoanimalia.metrics.dump");
+        if (dump != null) {
+            metrics.startPeriodicDump(Paths.get(dump), 10, TimeUnit.SECONDS);
+        }
+        // Vive lo mismo que la aplicación; su hilo es daemon
+        EdtWatchdog.fromSystemProperties();
+
         // Configurar Look and Feel del sistema
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -39,7 +69,7 @@ public class Application extends JFrame {
 
         // Ejecutar la aplicación
         SwingUtilities.invokeLater(() -> {
-            new Application().setVisible(true);
+            new Application(rows, cols, attemptLimit).setVisible(true);
         });
     }
 }
@@ -0,0 +1,161 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de disposiciones de tablero ya mezcladas. Un hilo en segundo
+ * plano lo rellena, de modo que empezar una partida nueva cuesta solo un
+ * intercambio de referencias aunque el tablero sea muy grande.
+ *
+ * Los arreglos que el motor deja de usar vuelven al pool con recycle() y se
+ * mezclan de nuevo, así que en régimen estable no se reserva memoria.
+ */
+public class BoardLayoutPool {
+
+    /**
+     * Hilo compartido por todos los pools para preparar disposiciones
+     */
+    private static final ExecutorService REFILLER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "memoanimalia-layout-pool");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Mazo original, usado para crear arreglos cuando no hay para reciclar
+     */
+    private final int[] deck;
+    private final ArrayBlockingQueue<int[]> ready;
+    private final ArrayBlockingQueue<int[]> recycled;
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor del pool. Comienza a llenarse de inmediato en segundo plano.
+     *
+     * @param deck Símbolos del mazo (en cualquier orden)
+     * @param capacity Cantidad máxima de disposiciones preparadas
+     */
+    public BoardLayoutPool(int[] deck, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity debe ser positiva: " + capacity);
+        }
+        this.deck = deck.clone();
+        this.ready = new ArrayBlockingQueue<>(capacity);
+        this.recycled = new ArrayBlockingQueue<>(capacity);
+        scheduleRefill();
+    }
+
+    /**
+     * Toma una disposición ya mezclada
+     *
+     * @return La disposición, o null si el pool está vacío
+     */
+    public int[] take() {
+        int[] layout = ready.poll();
+        if (layout != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        scheduleRefill();
+        return layout;
+    }
+
+    /**
+     * Devuelve al pool un arreglo que ya no se usa para mezclarlo de nuevo
+     */
+    public void recycle(int[] layout) {
+        if (layout.length == deck.length) {
+            recycled.offer(layout);
+        }
+    }
+
+    private void scheduleRefill() {
+        if (refillScheduled.compareAndSet(false, true)) {
+            REFILLER.execute(this::refill);
+        }
+    }
+
+    /**
+     * Llena el pool hasta su capacidad. Se ejecuta en el hilo compartido.
+     */
+    private void refill() {
+        try {
+            while (ready.remainingCapacity() > 0) {
+                int[] layout = recycled.poll();
+                if (layout == null) {
+                    layout = deck.clone();
+                }
+                MemoAnimaliaEngine.shuffle(layout, ThreadLocalRandom.current());
+                if (!ready.offer(layout)) {
+                    break;
+                }
+            }
+        } finally {
+            refillScheduled.set(false);
+        }
+        // Alguien pudo tomar una disposición mientras terminábamos
+        if (ready.remainingCapacity() > 0) {
+            scheduleRefill();
+        } else {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Espera a que el pool esté lleno
+     *
+     * @return true si se llenó antes del plazo
+     */
+    public synchronized boolean awaitFull(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (ready.remainingCapacity() > 0) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+        return true;
+    }
+
+    /**
+     * Partidas que obtuvieron una disposición preparada
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Partidas que encontraron el pool vacío y mezclaron en el momento
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * Disposiciones listas en este momento
+     */
+    public int getAvailable() {
+        return ready.size();
+    }
+
+    public int getCapacity() {
+        return ready.size() + ready.remainingCapacity();
+    }
+}
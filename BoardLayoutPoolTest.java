@@ -0,0 +1,40 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class BoardLayoutPoolTest {
+
+    @Test
+    void testResetDrawsFromPool() throws InterruptedException {
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(10, 10, Arrays.asList("A", "B", "C", "D"), 200);
+        int[] before = new int[engine.getSymbolCount()];
+        for (int i = 0; i < engine.getSize(); i++) {
+            before[engine.getSymbolId(i)]++;
+        }
+
+        BoardLayoutPool pool = engine.enableLayoutPool(4);
+        assertTrue(pool.awaitFull(10, TimeUnit.SECONDS), "El pool debe llenarse en segundo plano");
+        engine.resetForNewGame();
+
+        assertEquals(1, pool.getHits(), "La partida nueva debe salir del pool");
+        assertEquals(0, pool.getMisses());
+
+        int[] after = new int[engine.getSymbolCount()];
+        for (int i = 0; i < engine.getSize(); i++) {
+            after[engine.getSymbolId(i)]++;
+            assertFalse(engine.isRevealed(i) || engine.isMatched(i));
+        }
+        assertArrayEquals(before, after, "La disposición del pool debe tener el mismo mazo");
+    }
+
+    @Test
+    void testEmptyPoolCountsMiss() {
+        BoardLayoutPool pool = new BoardLayoutPool(new int[]{0, 0, 1, 1}, 1);
+        // Vaciar lo que el hilo de relleno haya alcanzado a preparar
+        for (int i = 0; i < 10_000 && pool.getMisses() == 0; i++) {
+            pool.take();
+        }
+        assertTrue(pool.getMisses() >= 1, "Tomar de un pool vacío debe contar un fallo");
+    }
+}
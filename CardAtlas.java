@@ -0,0 +1,149 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.Icon;
+
+/**
+ * Atlas de sprites de las cartas: el reverso y todas las caras escaladas
+ * empaquetadas en una sola imagen con el formato de píxel de la pantalla.
+ * Cada carta se dibuja como una subregión del atlas, lo que evita cambiar de
+ * imagen entre carta y carta al pintar tableros grandes.
+ *
+ * La posición 0 siempre es el reverso; las caras siguen en el orden en que se
+ * agregaron.
+ */
+public class CardAtlas {
+
+    /**
+     * Posición del reverso dentro del atlas
+     */
+    public static final int BACK_SLOT = 0;
+
+    private final BufferedImage atlas;
+    private final int cardSize;
+    private final int columns;
+    private final int slotCount;
+    private final Map<String, Integer> slots;
+
+    /**
+     * Construye el atlas dibujando cada imagen en su celda
+     *
+     * @param back Imagen del reverso
+     * @param faces Caras por id de animal (en minúsculas)
+     * @param cardSize Lado de cada celda
+     * @param gc Configuración gráfica de destino, o null para usar ARGB
+     */
+    public CardAtlas(Image back, Map<String, Image> faces, int cardSize, GraphicsConfiguration gc) {
+        this.cardSize = cardSize;
+        this.slotCount = faces.size() + 1;
+        this.columns = (int) Math.ceil(Math.sqrt(slotCount));
+        int rows = (slotCount + columns - 1) / columns;
+
+        int width = columns * cardSize;
+        int height = rows * cardSize;
+        this.atlas = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        Map<String, Integer> slotMap = new LinkedHashMap<>();
+        Graphics2D g2d = atlas.createGraphics();
+        drawSlot(g2d, BACK_SLOT, back);
+        int slot = 1;
+        for (Map.Entry<String, Image> face : faces.entrySet()) {
+            drawSlot(g2d, slot, face.getValue());
+            slotMap.put(face.getKey(), slot);
+            slot++;
+        }
+        g2d.dispose();
+        this.slots = Collections.unmodifiableMap(slotMap);
+    }
+
+    /**
+     * Configuración gráfica de la pantalla principal, o null sin pantalla
+     */
+    public static GraphicsConfiguration defaultConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return null;
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    private void drawSlot(Graphics2D g2d, int slot, Image image) {
+        g2d.drawImage(image, slotX(slot), slotY(slot), cardSize, cardSize, null);
+    }
+
+    private int slotX(int slot) {
+        return (slot % columns) * cardSize;
+    }
+
+    private int slotY(int slot) {
+        return (slot / columns) * cardSize;
+    }
+
+    /**
+     * Posición de la cara de un animal, o -1 si no está en el atlas
+     */
+    public int getSlot(String animalId) {
+        Integer slot = slots.get(animalId.toLowerCase());
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Dibuja una carta del atlas en su tamaño original
+     */
+    public void paint(Graphics g, int slot, int x, int y) {
+        paint(g, slot, x, y, cardSize, cardSize);
+    }
+
+    /**
+     * Dibuja una carta del atlas escalada al rectángulo indicado
+     */
+    public void paint(Graphics g, int slot, int x, int y, int width, int height) {
+        int sx = slotX(slot);
+        int sy = slotY(slot);
+        g.drawImage(atlas, x, y, x + width, y + height, sx, sy, sx + cardSize, sy + cardSize, null);
+    }
+
+    /**
+     * Icon que pinta una posición del atlas, para usar con componentes Swing
+     */
+    public Icon getIcon(int slot) {
+        return new Icon() {
+            @Override
+            public void paintIcon(Component c, Graphics g, int x, int y) {
+                paint(g, slot, x, y);
+            }
+
+            @Override
+            public int getIconWidth() {
+                return cardSize;
+            }
+
+            @Override
+            public int getIconHeight() {
+                return cardSize;
+            }
+        };
+    }
+
+    public int getCardSize() {
+        return cardSize;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Memoria aproximada de los píxeles del atlas
+     */
+    public long getImageBytes() {
+        return (long) atlas.getWidth() * atlas.getHeight() * atlas.getColorModel().getPixelSize() / 8;
+    }
+
+    public BufferedImage getImage() {
+        return atlas;
+    }
+}
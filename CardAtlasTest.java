@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.Icon;
+import org.junit.jupiter.api.Test;
+
+class CardAtlasTest {
+
+    private static final int SIZE = 10;
+
+    private static BufferedImage solid(Color color) {
+        BufferedImage image = new BufferedImage(SIZE * 3, SIZE * 3, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(color);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2d.dispose();
+        return image;
+    }
+
+    private static CardAtlas atlas() {
+        Map<String, Image> faces = new LinkedHashMap<>();
+        faces.put("gato", solid(Color.GREEN));
+        faces.put("mono", solid(Color.BLUE));
+        faces.put("pato", solid(Color.WHITE));
+        return new CardAtlas(solid(Color.RED), faces, SIZE, null);
+    }
+
+    @Test
+    void testSlotsFollowInsertionOrder() {
+        CardAtlas atlas = atlas();
+
+        assertEquals(4, atlas.getSlotCount());
+        assertEquals(0, CardAtlas.BACK_SLOT);
+        assertEquals(1, atlas.getSlot("gato"));
+        assertEquals(2, atlas.getSlot("MONO"));
+        assertEquals(3, atlas.getSlot("pato"));
+        assertEquals(-1, atlas.getSlot("tigre"));
+        // Cuatro celdas en una grilla de 2 x 2
+        assertEquals(2 * SIZE, atlas.getImage().getWidth());
+        assertEquals(2 * SIZE, atlas.getImage().getHeight());
+    }
+
+    @Test
+    void testEachSlotPaintsItsOwnImage() {
+        CardAtlas atlas = atlas();
+        Color[] expected = {Color.RED, Color.GREEN, Color.BLUE, Color.WHITE};
+
+        for (int slot = 0; slot < expected.length; slot++) {
+            BufferedImage target = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = target.createGraphics();
+            atlas.paint(g2d, slot, 0, 0);
+            g2d.dispose();
+            // Centro y esquinas: la región no se corre a la celda vecina
+            assertEquals(expected[slot].getRGB(), target.getRGB(SIZE / 2, SIZE / 2), "Posición " + slot);
+            assertEquals(expected[slot].getRGB(), target.getRGB(0, 0), "Posición " + slot);
+            assertEquals(expected[slot].getRGB(), target.getRGB(SIZE - 1, SIZE - 1), "Posición " + slot);
+        }
+    }
+
+    @Test
+    void testIconPaintsScaledRegion() {
+        CardAtlas atlas = atlas();
+        Icon icon = atlas.getIcon(atlas.getSlot("mono"));
+        assertEquals(SIZE, icon.getIconWidth());
+        assertEquals(SIZE, icon.getIconHeight());
+
+        BufferedImage target = new BufferedImage(3 * SIZE, 3 * SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = target.createGraphics();
+        icon.paintIcon(null, g2d, SIZE, SIZE);
+        atlas.paint(g2d, CardAtlas.BACK_SLOT, 0, 0, 3 * SIZE, SIZE);
+        g2d.dispose();
+        assertEquals(Color.BLUE.getRGB(), target.getRGB(SIZE + 1, SIZE + 1));
+        assertEquals(0, target.getRGB(1, 2 * SIZE + 1), "Fuera de las cartas no se pinta nada");
+        assertEquals(Color.RED.getRGB(), target.getRGB(3 * SIZE - 1, SIZE / 2));
+    }
+}
@@ -0,0 +1,303 @@
+import java.util.Arrays;
+import javax.swing.SwingUtilities;
+
+/**
+ * Despachador que agrupa los eventos del motor antes de llevarlos al EDT.
+ *
+ * Un solo flipCard puede generar cuatro o cinco llamadas al GameListener. En
+ * lugar de publicar una tarea en el EDT por cada una, este listener acumula
+ * los eventos en un lote y publica una única tarea la primera vez que el lote
+ * recibe algo. Cuando esa tarea corre, el lote se congela en un ChangeSet
+ * inmutable y se entrega de una vez. Como la UI llama a flipCard desde el EDT,
+ * todos los eventos de un mismo flip caen siempre en el mismo lote.
+ */
+public class CoalescingGameListener implements MemoAnimaliaEngine.GameListener {
+
+    /**
+     * Recibe en el EDT los cambios agrupados.
+     */
+    public interface ChangeSetListener {
+
+        void onChanges(ChangeSet changes);
+    }
+
+    /**
+     * Conjunto inmutable de cambios producidos por uno o más flips.
+     */
+    public static final class ChangeSet {
+
+        private static final int[] NONE = new int[0];
+
+        private final int[] revealed;
+        private final int[] matchedPairs;
+        private final int[] hiddenPairs;
+        private final int attempts;
+        private final int matchesFound;
+        private final int wonAttempts;
+        private final int attemptLimitReached;
+        private final boolean reset;
+        private final int eventCount;
+
+        private ChangeSet(Builder b) {
+            this.revealed = b.revealed.toArray();
+            this.matchedPairs = b.matchedPairs.toArray();
+            this.hiddenPairs = b.hiddenPairs.toArray();
+            this.attempts = b.attempts;
+            this.matchesFound = b.matchesFound;
+            this.wonAttempts = b.wonAttempts;
+            this.attemptLimitReached = b.attemptLimitReached;
+            this.reset = b.reset;
+            this.eventCount = b.eventCount;
+        }
+
+        /**
+         * Cartas reveladas, en orden
+         */
+        public int[] getRevealed() {
+            return revealed.clone();
+        }
+
+        /**
+         * Parejas encontradas, como índices consecutivos (a0, b0, a1, b1...)
+         */
+        public int[] getMatchedPairs() {
+            return matchedPairs.clone();
+        }
+
+        /**
+         * Parejas que no coincidieron y deben ocultarse, como índices
+         * consecutivos
+         */
+        public int[] getHiddenPairs() {
+            return hiddenPairs.clone();
+        }
+
+        /**
+         * Último valor de intentos, o -1 si no cambió
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * Último valor de parejas encontradas, o -1 si no cambió
+         */
+        public int getMatchesFound() {
+            return matchesFound;
+        }
+
+        public boolean isGameWon() {
+            return wonAttempts >= 0;
+        }
+
+        /**
+         * Intentos con los que se ganó, o -1 si no se ganó
+         */
+        public int getWonAttempts() {
+            return wonAttempts;
+        }
+
+        public boolean isAttemptLimitReached() {
+            return attemptLimitReached >= 0;
+        }
+
+        /**
+         * Límite de intentos alcanzado, o -1 si no se alcanzó
+         */
+        public int getAttemptLimit() {
+            return attemptLimitReached;
+        }
+
+        public boolean isReset() {
+            return reset;
+        }
+
+        /**
+         * Cantidad de eventos del motor agrupados en este conjunto
+         */
+        public int getEventCount() {
+            return eventCount;
+        }
+
+        @Override
+        public String toString() {
+            return "ChangeSet(events=" + eventCount + ",revealed=" + Arrays.toString(revealed)
+                    + ",matched=" + Arrays.toString(matchedPairs) + ",hidden=" + Arrays.toString(hiddenPairs)
+                    + ",attempts=" + attempts + ",matches=" + matchesFound + ",won=" + wonAttempts
+                    + ",limit=" + attemptLimitReached + ",reset=" + reset + ")";
+        }
+    }
+
+    /**
+     * Arreglo de enteros que crece según haga falta
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return size == 0 ? ChangeSet.NONE : Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Lote de eventos en construcción
+     */
+    private static final class Builder {
+
+        final IntList revealed = new IntList();
+        final IntList matchedPairs = new IntList();
+        final IntList hiddenPairs = new IntList();
+        int attempts = -1;
+        int matchesFound = -1;
+        int wonAttempts = -1;
+        int attemptLimitReached = -1;
+        boolean reset;
+        int eventCount;
+        /**
+         * Momento en que se encoló la entrega, para medir la espera en el EDT
+         */
+        long queuedAt;
+    }
+
+    private final ChangeSetListener target;
+    private final MemoAnimaliaMetrics metrics;
+
+    /**
+     * Lote abierto, o null si no hay ninguna entrega pendiente
+     */
+    private Builder pending;
+
+    private long events;
+    private long batches;
+
+    public CoalescingGameListener(ChangeSetListener target) {
+        this(target, MemoAnimaliaMetrics.global());
+    }
+
+    /**
+     * @param target Receptor de los lotes en el EDT
+     * @param metrics Registro donde medir la espera y la entrega de cada lote
+     */
+    public CoalescingGameListener(ChangeSetListener target, MemoAnimaliaMetrics metrics) {
+        this.target = target;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Devuelve el lote abierto, creándolo y programando su entrega si hace
+     * falta. Debe llamarse con el monitor tomado.
+     */
+    private Builder batch() {
+        if (pending == null) {
+            pending = new Builder();
+            pending.queuedAt = metrics.startTimer();
+            SwingUtilities.invokeLater(this::deliver);
+        }
+        events++;
+        pending.eventCount++;
+        return pending;
+    }
+
+    /**
+     * Entrega el lote acumulado. Se ejecuta en el EDT.
+     */
+    private void deliver() {
+        ChangeSet changes;
+        long queuedAt;
+        synchronized (this) {
+            changes = new ChangeSet(pending);
+            queuedAt = pending.queuedAt;
+            pending = null;
+            batches++;
+        }
+        metrics.recordEdtQueueDelay(queuedAt);
+        long start = metrics.startTimer();
+        MemoAnimaliaEvents.UiBatchEvent event = new MemoAnimaliaEvents.UiBatchEvent();
+        event.begin();
+        target.onChanges(changes);
+        event.end();
+        metrics.recordDispatch(start);
+        if (event.shouldCommit()) {
+            event.events = changes.getEventCount();
+            event.revealed = changes.getRevealed().length;
+            event.matchedPairs = changes.getMatchedPairs().length / 2;
+            event.hiddenPairs = changes.getHiddenPairs().length / 2;
+            event.reset = changes.isReset();
+            event.commit();
+        }
+    }
+
+    @Override
+    public synchronized void onCardRevealed(int index, MemoAnimaliaEngine.Card card) {
+        batch().revealed.add(index);
+    }
+
+    @Override
+    public synchronized void onCardsHidden(int index1, int index2) {
+        Builder b = batch();
+        b.hiddenPairs.add(index1);
+        b.hiddenPairs.add(index2);
+    }
+
+    @Override
+    public synchronized void onCardsMatched(int index1, int index2) {
+        Builder b = batch();
+        b.matchedPairs.add(index1);
+        b.matchedPairs.add(index2);
+    }
+
+    @Override
+    public synchronized void onAttemptChanged(int attempts) {
+        batch().attempts = attempts;
+    }
+
+    @Override
+    public synchronized void onMatchCountChanged(int matchesFound) {
+        batch().matchesFound = matchesFound;
+    }
+
+    @Override
+    public synchronized void onGameWon(int attempts) {
+        batch().wonAttempts = attempts;
+    }
+
+    @Override
+    public synchronized void onGameOverAttemptLimit(int attemptLimit) {
+        batch().attemptLimitReached = attemptLimit;
+    }
+
+    @Override
+    public synchronized void onGameReset() {
+        batch().reset = true;
+    }
+
+    /**
+     * Eventos recibidos del motor
+     */
+    public synchronized long getEventCount() {
+        return events;
+    }
+
+    /**
+     * Tareas entregadas al EDT
+     */
+    public synchronized long getBatchCount() {
+        return batches;
+    }
+
+    /**
+     * Eventos que no necesitaron una tarea propia en el EDT
+     */
+    public synchronized long getCoalescedEventCount() {
+        return events - batches - (pending != null ? 1 : 0);
+    }
+}
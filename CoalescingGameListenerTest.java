@@ -0,0 +1,68 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+
+class CoalescingGameListenerTest {
+
+    private static int partnerOf(MemoAnimaliaEngine engine, int first) {
+        int partner = first + 1;
+        while (engine.getSymbolId(partner) != engine.getSymbolId(first)) {
+            partner++;
+        }
+        return partner;
+    }
+
+    @Test
+    void testOneBatchPerFlip() throws Exception {
+        List<CoalescingGameListener.ChangeSet> delivered = new ArrayList<>();
+        CoalescingGameListener listener = new CoalescingGameListener(delivered::add);
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(2, 2, Arrays.asList("A", "B"), 10);
+        engine.setListener(listener);
+        int first = 0;
+        int second = partnerOf(engine, first);
+
+        // Igual que la UI: cada click es su propia tarea del EDT
+        SwingUtilities.invokeAndWait(() -> engine.flipCard(first));
+        SwingUtilities.invokeAndWait(() -> { });
+        assertEquals(1, delivered.size(), "El primer flip debe producir una sola entrega");
+        assertArrayEquals(new int[]{first}, delivered.get(0).getRevealed());
+        assertEquals(-1, delivered.get(0).getAttempts());
+
+        SwingUtilities.invokeAndWait(() -> engine.flipCard(second));
+        SwingUtilities.invokeAndWait(() -> { });
+        assertEquals(2, delivered.size(), "El segundo flip debe producir una sola entrega");
+        CoalescingGameListener.ChangeSet changes = delivered.get(1);
+        assertArrayEquals(new int[]{second}, changes.getRevealed());
+        assertArrayEquals(new int[]{first, second}, changes.getMatchedPairs());
+        assertEquals(1, changes.getAttempts());
+        assertEquals(1, changes.getMatchesFound());
+        assertEquals(listener.getEventCount() - 2, listener.getCoalescedEventCount());
+    }
+
+    @Test
+    void testFlipsInOneEdtTaskArriveAsOneBatch() throws Exception {
+        List<CoalescingGameListener.ChangeSet> delivered = new ArrayList<>();
+        CoalescingGameListener listener = new CoalescingGameListener(delivered::add);
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(2, 2, Arrays.asList("A", "B"), 10);
+        engine.setListener(listener);
+        int first = 0;
+        int second = partnerOf(engine, first);
+
+        // Dos flips dentro de la misma tarea del EDT comparten el lote
+        SwingUtilities.invokeAndWait(() -> {
+            engine.flipCard(first);
+            engine.flipCard(second);
+        });
+        SwingUtilities.invokeAndWait(() -> { });
+
+        assertEquals(1, delivered.size(), "Los flips de una misma tarea del EDT deben producir una sola entrega");
+        CoalescingGameListener.ChangeSet changes = delivered.get(0);
+        assertArrayEquals(new int[]{first, second}, changes.getRevealed());
+        assertArrayEquals(new int[]{first, second}, changes.getMatchedPairs());
+        assertEquals(1, changes.getAttempts());
+        assertEquals(1, changes.getMatchesFound());
+        assertEquals(changes.getEventCount(), listener.getEventCount());
+        assertEquals(listener.getEventCount() - 1, listener.getCoalescedEventCount());
+    }
+}
@@ -0,0 +1,374 @@
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Variante de MemoAnimaliaEngine segura entre hilos y sin candados.
+ *
+ * El estado del turno (primera carta seleccionada e intentos) se empaqueta en
+ * un único long que se actualiza con compareAndSet, de modo que cada flip es
+ * linealizable. Antes de tocar el turno, cada flip reclama su
+ * carta poniendo atómicamente su bit de revelada: una carta solo puede entrar
+ * en un turno una vez hasta que se vuelva a ocultar, y por eso ninguna pareja
+ * se cuenta dos veces.
+ *
+ * Cada turno cerrado lleva un número (el intento que lo cerró). Un NO_MATCH
+ * deja sus dos cartas marcadas con ese número y hideCards() solo oculta las
+ * cartas que siguen marcadas con el turno que contesta, así que un hide
+ * duplicado o tardío no puede tocar una carta que otro hilo ya volvió a
+ * reclamar o que acaba de emparejarse. Al llegar al límite de intentos la
+ * partida termina y no se aceptan más flips.
+ *
+ * Las parejas encontradas se cuentan después de marcar sus dos cartas como
+ * emparejadas: quien ve una pareja en getMatchesFound() o isGameWon() ve
+ * también sus cartas en isMatched(). El contador puede ir un momento por
+ * detrás de los bits, nunca por delante.
+ *
+ * No tiene GameListener; está pensada para hosts y simulaciones donde varios
+ * hilos comparten un mismo tablero.
+ */
+public class ConcurrentMemoAnimaliaEngine {
+
+    // Distribución de bits del estado del turno:
+    //   bits  0-20: primera carta + 1 (0 = sin selección)
+    //   bits 21-63: intentos (hasta MAX_ATTEMPTS)
+    private static final int FIELD_BITS = 21;
+    private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+    private static final int ATTEMPTS_SHIFT = FIELD_BITS;
+
+    /**
+     * Tamaño máximo de tablero que cabe en el estado empaquetado
+     */
+    public static final int MAX_SIZE = (int) FIELD_MASK - 1;
+
+    /**
+     * Máximo de intentos: el número de turno (intentos + 1) tiene que caber
+     * en un int. Los límites mayores se recortan a este valor.
+     */
+    public static final int MAX_ATTEMPTS = Integer.MAX_VALUE - 1;
+
+    /**
+     * Valor de la carta compañera cuando el flip no cerró un turno
+     */
+    public static final int NO_PARTNER = -1;
+
+    /**
+     * Valor del turno cuando el flip no cerró ninguno
+     */
+    public static final int NO_TURN = 0;
+
+    private static final MemoAnimaliaEngine.FlipResult[] RESULTS = MemoAnimaliaEngine.FlipResult.values();
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final int attemptLimit;
+
+    /**
+     * Motor de un solo hilo que arma y mezcla las disposiciones
+     */
+    private final MemoAnimaliaEngine layout;
+    private final String[] symbolNames;
+    private final int[] symbols;
+    private final AtomicLongArray revealedBits;
+    private final AtomicLongArray matchedBits;
+    // Turno del NO_MATCH que dejó cada carta esperando su hide (NO_TURN = ninguno)
+    private final AtomicIntegerArray pendingHide;
+    private final AtomicLong turnState = new AtomicLong();
+    /**
+     * Parejas con sus dos bits ya puestos
+     */
+    private final AtomicInteger matchesFound = new AtomicInteger();
+
+    /**
+     * Constructor del motor concurrente. El mazo se arma igual que en
+     * MemoAnimaliaEngine. Un attemptLimit mayor que MAX_ATTEMPTS se recorta.
+     */
+    public ConcurrentMemoAnimaliaEngine(int rows, int cols, List<String> imageIds, int attemptLimit) {
+        if ((long) rows * cols > MAX_SIZE) {
+            throw new IllegalArgumentException("Tablero demasiado grande: " + rows + "x" + cols);
+        }
+        this.layout = new MemoAnimaliaEngine(rows, cols, imageIds, attemptLimit);
+        this.rows = rows;
+        this.cols = cols;
+        this.size = layout.getSize();
+        this.attemptLimit = Math.min(attemptLimit, MAX_ATTEMPTS);
+
+        this.symbolNames = new String[layout.getSymbolCount()];
+        for (int s = 0; s < symbolNames.length; ++s) {
+            symbolNames[s] = layout.getSymbolName(s);
+        }
+        this.symbols = new int[size];
+        for (int i = 0; i < size; ++i) {
+            symbols[i] = layout.getSymbolId(i);
+        }
+        this.revealedBits = new AtomicLongArray((size + 63) >>> 6);
+        this.matchedBits = new AtomicLongArray((size + 63) >>> 6);
+        this.pendingHide = new AtomicIntegerArray(size);
+    }
+
+    // -------------------------------------------------------------
+    // ESTADO EMPAQUETADO DEL TURNO
+    // -------------------------------------------------------------
+    private static int firstOf(long state) {
+        return (int) (state & FIELD_MASK) - 1;
+    }
+
+    private static int attemptsOf(long state) {
+        return (int) (state >>> ATTEMPTS_SHIFT);
+    }
+
+    private static long pack(int first, int attempts) {
+        return (first + 1L) | ((long) attempts << ATTEMPTS_SHIFT);
+    }
+
+    // -------------------------------------------------------------
+    // RESULTADO EMPAQUETADO DE flip()
+    //   bits  0-7:  FlipResult
+    //   bits  8-31: carta compañera + 1
+    //   bits 32-63: turno cerrado
+    // -------------------------------------------------------------
+
+    /**
+     * Resultado de un valor devuelto por flip()
+     */
+    public static MemoAnimaliaEngine.FlipResult resultOf(long flip) {
+        return RESULTS[(int) (flip & 0xFF)];
+    }
+
+    /**
+     * Primera carta del turno que cerró un valor devuelto por flip(), o
+     * NO_PARTNER si no cerró ninguno
+     */
+    public static int partnerOf(long flip) {
+        return (int) ((flip >>> 8) & 0xFFFFFF) - 1;
+    }
+
+    /**
+     * Turno que cerró un valor devuelto por flip(), o NO_TURN si no cerró
+     * ninguno. Es el que hay que pasar a hideCards() tras un NO_MATCH.
+     */
+    public static int turnOf(long flip) {
+        return (int) (flip >>> 32);
+    }
+
+    private static long flipValue(MemoAnimaliaEngine.FlipResult result, int partner, int turn) {
+        return ((long) turn << 32) | ((partner + 1L) << 8) | result.ordinal();
+    }
+
+    private static long flipValue(MemoAnimaliaEngine.FlipResult result) {
+        return flipValue(result, NO_PARTNER, NO_TURN);
+    }
+
+    // -------------------------------------------------------------
+    // BITS DE ESTADO DE LAS CARTAS
+    // -------------------------------------------------------------
+    private static boolean testBit(AtomicLongArray bits, int index) {
+        return (bits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Pone un bit a 1 si estaba en 0
+     *
+     * @return true si este hilo fue quien lo puso
+     */
+    private static boolean claimBit(AtomicLongArray bits, int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+        return true;
+    }
+
+    private static void setBit(AtomicLongArray bits, int index) {
+        bits.getAndAccumulate(index >>> 6, 1L << index, (w, m) -> w | m);
+    }
+
+    private static void clearBit(AtomicLongArray bits, int index) {
+        bits.getAndAccumulate(index >>> 6, ~(1L << index), (w, m) -> w & m);
+    }
+
+    /**
+     * Voltea una carta. Igual que flip() pero devuelve solo el resultado.
+     */
+    public MemoAnimaliaEngine.FlipResult flipCard(int index) {
+        return resultOf(flip(index));
+    }
+
+    /**
+     * Voltea una carta de forma linealizable. El valor devuelto empaqueta el
+     * FlipResult y, si el flip cerró un turno, la primera carta de ese turno
+     * y el número del turno: tras un NO_MATCH el llamador debe ocultar esa
+     * carta junto con la suya pasando ese número a hideCards(). Con la
+     * partida terminada por el límite de intentos devuelve ALREADY_REVEALED.
+     * No reserva memoria.
+     *
+     * @see #resultOf(long)
+     * @see #partnerOf(long)
+     * @see #turnOf(long)
+     */
+    public long flip(int index) {
+        if (index < 0 || index >= size) {
+            return flipValue(MemoAnimaliaEngine.FlipResult.INVALID_INDEX);
+        }
+        if (isGameOver() || testBit(matchedBits, index) || !claimBit(revealedBits, index)) {
+            return flipValue(MemoAnimaliaEngine.FlipResult.ALREADY_REVEALED);
+        }
+
+        while (true) {
+            long state = turnState.get();
+            int first = firstOf(state);
+            int attempts = attemptsOf(state);
+
+            if (attempts >= attemptLimit) {
+                // La partida terminó mientras reclamábamos la carta: la carta
+                // es solo nuestra, así que se puede soltar sin carrera
+                clearBit(revealedBits, index);
+                return flipValue(MemoAnimaliaEngine.FlipResult.ALREADY_REVEALED);
+            }
+
+            if (first < 0) {
+                if (turnState.compareAndSet(state, pack(index, attempts))) {
+                    return flipValue(MemoAnimaliaEngine.FlipResult.OK_REVEALED);
+                }
+                continue;
+            }
+
+            boolean match = symbols[first] == symbols[index];
+            int turn = attempts + 1;
+            if (turnState.compareAndSet(state, pack(-1, turn))) {
+                if (match) {
+                    // Las cartas emparejadas nunca tienen un hide pendiente,
+                    // así que ningún hide puede ocultarlas antes de estos bits.
+                    // La pareja se cuenta recién con los dos bits puestos.
+                    setBit(matchedBits, first);
+                    setBit(matchedBits, index);
+                    matchesFound.incrementAndGet();
+                    return flipValue(MemoAnimaliaEngine.FlipResult.MATCH, first, turn);
+                }
+                pendingHide.set(first, turn);
+                pendingHide.set(index, turn);
+                return flipValue(MemoAnimaliaEngine.FlipResult.NO_MATCH, first, turn);
+            }
+        }
+    }
+
+    /**
+     * Oculta las cartas de un NO_MATCH. Solo se ocultan las cartas que siguen
+     * esperando el hide de ese turno: un hide repetido o tardío no hace nada.
+     *
+     * @param turn turno devuelto por turnOf() para ese NO_MATCH
+     */
+    public void hideCards(int turn, int index1, int index2) {
+        hideCard(turn, index1);
+        hideCard(turn, index2);
+    }
+
+    private void hideCard(int turn, int index) {
+        if (turn == NO_TURN || index < 0 || index >= size) {
+            return;
+        }
+        if (pendingHide.compareAndSet(index, turn, NO_TURN)) {
+            clearBit(revealedBits, index);
+        }
+    }
+
+    /**
+     * Empieza una partida nueva con otra disposición. No es concurrente con
+     * el juego: ningún hilo puede estar en flip() o hideCards() mientras
+     * corre, y quien lo llama debe publicar el motor a los demás hilos
+     * después (por ejemplo, soltando el mismo candado con el que frenó las
+     * jugadas). Un hide de la partida anterior que llegue después no tiene
+     * efecto salvo sobre una carta que espera el hide de un turno con el
+     * mismo número, que de todos modos debía ocultarse.
+     */
+    public void reset() {
+        layout.resetForNewGame();
+        for (int i = 0; i < size; ++i) {
+            symbols[i] = layout.getSymbolId(i);
+            pendingHide.set(i, NO_TURN);
+        }
+        for (int w = 0; w < revealedBits.length(); ++w) {
+            revealedBits.set(w, 0);
+            matchedBits.set(w, 0);
+        }
+        matchesFound.set(0);
+        // Último: los flips leen el estado del turno antes que el resto
+        turnState.set(0);
+    }
+
+    // -------------------------------------------------------------
+    // GETTERS DEL MODELO
+    // -------------------------------------------------------------
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getAttemptLimit() {
+        return attemptLimit;
+    }
+
+    public int getAttempts() {
+        return attemptsOf(turnState.get());
+    }
+
+    /**
+     * Parejas encontradas cuyas dos cartas ya están marcadas
+     */
+    public int getMatchesFound() {
+        return matchesFound.get();
+    }
+
+    /**
+     * Primera carta del turno en curso, o -1 si no hay ninguna
+     */
+    public int getFirstSelectedIndex() {
+        return firstOf(turnState.get());
+    }
+
+    public boolean isRevealed(int index) {
+        Objects.checkIndex(index, size);
+        return testBit(revealedBits, index);
+    }
+
+    public boolean isMatched(int index) {
+        Objects.checkIndex(index, size);
+        return testBit(matchedBits, index);
+    }
+
+    public int getSymbolId(int index) {
+        Objects.checkIndex(index, size);
+        return symbols[index];
+    }
+
+    public String getSymbolName(int symbolId) {
+        return symbolNames[symbolId];
+    }
+
+    public boolean isGameWon() {
+        return getMatchesFound() >= (size / 2);
+    }
+
+    /**
+     * Indica si se agotaron los intentos. Desde entonces no se aceptan flips.
+     */
+    public boolean isGameOver() {
+        return getAttempts() >= attemptLimit;
+    }
+}
@@ -0,0 +1,258 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentMemoAnimaliaEngineTest {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo");
+
+    @Test
+    void testSequentialTurn() {
+        ConcurrentMemoAnimaliaEngine engine = new ConcurrentMemoAnimaliaEngine(3, 2, Arrays.asList("A", "B", "C"), 20);
+
+        int partner = 1;
+        while (engine.getSymbolId(partner) != engine.getSymbolId(0)) {
+            partner++;
+        }
+
+        assertEquals(MemoAnimaliaEngine.FlipResult.OK_REVEALED, engine.flipCard(0));
+        assertEquals(MemoAnimaliaEngine.FlipResult.ALREADY_REVEALED, engine.flipCard(0));
+        long flip = engine.flip(partner);
+        assertEquals(MemoAnimaliaEngine.FlipResult.MATCH, ConcurrentMemoAnimaliaEngine.resultOf(flip));
+        assertEquals(0, ConcurrentMemoAnimaliaEngine.partnerOf(flip));
+        assertEquals(1, engine.getAttempts());
+        assertEquals(1, engine.getMatchesFound());
+        assertTrue(engine.isMatched(0));
+        assertTrue(engine.isMatched(partner));
+    }
+
+    @Test
+    void testManyThreadsNeverCountPairTwice() throws Exception {
+        ConcurrentMemoAnimaliaEngine engine = new ConcurrentMemoAnimaliaEngine(32, 32, IDS, Integer.MAX_VALUE);
+        int threads = 8;
+        AtomicInteger matchResults = new AtomicInteger();
+        AtomicInteger turnResults = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            futures.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                start.await();
+                for (int i = 0; i < 200_000 && !engine.isGameWon(); i++) {
+                    int index = random.nextInt(engine.getSize());
+                    long flip = engine.flip(index);
+                    MemoAnimaliaEngine.FlipResult result = ConcurrentMemoAnimaliaEngine.resultOf(flip);
+                    if (result == MemoAnimaliaEngine.FlipResult.MATCH) {
+                        matchResults.incrementAndGet();
+                        turnResults.incrementAndGet();
+                    } else if (result == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                        turnResults.incrementAndGet();
+                        engine.hideCards(ConcurrentMemoAnimaliaEngine.turnOf(flip),
+                                ConcurrentMemoAnimaliaEngine.partnerOf(flip), index);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int matchedCards = 0;
+        for (int i = 0; i < engine.getSize(); i++) {
+            if (engine.isMatched(i)) {
+                matchedCards++;
+            }
+        }
+
+        assertEquals(matchResults.get(), engine.getMatchesFound(), "Cada MATCH devuelto debe contarse una sola vez");
+        assertEquals(turnResults.get(), engine.getAttempts(), "Cada turno cerrado debe sumar un intento");
+        assertEquals(2 * engine.getMatchesFound(), matchedCards, "Cada pareja contada debe marcar exactamente dos cartas");
+    }
+
+    @Test
+    void testDuplicateAndLateHidesNeverSelfMatch() throws Exception {
+        ConcurrentMemoAnimaliaEngine engine = new ConcurrentMemoAnimaliaEngine(16, 16, IDS, Integer.MAX_VALUE);
+        int threads = 8;
+        AtomicInteger matchResults = new AtomicInteger();
+        AtomicIntegerArray matchedBy = new AtomicIntegerArray(engine.getSize());
+        ConcurrentLinkedQueue<long[]> closedTurns = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            futures.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                start.await();
+                for (int i = 0; i < 200_000; i++) {
+                    // Hides tardíos y repetidos de turnos que otros hilos ya contestaron
+                    long[] late = closedTurns.poll();
+                    if (late != null) {
+                        engine.hideCards((int) late[0], (int) late[1], (int) late[2]);
+                        if (random.nextInt(4) != 0) {
+                            closedTurns.offer(late);
+                        }
+                    }
+                    int index = random.nextInt(engine.getSize());
+                    long flip = engine.flip(index);
+                    MemoAnimaliaEngine.FlipResult result = ConcurrentMemoAnimaliaEngine.resultOf(flip);
+                    int partner = ConcurrentMemoAnimaliaEngine.partnerOf(flip);
+                    int turn = ConcurrentMemoAnimaliaEngine.turnOf(flip);
+                    if (result == MemoAnimaliaEngine.FlipResult.MATCH) {
+                        matchResults.incrementAndGet();
+                        matchedBy.incrementAndGet(index);
+                        matchedBy.incrementAndGet(partner);
+                    } else if (result == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                        if (random.nextBoolean()) {
+                            engine.hideCards(turn, partner, index);
+                        }
+                        closedTurns.offer(new long[]{turn, partner, index});
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int matchedCards = 0;
+        for (int i = 0; i < engine.getSize(); i++) {
+            assertTrue(matchedBy.get(i) <= 1, "La carta " + i + " se emparejó más de una vez");
+            if (engine.isMatched(i)) {
+                matchedCards++;
+                assertTrue(engine.isRevealed(i), "Una carta emparejada no debe ocultarse");
+            }
+        }
+        assertEquals(matchResults.get(), engine.getMatchesFound());
+        assertEquals(2 * engine.getMatchesFound(), matchedCards);
+    }
+
+    @Test
+    void testAttemptLimitEndsGame() {
+        ConcurrentMemoAnimaliaEngine engine = new ConcurrentMemoAnimaliaEngine(4, 4, IDS, 2);
+
+        int turns = 0;
+        for (int i = 0; i < engine.getSize() && turns < 2; i++) {
+            long flip = engine.flip(i);
+            MemoAnimaliaEngine.FlipResult result = ConcurrentMemoAnimaliaEngine.resultOf(flip);
+            if (result == MemoAnimaliaEngine.FlipResult.MATCH || result == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                turns++;
+            }
+        }
+
+        assertTrue(engine.isGameOver());
+        assertEquals(2, engine.getAttempts());
+        int hidden = 0;
+        while (engine.isRevealed(hidden)) {
+            hidden++;
+        }
+        assertEquals(MemoAnimaliaEngine.FlipResult.ALREADY_REVEALED, engine.flipCard(hidden));
+        assertFalse(engine.isRevealed(hidden));
+        assertEquals(2, engine.getAttempts());
+    }
+
+    @Test
+    void testHugeAttemptLimitIsClamped() {
+        ConcurrentMemoAnimaliaEngine engine = new ConcurrentMemoAnimaliaEngine(2, 2, IDS, Integer.MAX_VALUE);
+
+        assertEquals(ConcurrentMemoAnimaliaEngine.MAX_ATTEMPTS, engine.getAttemptLimit());
+    }
+
+    @Test
+    void testReadersNeverSeeACountedPairWithoutItsCards() throws Exception {
+        ConcurrentMemoAnimaliaEngine engine = new ConcurrentMemoAnimaliaEngine(16, 16, IDS, Integer.MAX_VALUE);
+        int players = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(players + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < players; t++) {
+            long seed = t;
+            futures.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                start.await();
+                while (!engine.isGameWon()) {
+                    int index = random.nextInt(engine.getSize());
+                    long flip = engine.flip(index);
+                    if (ConcurrentMemoAnimaliaEngine.resultOf(flip) == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                        engine.hideCards(ConcurrentMemoAnimaliaEngine.turnOf(flip),
+                                ConcurrentMemoAnimaliaEngine.partnerOf(flip), index);
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<Integer> reader = pool.submit(() -> {
+            start.await();
+            int checks = 0;
+            while (!engine.isGameWon()) {
+                // Primero el contador: las cartas que se leen después no
+                // pueden ser menos que las contadas
+                int counted = engine.getMatchesFound();
+                int matched = 0;
+                for (int i = 0; i < engine.getSize(); i++) {
+                    if (engine.isMatched(i)) {
+                        matched++;
+                    }
+                }
+                assertTrue(matched >= 2 * counted, counted + " parejas contadas y " + matched + " cartas marcadas");
+                checks++;
+            }
+            return checks;
+        });
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+        pool.shutdown();
+    }
+
+    @Test
+    void testQueriesRejectIndexesOutsideTheBoard() {
+        // 6 cartas en una palabra de 64 bits
+        ConcurrentMemoAnimaliaEngine engine = new ConcurrentMemoAnimaliaEngine(3, 2, Arrays.asList("A", "B", "C"), 20);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.isRevealed(6));
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.isMatched(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.getSymbolId(6));
+    }
+
+    @Test
+    void testResetStartsANewGame() {
+        ConcurrentMemoAnimaliaEngine engine = new ConcurrentMemoAnimaliaEngine(4, 4, IDS, 3);
+        for (int i = 0; i < engine.getSize() && !engine.isGameOver(); i++) {
+            engine.flip(i);
+        }
+        assertTrue(engine.isGameOver());
+
+        engine.reset();
+
+        assertFalse(engine.isGameOver());
+        assertEquals(0, engine.getAttempts());
+        assertEquals(0, engine.getMatchesFound());
+        assertEquals(-1, engine.getFirstSelectedIndex());
+        int[] counts = new int[engine.getSize()];
+        for (int i = 0; i < engine.getSize(); i++) {
+            assertFalse(engine.isRevealed(i));
+            assertFalse(engine.isMatched(i));
+            counts[engine.getSymbolId(i)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count == 0 || count == 2, "La disposición nueva sigue formada por parejas");
+        }
+        assertEquals(MemoAnimaliaEngine.FlipResult.OK_REVEALED, engine.flipCard(0));
+    }
+}
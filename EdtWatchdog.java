@@ -0,0 +1,203 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * Vigilante opcional del hilo de eventos de Swing.
+ *
+ * Un hilo daemon publica en el EDT una tarea de latido cada cierto período y
+ * mide cuánto tarda en ejecutarse; esas demoras van a un histograma. Si un
+ * latido lleva esperando más que el umbral, el EDT está ocupado con otra
+ * tarea: se captura su pila y se escribe en un log rotativo junto con el
+ * resumen del histograma, así el bloqueo queda asociado a un método. Mientras
+ * el bloqueo dure se toman unas pocas muestras más, una por umbral.
+ *
+ * Un JOptionPane modal atiende la cola con un ciclo de eventos propio, así que
+ * solo aparece si la tarea que lo abre tarda antes de mostrarlo; el trabajo
+ * síncrono (imágenes, refrescos completos) aparece tal cual.
+ */
+public class EdtWatchdog implements AutoCloseable {
+
+    /**
+     * Muestras de pila por bloqueo como máximo
+     */
+    private static final int MAX_SAMPLES_PER_STALL = 3;
+    /**
+     * Archivos anteriores que conserva el log rotativo
+     */
+    private static final int LOG_BACKUPS = 3;
+
+    private final long thresholdNanos;
+    private final long periodNanos;
+    private final Path logFile;
+    private final long maxLogBytes;
+    private final MemoAnimaliaMetrics.LatencyHistogram delays = new MemoAnimaliaMetrics.LatencyHistogram();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Momento en que se publicó el latido pendiente, o 0 si no hay ninguno.
+     * Solo lo escriben el hilo vigilante (al publicar) y el EDT (al atender).
+     */
+    private volatile long pendingSince;
+    /**
+     * Hilo que atendió el último latido: el EDT puede reemplazarse tras una
+     * excepción
+     */
+    private volatile Thread edt;
+
+    // Solo los escribe el hilo vigilante
+    private long lastBeat;
+    private int samplesInStall;
+    private volatile long stallCount;
+
+    /**
+     * Crea y arranca el vigilante
+     *
+     * @param threshold Demora a partir de la cual se considera bloqueado el
+     * EDT
+     * @param period Intervalo entre latidos
+     * @param unit Unidad de threshold y period
+     * @param logFile Log donde escribir los bloqueos
+     * @param maxLogBytes Tamaño a partir del cual el log se rota
+     */
+    public EdtWatchdog(long threshold, long period, TimeUnit unit, Path logFile, long maxLogBytes) {
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.periodNanos = unit.toNanos(period);
+        this.logFile = logFile;
+        this.maxLogBytes = maxLogBytes;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "memoanimalia-edt-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::check, 0, Math.max(1, periodNanos / 4), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Arranca un vigilante según las propiedades del sistema, o devuelve null
+     * si no se pidió. -Dmemoanimalia.edtWatchdog=archivo lo activa;
+     * -Dmemoanimalia.edtWatchdog.thresholdMs (200 por defecto) fija el umbral.
+     */
+    public static EdtWatchdog fromSystemProperties() {
+        String file = System.getProperty("memoanimalia.edtWatchdog");
+        if (file == null) {
+            return null;
+        }
+        long threshold = Long.getLong("memoanimalia.edtWatchdog.thresholdMs", 200);
+        return new EdtWatchdog(threshold, Math.max(10, threshold / 4), TimeUnit.MILLISECONDS, Path.of(file), 1 << 20);
+    }
+
+    /**
+     * Paso del hilo vigilante: publica un latido cuando toca y revisa si el
+     * pendiente ya superó el umbral
+     */
+    private void check() {
+        long now = System.nanoTime();
+        long since = pendingSince;
+        if (since == 0) {
+            if (samplesInStall > 0) {
+                log("Fin del bloqueo tras " + samplesInStall + " muestra(s). Demoras (ns): " + delays + "\n\n");
+                samplesInStall = 0;
+            }
+            if (now - lastBeat >= periodNanos) {
+                lastBeat = now;
+                pendingSince = now;
+                SwingUtilities.invokeLater(this::beat);
+            }
+            return;
+        }
+        long waited = now - since;
+        if (waited >= thresholdNanos * (samplesInStall + 1) && samplesInStall < MAX_SAMPLES_PER_STALL) {
+            if (samplesInStall == 0) {
+                stallCount++;
+            }
+            samplesInStall++;
+            Thread thread = edt;
+            log(describe(thread, waited));
+        }
+    }
+
+    /**
+     * Latido: se ejecuta en el EDT
+     */
+    private void beat() {
+        edt = Thread.currentThread();
+        long since = pendingSince;
+        delays.record(System.nanoTime() - since);
+        pendingSince = 0;
+    }
+
+    private String describe(Thread thread, long waitedNanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Instant.now()).append(" EDT bloqueado hace ").append(waitedNanos / 1_000_000).append(" ms");
+        if (thread == null) {
+            sb.append(" (todavía no se identificó el EDT)\n");
+        } else {
+            sb.append(" en ").append(thread.getName()).append(" (").append(thread.getState()).append(")\n");
+            for (StackTraceElement element : thread.getStackTrace()) {
+                sb.append("\tat ").append(element).append('\n');
+            }
+        }
+        sb.append("Demoras (ns): ").append(delays).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Agrega texto al log, rotándolo antes si ya superó el tamaño máximo
+     */
+    private void log(String text) {
+        try {
+            if (Files.exists(logFile) && Files.size(logFile) >= maxLogBytes) {
+                rotate();
+            }
+            Files.write(logFile, text.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("No se pudo escribir el log del vigilante del EDT: " + e.getMessage());
+        }
+    }
+
+    private void rotate() throws IOException {
+        for (int i = LOG_BACKUPS - 1; i >= 1; --i) {
+            Path from = backup(i);
+            if (Files.exists(from)) {
+                Files.move(from, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(logFile, backup(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Archivo de respaldo número n del log (log.1, log.2...)
+     */
+    Path backup(int n) {
+        return logFile.resolveSibling(logFile.getFileName() + "." + n);
+    }
+
+    /**
+     * Histograma de la demora de los latidos en la cola del EDT
+     */
+    public MemoAnimaliaMetrics.LatencyHistogram getDelayHistogram() {
+        return delays;
+    }
+
+    /**
+     * Bloqueos detectados desde el arranque
+     */
+    public long getStallCount() {
+        return stallCount;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EdtWatchdogTest {
+
+    @Test
+    void testStallIsLoggedWithEdtStack(@TempDir Path dir) throws Exception {
+        Path log = dir.resolve("edt.log");
+        // Que el arranque del toolkit no cuente como bloqueo
+        SwingUtilities.invokeAndWait(() -> {
+        });
+        try (EdtWatchdog watchdog = new EdtWatchdog(100, 20, TimeUnit.MILLISECONDS, log, 1 << 20)) {
+            // Latidos normales antes del bloqueo
+            Thread.sleep(200);
+            SwingUtilities.invokeAndWait(EdtWatchdogTest::slowEdtTask);
+            Thread.sleep(200);
+
+            // Un bloqueo largo puede cortarse en más de uno si el EDT tarda
+            // en atender el latido siguiente
+            assertTrue(watchdog.getStallCount() >= 1);
+            assertTrue(watchdog.getDelayHistogram().getCount() > 2);
+            assertTrue(watchdog.getDelayHistogram().getMax() >= TimeUnit.MILLISECONDS.toNanos(250));
+        }
+        String text = Files.readString(log);
+        assertTrue(text.contains("EDT bloqueado"), text);
+        assertTrue(Arrays.stream(text.split("EDT bloqueado")).skip(1)
+                .map(entry -> entry.substring(0, entry.indexOf("Demoras (ns)")))
+                .anyMatch(stack -> stack.contains("EdtWatchdogTest.slowEdtTask(")),
+                "Ninguna pila capturada está dentro de slowEdtTask:\n" + text);
+        assertTrue(text.contains("Fin del bloqueo"), text);
+    }
+
+    @Test
+    void testLogRotates(@TempDir Path dir) throws Exception {
+        Path log = dir.resolve("edt.log");
+        try (EdtWatchdog watchdog = new EdtWatchdog(20, 5, TimeUnit.MILLISECONDS, log, 64)) {
+            for (int i = 0; i < 3; i++) {
+                Thread.sleep(50);
+                SwingUtilities.invokeAndWait(() -> sleep(60));
+            }
+            Thread.sleep(50);
+            assertTrue(Files.exists(watchdog.backup(1)));
+        }
+    }
+
+    private static void slowEdtTask() {
+        sleep(300);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
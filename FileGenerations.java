@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Archivos que se leen mapeados en memoria y se reescriben enteros. En
+ * Windows un archivo mapeado no puede reemplazarse ni borrarse, así que cada
+ * escritura crea una generación nueva (archivo.1, archivo.2...) y las
+ * anteriores se borran cuando ya nadie las tiene mapeadas. Se lee siempre la
+ * de número más alto.
+ */
+final class FileGenerations {
+
+    private FileGenerations() {
+    }
+
+    static Path path(Path file, int number) {
+        return file.resolveSibling(file.getFileName() + "." + number);
+    }
+
+    /**
+     * Número de la generación más nueva del archivo, o 0 si no hay ninguna
+     */
+    static int newest(Path file) {
+        int newest = 0;
+        for (Path p : list(file)) {
+            newest = Math.max(newest, numberOf(file, p));
+        }
+        return newest;
+    }
+
+    /**
+     * Número de una generación, o 0 si el nombre no corresponde a una
+     */
+    static int numberOf(Path file, Path generation) {
+        String prefix = file.getFileName() + ".";
+        String name = generation.getFileName().toString();
+        if (!name.startsWith(prefix) || name.length() == prefix.length()) {
+            return 0;
+        }
+        String suffix = name.substring(prefix.length());
+        if (!Character.isDigit(suffix.charAt(0))) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(suffix);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static List<Path> list(Path file) {
+        Path dir = file.toAbsolutePath().getParent();
+        List<Path> found = new ArrayList<>();
+        if (Files.isDirectory(dir)) {
+            // Se filtra con numberOf y no con un glob: el nombre puede tener
+            // [, {, * o ?
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path p : stream) {
+                    if (numberOf(file, p) > 0) {
+                        found.add(p);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("No se pudo listar " + dir + ": " + e.getMessage());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Publica un archivo temporal ya escrito como la generación siguiente a
+     * la más nueva (y a after)
+     *
+     * @return Número de la generación creada
+     */
+    static int publish(Path file, Path tmp, int after) throws IOException {
+        int number = Math.max(after, newest(file)) + 1;
+        // Se reserva el nombre creándolo vacío: si otro proceso ya usó ese
+        // número, se prueba con el siguiente. La reserva no está mapeada
+        // por nadie, así que reemplazarla es seguro en cualquier sistema.
+        while (true) {
+            try {
+                Files.createFile(path(file, number));
+                break;
+            } catch (FileAlreadyExistsException e) {
+                number++;
+            }
+        }
+        Files.move(tmp, path(file, number), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return number;
+    }
+
+    /**
+     * Borra las generaciones anteriores a la indicada. Las que sigan mapeadas
+     * aquí o en otro proceso pueden no borrarse (en Windows); se borrarán en
+     * una escritura posterior.
+     */
+    static void deleteOlder(Path file, int number) {
+        for (Path p : list(file)) {
+            if (numberOf(file, p) < number) {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    // Sigue mapeada; se borrará más adelante
+                }
+            }
+        }
+    }
+
+    static void deleteAll(Path file) {
+        deleteOlder(file, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,668 @@
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publicador de los eventos del motor para varios suscriptores
+ * (java.util.concurrent.Flow).
+ *
+ * Se conecta al motor como su GameListener. Cada evento se copia en un anillo
+ * de tamaño fijo y un hilo repartidor lo lleva a los suscriptores; el hilo
+ * que juega solo copia el evento y escribe una secuencia volatile, sin importar
+ * cuántos suscriptores haya ni cuán lentos sean. Cada suscriptor tiene su
+ * propio buffer acotado, su Executor de entrega y una política para cuando
+ * el buffer se llena (ver OverflowPolicy).
+ *
+ * Como el motor, el publicador admite un solo hilo publicando a la vez.
+ */
+public class GameEventPublisher implements MemoAnimaliaEngine.GameListener,
+        Flow.Publisher<GameEventPublisher.GameEvent>, AutoCloseable {
+
+    /**
+     * Tamaño por defecto del anillo entre el motor y el repartidor
+     */
+    public static final int DEFAULT_RING_SIZE = 1024;
+
+    /**
+     * =============================================================
+     * Enumeración OverflowPolicy
+     * ------------------------------------------------------------- Qué hacer
+     * cuando el buffer de un suscriptor está lleno.
+     * =============================================================
+     */
+    public enum OverflowPolicy {
+        /**
+         * Descarta el evento más antiguo del buffer
+         */
+        DROP_OLDEST,
+        /**
+         * Un cambio de intentos o de parejas encontradas reemplaza al
+         * pendiente del mismo tipo y un reinicio vacía el buffer; si aun así
+         * no hay lugar, descarta el más antiguo
+         */
+        COALESCE,
+        /**
+         * Espera a que el suscriptor consuma. Frena al repartidor y, cuando
+         * el anillo se llena, al motor: es contrapresión hasta el clic. No
+         * sirve si el suscriptor se entrega en el mismo hilo que juega (por
+         * ejemplo el EDT), porque nunca llegaría a consumir.
+         */
+        BLOCK
+    }
+
+    /**
+     * =============================================================
+     * Clase GameEvent
+     * ------------------------------------------------------------- Evento
+     * inmutable del motor, una llamada del GameListener. Los crea el hilo
+     * repartidor, no el que juega.
+     * =============================================================
+     */
+    public static final class GameEvent {
+
+        public enum Type {
+            CARD_REVEALED,
+            CARDS_HIDDEN,
+            CARDS_MATCHED,
+            ATTEMPTS_CHANGED,
+            MATCH_COUNT_CHANGED,
+            GAME_WON,
+            ATTEMPT_LIMIT_REACHED,
+            GAME_RESET
+        }
+
+        private static final Type[] TYPES = Type.values();
+
+        private final Type type;
+        private final int first;
+        private final int second;
+        private final String cardId;
+
+        GameEvent(Type type, int first, int second, String cardId) {
+            this.type = type;
+            this.first = first;
+            this.second = second;
+            this.cardId = cardId;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Índice de la carta (o de la primera del par); en los eventos con
+         * valor, el valor (intentos, parejas o límite)
+         */
+        public int getFirst() {
+            return first;
+        }
+
+        /**
+         * Índice de la segunda carta del par, o -1
+         */
+        public int getSecond() {
+            return second;
+        }
+
+        /**
+         * Id de la carta revelada, o null
+         */
+        public String getCardId() {
+            return cardId;
+        }
+
+        /**
+         * Repite el evento sobre un GameListener. La Card que recibe
+         * onCardRevealed es una copia revelada, no la vista del motor.
+         */
+        public void deliverTo(MemoAnimaliaEngine.GameListener listener) {
+            switch (type) {
+                case CARD_REVEALED:
+                    MemoAnimaliaEngine.Card card = new MemoAnimaliaEngine.Card(cardId);
+                    card.setRevealed(true);
+                    listener.onCardRevealed(first, card);
+                    break;
+                case CARDS_HIDDEN:
+                    listener.onCardsHidden(first, second);
+                    break;
+                case CARDS_MATCHED:
+                    listener.onCardsMatched(first, second);
+                    break;
+                case ATTEMPTS_CHANGED:
+                    listener.onAttemptChanged(first);
+                    break;
+                case MATCH_COUNT_CHANGED:
+                    listener.onMatchCountChanged(first);
+                    break;
+                case GAME_WON:
+                    listener.onGameWon(first);
+                    break;
+                case ATTEMPT_LIMIT_REACHED:
+                    listener.onGameOverAttemptLimit(first);
+                    break;
+                case GAME_RESET:
+                    listener.onGameReset();
+                    break;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "GameEvent(" + type + "," + first + "," + second + (cardId != null ? "," + cardId : "") + ")";
+        }
+    }
+
+    /**
+     * =============================================================
+     * Clase Subscription
+     * ------------------------------------------------------------- Buffer
+     * acotado de un suscriptor. El repartidor agrega eventos con offer() y
+     * una tarea en el Executor del suscriptor los entrega mientras haya
+     * demanda; nunca hay dos entregas a la vez para el mismo suscriptor.
+     * =============================================================
+     */
+    public final class Subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super GameEvent> subscriber;
+        private final Executor executor;
+        private final OverflowPolicy policy;
+        private final GameEvent[] buffer;
+        /**
+         * Secuencias del primer evento pendiente y del siguiente a escribir
+         */
+        private long head;
+        private long tail;
+        /**
+         * Secuencia del último evento pendiente de cada tipo, para COALESCE
+         */
+        private final long[] lastOfType = new long[GameEvent.TYPES.length];
+
+        private long demand;
+        private boolean scheduled;
+        private boolean subscribed;
+        private boolean cancelled;
+        private boolean completing;
+        private boolean completed;
+
+        private long delivered;
+        private long dropped;
+        private long coalesced;
+
+        private Subscription(Flow.Subscriber<? super GameEvent> subscriber, Executor executor, int capacity,
+                OverflowPolicy policy) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.policy = policy;
+            this.buffer = new GameEvent[capacity];
+            Arrays.fill(lastOfType, -1);
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    // Regla 3.9 de Reactive Streams
+                    cancelLocked();
+                    executor.execute(() -> subscriber.onError(
+                            new IllegalArgumentException("request debe ser positivo: " + n)));
+                    return;
+                }
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                scheduleLocked();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelLocked();
+            }
+        }
+
+        private void cancelLocked() {
+            if (!cancelled) {
+                cancelled = true;
+                head = tail;
+                Arrays.fill(buffer, null);
+                subscriptions.remove(this);
+                notifyAll();
+            }
+        }
+
+        /**
+         * Agrega un evento. Lo llama solo el repartidor; con BLOCK espera a
+         * que haya lugar.
+         */
+        private synchronized void offer(GameEvent event) {
+            if (cancelled || completing) {
+                return;
+            }
+            int type = event.type.ordinal();
+            if (policy == OverflowPolicy.COALESCE) {
+                if (event.type == GameEvent.Type.GAME_RESET) {
+                    coalesced += tail - head;
+                    Arrays.fill(buffer, null);
+                    head = tail;
+                } else if (isValueEvent(event.type) && lastOfType[type] >= head) {
+                    buffer[slot(lastOfType[type])] = event;
+                    coalesced++;
+                    return;
+                }
+            }
+            while (tail - head == buffer.length) {
+                if (policy == OverflowPolicy.BLOCK) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (cancelled) {
+                        return;
+                    }
+                } else {
+                    buffer[slot(head++)] = null;
+                    dropped++;
+                }
+            }
+            lastOfType[type] = tail;
+            buffer[slot(tail++)] = event;
+            scheduleLocked();
+        }
+
+        /**
+         * Entrega onComplete cuando termine de vaciarse el buffer
+         */
+        private synchronized void complete() {
+            completing = true;
+            scheduleLocked();
+        }
+
+        private int slot(long sequence) {
+            return (int) (sequence % buffer.length);
+        }
+
+        private void scheduleLocked() {
+            if (scheduled || cancelled || completed) {
+                return;
+            }
+            if (subscribed && (head == tail || demand == 0) && !(completing && head == tail)) {
+                return;
+            }
+            scheduled = true;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled = false;
+                System.err.println("No se pudo entregar eventos a " + subscriber + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Entrega eventos mientras haya demanda. Se ejecuta en el Executor del
+         * suscriptor.
+         */
+        private void drain() {
+            boolean first;
+            synchronized (this) {
+                first = !subscribed;
+                subscribed = true;
+            }
+            if (first) {
+                subscriber.onSubscribe(this);
+            }
+            while (true) {
+                GameEvent event;
+                synchronized (this) {
+                    if (cancelled) {
+                        scheduled = false;
+                        return;
+                    }
+                    if (head == tail) {
+                        scheduled = false;
+                        if (completing && !completed) {
+                            completed = true;
+                            break;
+                        }
+                        return;
+                    }
+                    if (demand == 0) {
+                        scheduled = false;
+                        return;
+                    }
+                    event = buffer[slot(head)];
+                    buffer[slot(head++)] = null;
+                    if (demand != Long.MAX_VALUE) {
+                        demand--;
+                    }
+                    delivered++;
+                    notifyAll();
+                }
+                try {
+                    subscriber.onNext(event);
+                } catch (RuntimeException e) {
+                    cancel();
+                    System.err.println("Suscriptor cancelado por una excepción en onNext: " + e);
+                    return;
+                }
+            }
+            subscriber.onComplete();
+        }
+
+        /**
+         * Eventos entregados con onNext
+         */
+        public synchronized long getDeliveredCount() {
+            return delivered;
+        }
+
+        /**
+         * Eventos descartados por falta de lugar
+         */
+        public synchronized long getDroppedCount() {
+            return dropped;
+        }
+
+        /**
+         * Eventos absorbidos por uno posterior (solo COALESCE)
+         */
+        public synchronized long getCoalescedCount() {
+            return coalesced;
+        }
+
+        /**
+         * Eventos en el buffer esperando demanda
+         */
+        public synchronized int getPendingCount() {
+            return (int) (tail - head);
+        }
+
+        public OverflowPolicy getPolicy() {
+            return policy;
+        }
+    }
+
+    private static boolean isValueEvent(GameEvent.Type type) {
+        return type == GameEvent.Type.ATTEMPTS_CHANGED || type == GameEvent.Type.MATCH_COUNT_CHANGED;
+    }
+
+    // Anillo entre el motor y el repartidor
+    private final int mask;
+    private final GameEvent.Type[] ringTypes;
+    private final int[] ringFirst;
+    private final int[] ringSecond;
+    private final String[] ringIds;
+
+    /**
+     * Eventos publicados; lo escribe solo el hilo que juega
+     */
+    private volatile long published;
+    /**
+     * Eventos ya repartidos; lo escribe solo el repartidor
+     */
+    private volatile long dispatched;
+    /**
+     * El repartidor está por dormir; el primer evento que lo ve lo despierta
+     * y los siguientes ya no pagan el unpark
+     */
+    private final AtomicBoolean dispatcherParked = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService defaultExecutor;
+    private final Thread dispatcher;
+
+    /**
+     * Crea el publicador con un anillo de DEFAULT_RING_SIZE eventos
+     */
+    public GameEventPublisher() {
+        this(DEFAULT_RING_SIZE);
+    }
+
+    /**
+     * @param ringSize Eventos que pueden esperar al repartidor antes de que
+     * el motor tenga que detenerse (se redondea a una potencia de dos)
+     */
+    public GameEventPublisher(int ringSize) {
+        int size = Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1;
+        this.mask = size - 1;
+        this.ringTypes = new GameEvent.Type[size];
+        this.ringFirst = new int[size];
+        this.ringSecond = new int[size];
+        this.ringIds = new String[size];
+        this.defaultExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "memoanimalia-events");
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "memoanimalia-event-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Suscribe con el Executor propio del publicador, un buffer de
+     * Flow.defaultBufferSize() eventos y DROP_OLDEST. Ya cerrado el
+     * publicador, onSubscribe y onComplete se llaman en el hilo que suscribe.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super GameEvent> subscriber) {
+        subscribe(subscriber, closed ? Runnable::run : defaultExecutor, Flow.defaultBufferSize(),
+                OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Suscribe con un buffer y una política propios
+     *
+     * @param executor Dónde se llama al suscriptor; para la interfaz,
+     * SwingUtilities::invokeLater
+     * @param capacity Eventos que puede acumular el buffer
+     * @param policy Qué hacer cuando el buffer se llena
+     * @return La suscripción, para consultar sus contadores
+     */
+    public Subscription subscribe(Flow.Subscriber<? super GameEvent> subscriber, Executor executor, int capacity,
+            OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva: " + capacity);
+        }
+        Subscription subscription = new Subscription(subscriber, executor, capacity, policy);
+        synchronized (subscription) {
+            if (closed) {
+                subscription.completing = true;
+            } else {
+                subscriptions.add(subscription);
+            }
+            subscription.scheduleLocked();
+        }
+        return subscription;
+    }
+
+    /**
+     * Adapta un GameListener para suscribirlo: pide todos los eventos y los
+     * repite sobre el listener
+     */
+    public static Flow.Subscriber<GameEvent> subscriberFor(MemoAnimaliaEngine.GameListener listener) {
+        return new Flow.Subscriber<GameEvent>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(GameEvent event) {
+                event.deliverTo(listener);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                System.err.println("Error en la suscripción de " + listener + ": " + error);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+    }
+
+    /**
+     * =============================================================
+     * Camino del motor
+     * =============================================================
+     */
+    private void publish(GameEvent.Type type, int first, int second, String cardId) {
+        if (closed) {
+            return;
+        }
+        long sequence = published;
+        if (sequence - dispatched > mask) {
+            awaitRoom(sequence);
+        }
+        int slot = (int) sequence & mask;
+        ringTypes[slot] = type;
+        ringFirst[slot] = first;
+        ringSecond[slot] = second;
+        ringIds[slot] = cardId;
+        published = sequence + 1;
+        if (dispatcherParked.get() && dispatcherParked.getAndSet(false)) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * El anillo está lleno: solo pasa si un suscriptor BLOCK frena al
+     * repartidor
+     */
+    private void awaitRoom(long sequence) {
+        while (sequence - dispatched > mask && !closed) {
+            LockSupport.unpark(dispatcher);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    @Override
+    public void onCardRevealed(int index, MemoAnimaliaEngine.Card card) {
+        publish(GameEvent.Type.CARD_REVEALED, index, -1, card != null ? card.getId() : null);
+    }
+
+    @Override
+    public void onCardsHidden(int index1, int index2) {
+        publish(GameEvent.Type.CARDS_HIDDEN, index1, index2, null);
+    }
+
+    @Override
+    public void onCardsMatched(int index1, int index2) {
+        publish(GameEvent.Type.CARDS_MATCHED, index1, index2, null);
+    }
+
+    @Override
+    public void onAttemptChanged(int attempts) {
+        publish(GameEvent.Type.ATTEMPTS_CHANGED, attempts, -1, null);
+    }
+
+    @Override
+    public void onMatchCountChanged(int matchesFound) {
+        publish(GameEvent.Type.MATCH_COUNT_CHANGED, matchesFound, -1, null);
+    }
+
+    @Override
+    public void onGameWon(int attempts) {
+        publish(GameEvent.Type.GAME_WON, attempts, -1, null);
+    }
+
+    @Override
+    public void onGameOverAttemptLimit(int attemptLimit) {
+        publish(GameEvent.Type.ATTEMPT_LIMIT_REACHED, attemptLimit, -1, null);
+    }
+
+    @Override
+    public void onGameReset() {
+        publish(GameEvent.Type.GAME_RESET, -1, -1, null);
+    }
+
+    /**
+     * =============================================================
+     * Repartidor
+     * =============================================================
+     */
+    private void dispatchLoop() {
+        long next = 0;
+        while (true) {
+            long available = published;
+            if (next == available) {
+                if (closed) {
+                    break;
+                }
+                dispatcherParked.set(true);
+                // Releer después de anunciarse: el motor lee dispatcherParked
+                // después de escribir published
+                if (published == next && !closed) {
+                    LockSupport.park(this);
+                }
+                dispatcherParked.set(false);
+                continue;
+            }
+            for (; next < available; ++next) {
+                int slot = (int) next & mask;
+                GameEvent event = new GameEvent(ringTypes[slot], ringFirst[slot], ringSecond[slot], ringIds[slot]);
+                ringIds[slot] = null;
+                for (Subscription subscription : subscriptions) {
+                    subscription.offer(event);
+                }
+                dispatched = next + 1;
+            }
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        subscriptions.clear();
+        // Las entregas ya encoladas (y sus onComplete) terminan antes de que
+        // se apaguen los hilos
+        defaultExecutor.shutdown();
+    }
+
+    /**
+     * Eventos recibidos del motor
+     */
+    public long getPublishedCount() {
+        return published;
+    }
+
+    public int getNumberOfSubscribers() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Deja de aceptar eventos; los suscriptores reciben los pendientes y
+     * luego onComplete. Cuando el repartidor termina se apaga el Executor
+     * propio, así que un suscriptor que lo usa y pide sus pendientes recién
+     * después ya no los recibe.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcher);
+    }
+
+    /**
+     * Espera a que, después de close(), terminen el repartidor y los hilos
+     * del Executor propio
+     *
+     * @return false si se agotó el tiempo
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        dispatcher.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        return !dispatcher.isAlive()
+                && defaultExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+}
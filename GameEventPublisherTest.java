@@ -0,0 +1,201 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+class GameEventPublisherTest {
+
+    /**
+     * Suscriptor que guarda lo recibido y solo pide cuando se le indica
+     */
+    private static final class Recorder implements Flow.Subscriber<GameEventPublisher.GameEvent> {
+
+        final List<GameEventPublisher.GameEvent> events = new ArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final long initialRequest;
+        volatile Flow.Subscription subscription;
+
+        Recorder(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public synchronized void onNext(GameEventPublisher.GameEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            fail(error);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        synchronized List<GameEventPublisher.GameEvent.Type> types() {
+            List<GameEventPublisher.GameEvent.Type> types = new ArrayList<>();
+            for (GameEventPublisher.GameEvent e : events) {
+                types.add(e.getType());
+            }
+            return types;
+        }
+    }
+
+    @Test
+    void testEverySubscriberSeesTheFlipsInOrder() throws Exception {
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(2, 2, Arrays.asList("A", "B"), 10);
+        GameEventPublisher publisher = new GameEventPublisher();
+        engine.setListener(publisher);
+        Recorder a = new Recorder(Long.MAX_VALUE);
+        Recorder b = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(a);
+        publisher.subscribe(b);
+
+        int first = 0;
+        int second = 1;
+        while (engine.getSymbolId(second) != engine.getSymbolId(first)) {
+            second++;
+        }
+        engine.flipCard(first);
+        engine.flipCard(second);
+        publisher.close();
+
+        assertTrue(a.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(b.completed.await(5, TimeUnit.SECONDS));
+        List<GameEventPublisher.GameEvent.Type> expected = Arrays.asList(
+                GameEventPublisher.GameEvent.Type.CARD_REVEALED,
+                GameEventPublisher.GameEvent.Type.CARD_REVEALED,
+                GameEventPublisher.GameEvent.Type.ATTEMPTS_CHANGED,
+                GameEventPublisher.GameEvent.Type.CARDS_MATCHED,
+                GameEventPublisher.GameEvent.Type.MATCH_COUNT_CHANGED);
+        assertEquals(expected, a.types());
+        assertEquals(expected, b.types());
+        assertEquals(engine.getCard(first).getId(), a.events.get(0).getCardId());
+        assertEquals(second, a.events.get(3).getSecond());
+        assertEquals(5, publisher.getPublishedCount());
+    }
+
+    /**
+     * Espera a que el repartidor termine de llenar el buffer
+     */
+    private static void await(BooleanSupplier condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void testSlowSubscriberDropsOldest() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher();
+        Recorder slow = new Recorder(0);
+        GameEventPublisher.Subscription subscription = publisher.subscribe(slow, Runnable::run, 4,
+                GameEventPublisher.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 10; ++i) {
+            publisher.onCardsHidden(i, i + 1);
+        }
+        publisher.close();
+        await(() -> subscription.getDroppedCount() == 6);
+        slow.subscription.request(Long.MAX_VALUE);
+
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(6, subscription.getDroppedCount());
+        assertEquals(4, slow.events.size());
+        assertEquals(6, slow.events.get(0).getFirst());
+    }
+
+    @Test
+    void testCoalesceKeepsLatestValuesAndResetClearsBacklog() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher();
+        Recorder slow = new Recorder(0);
+        GameEventPublisher.Subscription subscription = publisher.subscribe(slow, Runnable::run, 8,
+                GameEventPublisher.OverflowPolicy.COALESCE);
+        publisher.onCardsHidden(0, 1);
+        publisher.onAttemptChanged(1);
+        publisher.onCardsHidden(2, 3);
+        publisher.onAttemptChanged(2);
+        publisher.onGameReset();
+        publisher.onAttemptChanged(0);
+        publisher.onAttemptChanged(1);
+        publisher.close();
+        await(() -> subscription.getCoalescedCount() == 5);
+        slow.subscription.request(Long.MAX_VALUE);
+
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(GameEventPublisher.GameEvent.Type.GAME_RESET,
+                GameEventPublisher.GameEvent.Type.ATTEMPTS_CHANGED), slow.types());
+        assertEquals(1, slow.events.get(1).getFirst());
+        assertEquals(0, subscription.getDroppedCount());
+        assertEquals(5, subscription.getCoalescedCount());
+    }
+
+    @Test
+    void testBlockingSubscriberLosesNothing() throws Exception {
+        GameEventPublisher publisher = new GameEventPublisher(8);
+        Recorder slow = new Recorder(0);
+        GameEventPublisher.Subscription subscription = publisher.subscribe(slow, Runnable::run, 2,
+                GameEventPublisher.OverflowPolicy.BLOCK);
+        Thread consumer = new Thread(() -> {
+            for (int i = 0; i < 100; ++i) {
+                while (slow.subscription == null) {
+                    Thread.onSpinWait();
+                }
+                slow.subscription.request(1);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < 100; ++i) {
+            publisher.onAttemptChanged(i);
+        }
+        publisher.close();
+        consumer.join();
+
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(100, slow.events.size());
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i, slow.events.get(i).getFirst());
+        }
+        assertEquals(0, subscription.getDroppedCount());
+    }
+
+    @Test
+    void testCloseShutsDownOwnExecutor() throws Exception {
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(2, 2, Arrays.asList("A", "B"), 10);
+        GameEventPublisher publisher = new GameEventPublisher();
+        engine.setListener(publisher);
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(recorder);
+        engine.flipCard(0);
+        publisher.close();
+
+        assertTrue(recorder.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(publisher.awaitTermination(5, TimeUnit.SECONDS), "El Executor propio sigue vivo");
+        assertEquals(Arrays.asList(GameEventPublisher.GameEvent.Type.CARD_REVEALED), recorder.types());
+
+        // Suscribirse a un publicador cerrado completa enseguida
+        Recorder late = new Recorder(Long.MAX_VALUE);
+        publisher.subscribe(late);
+        assertEquals(0, late.completed.getCount());
+    }
+}
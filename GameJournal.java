@@ -0,0 +1,425 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Registro binario de partidas, de solo agregado, y su reproducción.
+ *
+ * El archivo es una secuencia de fichas codificadas como varint (7 bits por
+ * byte). Cada ficha es:
+ * <ul>
+ * <li>0: configuración del motor. Siguen filas, columnas, límite de intentos,
+ * cantidad de símbolos, cada nombre (varint de largo + UTF-8) y el mazo en
+ * su orden original (un varint por carta).</li>
+ * <li>1: partida nueva. Siguen los 8 bytes de la semilla de partida.</li>
+ * <li>2 + 2 * índice: flipCard(índice).</li>
+ * <li>3 + 2 * índice: la carta índice se ocultó con hideCards.</li>
+ * </ul>
+ * Un volteo cuesta entre uno y tres bytes según el tamaño del tablero.
+ *
+ * Reproducir un registro crea el motor a partir de la configuración y vuelve
+ * a ejecutar cada partida con resetForGame, flipCard y hideCards, sin
+ * listener.
+ */
+public final class GameJournal {
+
+    private static final int TOKEN_CONFIG = 0;
+    private static final int TOKEN_GAME = 1;
+    private static final int TOKEN_MOVES = 2;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private GameJournal() {
+    }
+
+    /**
+     * Abre un registro para agregar partidas al final
+     */
+    public static Writer open(Path file) throws IOException {
+        return new Writer(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    /**
+     * =============================================================
+     * Escritura
+     * ------------------------------------------------------------- Acumula
+     * las fichas en un buffer directo y lo vuelca al canal cuando se llena o
+     * al cerrar. Los errores de escritura llegan como UncheckedIOException
+     * porque ocurren dentro de flipCard.
+     * =============================================================
+     */
+    public static final class Writer implements MemoAnimaliaEngine.MoveRecorder, Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long bytesWritten;
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Empieza a registrar un motor: escribe su configuración y lo conecta.
+         * Si la partida actual ya tuvo jugadas o salió del pool se inicia una
+         * nueva, para que el registro empiece siempre con una semilla. Antes de
+         * cerrar el registro hay que desconectarlo con setRecorder(null) si el
+         * motor se sigue usando.
+         */
+        public void record(MemoAnimaliaEngine engine) {
+            int[] deck = engine.deckSymbols();
+            putVarint(TOKEN_CONFIG);
+            putVarint(engine.getRows());
+            putVarint(engine.getCols());
+            putVarint(engine.getAttemptLimit());
+            putVarint(engine.getSymbolCount());
+            for (int s = 0; s < engine.getSymbolCount(); ++s) {
+                byte[] name = engine.getSymbolName(s).getBytes(StandardCharsets.UTF_8);
+                putVarint(name.length);
+                for (byte b : name) {
+                    ensure(1);
+                    buffer.put(b);
+                }
+            }
+            for (int symbol : deck) {
+                putVarint(symbol);
+            }
+
+            engine.setRecorder(this);
+            if (engine.hasGameSeed() && isUntouched(engine)) {
+                gameStarted(engine.getGameSeed());
+            } else {
+                engine.resetForNewGame();
+            }
+        }
+
+        private static boolean isUntouched(MemoAnimaliaEngine engine) {
+            if (engine.getAttempts() != 0) {
+                return false;
+            }
+            for (int i = 0; i < engine.getSize(); ++i) {
+                if (engine.isRevealed(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void gameStarted(long gameSeed) {
+            putVarint(TOKEN_GAME);
+            ensure(Long.BYTES);
+            buffer.putLong(gameSeed);
+        }
+
+        @Override
+        public void cardFlipped(int index) {
+            putVarint(TOKEN_MOVES + 2 * index);
+        }
+
+        @Override
+        public void cardHidden(int index) {
+            putVarint(TOKEN_MOVES + 2 * index + 1);
+        }
+
+        private void putVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                try {
+                    drain();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                bytesWritten += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Vuelca al archivo lo acumulado
+         */
+        public void flush() throws IOException {
+            drain();
+        }
+
+        /**
+         * Bytes ya escritos en el archivo
+         */
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Resumen de una reproducción
+     */
+    public static final class ReplayResult {
+
+        private final long games;
+        private final long flips;
+        private final long wins;
+        private final long bytes;
+
+        private ReplayResult(long games, long flips, long wins, long bytes) {
+            this.games = games;
+            this.flips = flips;
+            this.wins = wins;
+            this.bytes = bytes;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getFlips() {
+            return flips;
+        }
+
+        /**
+         * Partidas que terminaron con todas las parejas encontradas
+         */
+        public long getWins() {
+            return wins;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return "ReplayResult(games=" + games + ",flips=" + flips + ",wins=" + wins + ",bytes=" + bytes + ")";
+        }
+    }
+
+    /**
+     * Recibe el contenido de un registro a medida que se lee
+     */
+    interface Visitor extends MemoAnimaliaEngine.MoveRecorder {
+
+        /**
+         * Llega una configuración; las fichas siguientes son de este motor
+         *
+         * @param engine Motor recién creado con la configuración leída
+         */
+        void configured(MemoAnimaliaEngine engine) throws IOException;
+    }
+
+    /**
+     * Lee un registro completo entregando cada ficha al visitante
+     *
+     * @return Bytes leídos
+     * @throws IOException si el archivo no se puede leer o está dañado
+     */
+    static long read(Path file, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Reader in = new Reader(channel);
+            boolean configured = false;
+            while (in.hasMore()) {
+                int token = in.varint();
+                if (token >= TOKEN_MOVES) {
+                    if (!configured) {
+                        throw new IOException("Jugada antes de la configuración");
+                    }
+                    int index = (token - TOKEN_MOVES) >>> 1;
+                    if ((token & 1) == 0) {
+                        visitor.cardFlipped(index);
+                    } else {
+                        visitor.cardHidden(index);
+                    }
+                } else if (token == TOKEN_GAME) {
+                    if (!configured) {
+                        throw new IOException("Partida antes de la configuración");
+                    }
+                    visitor.gameStarted(in.int64());
+                } else {
+                    visitor.configured(readConfig(in));
+                    configured = true;
+                }
+            }
+            return in.position();
+        }
+    }
+
+    /**
+     * Reproduce un registro completo a máxima velocidad, sin listener
+     *
+     * @param file Registro a reproducir
+     * @return Totales de la reproducción
+     * @throws IOException si el archivo no se puede leer o está dañado
+     */
+    public static ReplayResult replay(Path file) throws IOException {
+        Replayer replayer = new Replayer();
+        long bytes = read(file, replayer);
+        replayer.finishGame();
+        return new ReplayResult(replayer.games, replayer.flips, replayer.wins, bytes);
+    }
+
+    /**
+     * Visitante que vuelve a jugar cada ficha sobre el motor
+     */
+    private static final class Replayer implements Visitor {
+
+        private MemoAnimaliaEngine engine;
+        private boolean inGame;
+        private long games;
+        private long flips;
+        private long wins;
+
+        @Override
+        public void configured(MemoAnimaliaEngine newEngine) {
+            finishGame();
+            engine = newEngine;
+        }
+
+        @Override
+        public void gameStarted(long gameSeed) {
+            finishGame();
+            engine.resetForGame(gameSeed);
+            games++;
+            inGame = true;
+        }
+
+        @Override
+        public void cardFlipped(int index) {
+            engine.flipCard(index);
+            flips++;
+        }
+
+        @Override
+        public void cardHidden(int index) {
+            engine.hideCards(index, -1);
+        }
+
+        void finishGame() {
+            if (inGame && engine.isGameWon()) {
+                wins++;
+            }
+            inGame = false;
+        }
+    }
+
+    private static MemoAnimaliaEngine readConfig(Reader in) throws IOException {
+        int rows = in.varint();
+        int cols = in.varint();
+        int attemptLimit = in.varint();
+        String[] names = new String[in.varint()];
+        for (int s = 0; s < names.length; ++s) {
+            names[s] = in.string();
+        }
+        int[] deck = new int[rows * cols];
+        for (int i = 0; i < deck.length; ++i) {
+            deck[i] = in.varint();
+        }
+        return new MemoAnimaliaEngine(rows, cols, names, deck, attemptLimit);
+    }
+
+    /**
+     * Lector con buffer directo sobre el canal
+     */
+    private static final class Reader {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE * 16);
+        private long consumed;
+        private boolean eof;
+
+        Reader(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        /**
+         * Garantiza al menos la cantidad de bytes indicada en el buffer,
+         * salvo al final del archivo
+         */
+        private void fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes || eof) {
+                return;
+            }
+            consumed += buffer.position();
+            buffer.compact();
+            while (buffer.position() < bytes && !eof) {
+                if (channel.read(buffer) < 0) {
+                    eof = true;
+                }
+            }
+            buffer.flip();
+        }
+
+        boolean hasMore() throws IOException {
+            fill(1);
+            return buffer.hasRemaining();
+        }
+
+        int varint() throws IOException {
+            if (buffer.remaining() < 5) {
+                fill(5);
+            }
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (!buffer.hasRemaining()) {
+                    throw new EOFException("Varint truncado");
+                }
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Varint demasiado largo");
+        }
+
+        long int64() throws IOException {
+            fill(Long.BYTES);
+            if (buffer.remaining() < Long.BYTES) {
+                throw new EOFException("Semilla truncada");
+            }
+            return buffer.getLong();
+        }
+
+        String string() throws IOException {
+            byte[] bytes = new byte[varint()];
+            for (int i = 0; i < bytes.length; ++i) {
+                fill(1);
+                if (!buffer.hasRemaining()) {
+                    throw new EOFException("Nombre truncado");
+                }
+                bytes[i] = buffer.get();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        long position() {
+            return consumed + buffer.position();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GameJournalTest {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro");
+
+    @Test
+    void testSeededEnginesPlaySameLayouts() {
+        MemoAnimaliaEngine a = new MemoAnimaliaEngine(4, 5, IDS, 30, 42L);
+        MemoAnimaliaEngine b = new MemoAnimaliaEngine(4, 5, IDS, 30, 42L);
+        for (int game = 0; game < 5; game++) {
+            assertEquals(a.getGameSeed(), b.getGameSeed());
+            for (int i = 0; i < a.getSize(); i++) {
+                assertEquals(a.getSymbolId(i), b.getSymbolId(i));
+            }
+            a.resetForNewGame();
+            b.resetForNewGame();
+        }
+
+        // La misma semilla de partida da la misma disposición en otro motor
+        MemoAnimaliaEngine c = new MemoAnimaliaEngine(4, 5, IDS, 30);
+        c.resetForGame(a.getGameSeed());
+        for (int i = 0; i < a.getSize(); i++) {
+            assertEquals(a.getSymbolId(i), c.getSymbolId(i));
+        }
+    }
+
+    @Test
+    void testReplayReproducesRecordedGames(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("partidas.bin");
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(4, 4, IDS, 1000, 7L);
+        SplittableRandom random = new SplittableRandom(7L);
+        int games = 200;
+        long flips = 0;
+        long wins = 0;
+
+        try (GameJournal.Writer journal = GameJournal.open(file)) {
+            journal.record(engine);
+            for (int g = 0; g < games; g++) {
+                if (g > 0) {
+                    engine.resetForNewGame();
+                }
+                // Media partida al azar; una de cada dos se completa
+                int turns = g % 2 == 0 ? Integer.MAX_VALUE : 3;
+                for (int t = 0; t < turns && !engine.isGameWon(); t++) {
+                    int first = pickHidden(engine, random, -1);
+                    int second = pickHidden(engine, random, first);
+                    engine.flipCard(first);
+                    MemoAnimaliaEngine.FlipResult result = engine.flipCard(second);
+                    flips += 2;
+                    if (result == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                        engine.hideCards(first, second);
+                    }
+                }
+                if (engine.isGameWon()) {
+                    wins++;
+                }
+            }
+        }
+
+        GameJournal.ReplayResult result = GameJournal.replay(file);
+        assertEquals(games, result.getGames());
+        assertEquals(flips, result.getFlips());
+        assertEquals(wins, result.getWins());
+        assertEquals(Files.size(file), result.getBytes());
+        assertTrue(Files.size(file) < 120 + games * 9L + flips * 2, "Un volteo debe ocupar pocos bytes");
+    }
+
+    @Test
+    void testSeekMatchesLinearReplay(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("sesion.bin");
+        MemoAnimaliaEngine recorded = new MemoAnimaliaEngine(4, 4, IDS, 1000, 11L);
+        SplittableRandom random = new SplittableRandom(11L);
+        // Estado del motor original en algunas posiciones: inicio de partida
+        // y volteo suman una jugada, ocultar un par suma dos
+        Map<Integer, MemoAnimaliaEngine.GameState> expected = new TreeMap<>();
+        int position = 0;
+        try (GameJournal.Writer journal = GameJournal.open(file)) {
+            journal.record(recorded);
+            position = captureAt(expected, recorded, position + 1);
+            for (int g = 0; g < 20; g++) {
+                if (g > 0) {
+                    recorded.resetForNewGame();
+                    position = captureAt(expected, recorded, position + 1);
+                }
+                while (!recorded.isGameWon()) {
+                    int first = pickHidden(recorded, random, -1);
+                    int second = pickHidden(recorded, random, first);
+                    recorded.flipCard(first);
+                    position = captureAt(expected, recorded, position + 1);
+                    MemoAnimaliaEngine.FlipResult result = recorded.flipCard(second);
+                    position = captureAt(expected, recorded, position + 1);
+                    if (result == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                        recorded.hideCards(first, second);
+                        position = captureAt(expected, recorded, position + 2);
+                    }
+                }
+            }
+            recorded.setRecorder(null);
+        }
+
+        GameReplay linear = GameReplay.load(file, Integer.MAX_VALUE);
+        GameReplay replay = GameReplay.load(file, 32);
+        assertEquals(20, replay.getGameCount());
+        assertTrue(replay.getCheckpointCount() > 1);
+        assertEquals(position, replay.getMoveCount());
+        assertTrue(expected.size() > 10);
+
+        // Avanzando de a una jugada, sin puntos de control intermedios
+        for (Map.Entry<Integer, MemoAnimaliaEngine.GameState> e : expected.entrySet()) {
+            linear.seek(e.getKey());
+            assertEquals(e.getValue(), linear.getEngine().captureState(), "Posición " + e.getKey());
+        }
+
+        List<Integer> positions = new ArrayList<>(expected.keySet());
+        SplittableRandom seeks = new SplittableRandom(3L);
+        for (int i = 0; i < 500; i++) {
+            int target = positions.get(seeks.nextInt(positions.size()));
+            replay.seek(target);
+            assertEquals(expected.get(target), replay.getEngine().captureState(), "Posición " + target);
+        }
+
+        replay.seekTurn(replay.getTurnCount() - 1);
+        assertFalse(replay.getEngine().isGameWon(), "Antes del último turno la partida no está ganada");
+    }
+
+    // Guarda el estado si la posición cae al principio de un tramo de 29
+    // jugadas; como se avanza de a una o dos, ningún tramo se saltea
+    private static int captureAt(Map<Integer, MemoAnimaliaEngine.GameState> states, MemoAnimaliaEngine engine,
+            int position) {
+        if (position % 29 < 2) {
+            states.put(position, engine.captureState());
+        }
+        return position;
+    }
+
+    private static int pickHidden(MemoAnimaliaEngine engine, SplittableRandom random, int exclude) {
+        while (true) {
+            int i = random.nextInt(engine.getSize());
+            if (i != exclude && !engine.isRevealed(i) && !engine.isMatched(i)) {
+                return i;
+            }
+        }
+    }
+}
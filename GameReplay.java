@@ -0,0 +1,228 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reproducción navegable de un GameJournal.
+ *
+ * Al cargar el registro se guardan todas las jugadas en memoria y, cada
+ * checkpointInterval jugadas, un GameState con el estado completo del motor.
+ * seek() restaura el punto de control más cercano anterior a la posición
+ * pedida y aplica solo las jugadas que faltan, así que su costo está acotado
+ * por el intervalo y no por el largo de la sesión.
+ *
+ * Las posiciones cuentan jugadas del registro: inicios de partida, volteos y
+ * cartas ocultadas. La posición 0 es el estado antes de la primera jugada.
+ */
+public class GameReplay {
+
+    private final MemoAnimaliaEngine engine;
+    private final int checkpointInterval;
+
+    /**
+     * Jugadas: 2 * índice para un volteo, 2 * índice + 1 para una carta
+     * ocultada y -(n + 1) para el inicio de la partida con la semilla n
+     */
+    private final int[] moves;
+    private final long[] gameSeeds;
+    /**
+     * Posición en que empieza cada turno (su primer volteo)
+     */
+    private final int[] turnStarts;
+    /**
+     * checkpoints[k] es el estado en la posición k * checkpointInterval
+     */
+    private final MemoAnimaliaEngine.GameState[] checkpoints;
+
+    private int position;
+
+    private GameReplay(MemoAnimaliaEngine engine, int checkpointInterval, int[] moves, long[] gameSeeds, int[] turnStarts) {
+        this.engine = engine;
+        this.checkpointInterval = checkpointInterval;
+        this.moves = moves;
+        this.gameSeeds = gameSeeds;
+        this.turnStarts = turnStarts;
+
+        // Una sola pasada hacia adelante para tomar los puntos de control
+        this.checkpoints = new MemoAnimaliaEngine.GameState[moves.length / checkpointInterval + 1];
+        for (int k = 0; k < checkpoints.length; ++k) {
+            apply(k * checkpointInterval);
+            checkpoints[k] = engine.captureState();
+        }
+        seek(0);
+    }
+
+    /**
+     * Carga un registro para navegarlo
+     *
+     * @param file Registro escrito con GameJournal
+     * @param checkpointInterval Jugadas entre puntos de control
+     * @throws IOException si el archivo no se puede leer, está dañado o tiene
+     * configuraciones de motor distintas
+     */
+    public static GameReplay load(Path file, int checkpointInterval) throws IOException {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval debe ser positivo: " + checkpointInterval);
+        }
+        Loader loader = new Loader();
+        GameJournal.read(file, loader);
+        if (loader.engine == null) {
+            throw new IOException("El registro no tiene configuración");
+        }
+        return new GameReplay(loader.engine, checkpointInterval,
+                Arrays.copyOf(loader.moves, loader.moveCount),
+                Arrays.copyOf(loader.seeds, loader.seedCount),
+                Arrays.copyOf(loader.turns, loader.turnCount));
+    }
+
+    /**
+     * Visitante que acumula las jugadas del registro
+     */
+    private static final class Loader implements GameJournal.Visitor {
+
+        MemoAnimaliaEngine engine;
+        int[] moves = new int[1024];
+        int moveCount;
+        long[] seeds = new long[64];
+        int seedCount;
+        int[] turns = new int[256];
+        int turnCount;
+        /**
+         * Volteos desde el inicio de la partida, para detectar inicios de turno
+         */
+        private int flipsInGame;
+
+        @Override
+        public void configured(MemoAnimaliaEngine newEngine) throws IOException {
+            if (engine == null) {
+                engine = newEngine;
+            } else if (!sameConfiguration(engine, newEngine)) {
+                throw new IOException("El registro mezcla configuraciones de motor distintas");
+            }
+        }
+
+        @Override
+        public void gameStarted(long gameSeed) {
+            if (seedCount == seeds.length) {
+                seeds = Arrays.copyOf(seeds, seedCount * 2);
+            }
+            seeds[seedCount] = gameSeed;
+            add(-(seedCount + 1));
+            seedCount++;
+            flipsInGame = 0;
+        }
+
+        @Override
+        public void cardFlipped(int index) {
+            if (flipsInGame++ % 2 == 0) {
+                if (turnCount == turns.length) {
+                    turns = Arrays.copyOf(turns, turnCount * 2);
+                }
+                turns[turnCount++] = moveCount;
+            }
+            add(2 * index);
+        }
+
+        @Override
+        public void cardHidden(int index) {
+            add(2 * index + 1);
+        }
+
+        private void add(int move) {
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, moveCount * 2);
+            }
+            moves[moveCount++] = move;
+        }
+    }
+
+    private static boolean sameConfiguration(MemoAnimaliaEngine a, MemoAnimaliaEngine b) {
+        if (a.getRows() != b.getRows() || a.getCols() != b.getCols() || a.getAttemptLimit() != b.getAttemptLimit()
+                || a.getSymbolCount() != b.getSymbolCount() || !Arrays.equals(a.deckSymbols(), b.deckSymbols())) {
+            return false;
+        }
+        for (int s = 0; s < a.getSymbolCount(); ++s) {
+            if (!a.getSymbolName(s).equals(b.getSymbolName(s))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Aplica jugadas desde la posición actual hasta target (hacia adelante)
+     */
+    private void apply(int target) {
+        for (; position < target; ++position) {
+            int move = moves[position];
+            if (move < 0) {
+                engine.resetForGame(gameSeeds[-move - 1]);
+            } else if ((move & 1) == 0) {
+                engine.flipCard(move >>> 1);
+            } else {
+                engine.hideCards(move >>> 1, -1);
+            }
+        }
+    }
+
+    /**
+     * Lleva el motor al estado en la posición indicada. Si el destino está
+     * más adelante que la posición actual y antes del siguiente punto de
+     * control, solo se avanza; si no, se restaura el punto de control
+     * anterior al destino.
+     *
+     * @param target Posición entre 0 y getMoveCount()
+     */
+    public void seek(int target) {
+        if (target < 0 || target > moves.length) {
+            throw new IndexOutOfBoundsException("Posición " + target + " fuera de [0, " + moves.length + "]");
+        }
+        int checkpoint = target / checkpointInterval;
+        if (target < position || position < checkpoint * checkpointInterval) {
+            engine.restoreState(checkpoints[checkpoint]);
+            position = checkpoint * checkpointInterval;
+        }
+        apply(target);
+    }
+
+    /**
+     * Lleva el motor al comienzo de un turno, justo antes de su primer volteo
+     *
+     * @param turn Turno, contado desde 0 a lo largo de todo el registro
+     */
+    public void seekTurn(int turn) {
+        seek(turnStarts[turn]);
+    }
+
+    /**
+     * Motor con el estado de la posición actual. Puede consultarse pero no
+     * debe modificarse.
+     */
+    public MemoAnimaliaEngine getEngine() {
+        return engine;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    public int getTurnCount() {
+        return turnStarts.length;
+    }
+
+    public int getGameCount() {
+        return gameSeeds.length;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public int getCheckpointCount() {
+        return checkpoints.length;
+    }
+}
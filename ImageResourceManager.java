@@ -3,96 +3,291 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 
 /**
  * Gestor de recursos de imágenes para el juego MemoAnimalia Se encarga de
  * cargar y gestionar todas las imágenes del juego
+ *
+ * Las imágenes se decodifican y redimensionan en paralelo en segundo plano.
+ * Mientras tanto cada ImageIcon muestra un placeholder, y cuando la imagen
+ * real está lista se reemplaza dentro del mismo ImageIcon en el EDT, así que
+ * los componentes que ya lo usan solo necesitan repintarse.
+ *
+ * Sin precarga (tableros desplazables) solo se carga el reverso al crear el
+ * gestor; cada cara se carga con requestAnimalImage() cuando el tablero la
+ * necesita y se suelta con releaseAnimalImage(), así que en memoria quedan
+ * solo las caras del área visible y no las de todos los animales.
  */
 public class ImageResourceManager {
 
     private static final String ASSETS_PATH = "assets" + File.separator;
     private static final String BACK_IMAGE_NAME = "card_back.jpeg";
+    private static final Color BACK_PLACEHOLDER_COLOR = new Color(70, 110, 160);
 
     private final Map<String, ImageIcon> animalImageMap;
+    /**
+     * ID original de cada animal, por su clave en minúsculas
+     */
+    private final Map<String, String> animalIds;
+    private final boolean preloadFaces;
     private final ImageIcon backImage;
     private final int cardSize;
 
     /**
-     * Constructor del gestor de recursos
+     * Ejecutor de carga; se apaga solo cuando terminan todas las imágenes
+     */
+    private final ExecutorService loader;
+    /**
+     * Caché en disco de imágenes escaladas; null si está desactivada
+     */
+    private final ScaledImageCache cache;
+    private final CompletableFuture<Void> allLoaded;
+    private volatile Runnable onImageLoaded;
+
+    /**
+     * Constructor del gestor de recursos. No espera a que las imágenes se
+     * carguen: vuelve de inmediato con placeholders.
      *
      * @param animalIds Lista de IDs de animales a cargar
      * @param cardSize Tamaño al que redimensionar las imágenes
      */
     public ImageResourceManager(List<String> animalIds, int cardSize) {
+        this(animalIds, cardSize, ScaledImageCache.openDefault());
+    }
+
+    /**
+     * Constructor del gestor de recursos con una caché de imágenes explícita
+     *
+     * @param animalIds Lista de IDs de animales a cargar
+     * @param cardSize Tamaño al que redimensionar las imágenes
+     * @param cache Caché de imágenes escaladas, o null para no usarla
+     */
+    public ImageResourceManager(List<String> animalIds, int cardSize, ScaledImageCache cache) {
+        this(animalIds, cardSize, cache, true);
+    }
+
+    /**
+     * Constructor del gestor de recursos
+     *
+     * @param animalIds Lista de IDs de animales
+     * @param cardSize Tamaño al que redimensionar las imágenes
+     * @param cache Caché de imágenes escaladas, o null para no usarla
+     * @param preloadFaces Si se cargan todas las caras ya, o solo las que se
+     * pidan con requestAnimalImage()
+     */
+    public ImageResourceManager(List<String> animalIds, int cardSize, ScaledImageCache cache, boolean preloadFaces) {
         this.cardSize = cardSize;
+        this.cache = cache;
+        this.preloadFaces = preloadFaces;
         this.animalImageMap = new HashMap<>();
+        this.animalIds = new HashMap<>();
+        for (String animalId : animalIds) {
+            this.animalIds.putIfAbsent(animalId.toLowerCase(), animalId);
+        }
+
+        int threads = Math.max(1, Math.min(animalIds.size() + 1, Runtime.getRuntime().availableProcessors()));
+        this.loader = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "memoanimalia-image-loader");
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
 
         // Cargar imagen de reverso
-        this.backImage = loadBackImage();
+        this.backImage = new ImageIcon(createBackPlaceholder());
+        loads.add(loadBackImage());
 
         // Cargar imágenes de animales
-        loadAnimalImages(animalIds);
+        if (preloadFaces) {
+            for (String animalId : this.animalIds.values()) {
+                loads.add(loadAnimalImage(animalId));
+            }
+        }
+
+        this.allLoaded = CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+        // Termina en el EDT; la escritura de la caché vuelve al hilo de carga.
+        // Sin precarga el ejecutor sigue vivo para las caras que se pidan.
+        allLoaded.whenCompleteAsync((v, e) -> {
+            saveCache();
+            if (preloadFaces) {
+                loader.shutdown();
+            }
+        }, loader);
     }
 
     /**
      * Carga la imagen de reverso de las cartas
      *
-     * @return ImageIcon con la imagen de reverso redimensionada
+     * @return Futuro que termina cuando la imagen real está en backImage
      */
-    private ImageIcon loadBackImage() {
-        try {
-            String backImagePath = ASSETS_PATH + BACK_IMAGE_NAME;
-            BufferedImage backImg = ImageIO.read(new File(backImagePath));
-            return createScaledIcon(backImg);
-        } catch (IOException e) {
-            throw new RuntimeException("No se pudo cargar la imagen de reverso: " + e.getMessage(), e);
-        }
+    private CompletableFuture<Void> loadBackImage() {
+        String backImagePath = ASSETS_PATH + BACK_IMAGE_NAME;
+        return CompletableFuture.supplyAsync(() -> readScaled(new File(backImagePath)), loader)
+                .thenCompose(img -> installImage(backImage, img))
+                .exceptionally(e -> {
+                    System.err.println("No se pudo cargar la imagen de reverso: " + causeMessage(e));
+                    return null;
+                });
     }
 
     /**
-     * Carga las imágenes de todos los animales
+     * Crea el ImageIcon de un animal con su placeholder y empieza a cargar la
+     * imagen real
      *
-     * @param animalIds Lista de IDs de animales
+     * @param animalId ID del animal
+     * @return Futuro que termina cuando la imagen real está en el icono
      */
-    private void loadAnimalImages(List<String> animalIds) {
-        for (String animalId : animalIds) {
-            try {
-                String imagePath = ASSETS_PATH + animalId + ".png";
-                File imageFile = new File(imagePath);
-
-                if (imageFile.exists()) {
-                    BufferedImage img = ImageIO.read(imageFile);
-                    animalImageMap.put(animalId.toLowerCase(), createScaledIcon(img));
-                } else {
-                    System.err.println("No se encontró la imagen: " + imagePath);
-                    // Crear imagen placeholder
-                    animalImageMap.put(animalId.toLowerCase(), createPlaceholderIcon(animalId));
+    private CompletableFuture<Void> loadAnimalImage(String animalId) {
+        // Placeholder hasta que la imagen real esté lista
+        ImageIcon icon = createPlaceholderIcon(animalId);
+        animalImageMap.put(animalId.toLowerCase(), icon);
+
+        String imagePath = ASSETS_PATH + animalId + ".png";
+        File imageFile = new File(imagePath);
+        if (!imageFile.exists()) {
+            System.err.println("No se encontró la imagen: " + imagePath);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return CompletableFuture.supplyAsync(() -> readScaled(imageFile), loader)
+                .thenCompose(img -> installImage(icon, img))
+                .exceptionally(e -> {
+                    System.err.println("Error cargando imagen para " + animalId + ": " + causeMessage(e));
+                    return null;
+                });
+    }
+
+    /**
+     * Decodifica y redimensiona una imagen, o la toma ya escalada de la caché
+     * en disco. Se ejecuta en el hilo de carga.
+     */
+    private BufferedImage readScaled(File file) {
+        MemoAnimaliaEvents.ImageLoadEvent event = new MemoAnimaliaEvents.ImageLoadEvent();
+        event.begin();
+        boolean fromCache = false;
+        try {
+            if (cache != null) {
+                BufferedImage cached = cache.lookup(file, cardSize);
+                MemoAnimaliaMetrics.global().recordImageCache(cached != null);
+                if (cached != null) {
+                    fromCache = true;
+                    return cached;
                 }
-            } catch (IOException e) {
-                System.err.println("Error cargando imagen para " + animalId + ": " + e.getMessage());
-                animalImageMap.put(animalId.toLowerCase(), createPlaceholderIcon(animalId));
             }
+            BufferedImage img = ImageIO.read(file);
+            if (img == null) {
+                throw new IOException("formato no reconocido: " + file);
+            }
+            BufferedImage scaled = scaleImage(img);
+            if (cache != null) {
+                cache.store(file, cardSize, scaled);
+            }
+            return scaled;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = file.getName();
+                event.cardSize = cardSize;
+                event.fromCache = fromCache;
+                event.fileSize = file.length();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Escribe en disco las imágenes nuevas de la caché
+     */
+    private void saveCache() {
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.flush();
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar la caché de imágenes: " + e.getMessage());
         }
     }
 
+    private static String causeMessage(Throwable e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage();
+    }
+
+    /**
+     * Reemplaza la imagen de un ImageIcon en el EDT y avisa del cambio
+     */
+    private CompletableFuture<Void> installImage(ImageIcon icon, BufferedImage img) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        SwingUtilities.invokeLater(() -> {
+            icon.setImage(img);
+            Runnable callback = onImageLoaded;
+            if (callback != null) {
+                callback.run();
+            }
+            done.complete(null);
+        });
+        return done;
+    }
+
     /**
-     * Crea un ImageIcon redimensionado a cardSize
+     * Redimensiona una imagen a cardSize x cardSize de inmediato. A
+     * diferencia de getScaledInstance, el trabajo se hace aquí y no al
+     * pintar; las reducciones grandes se hacen por mitades para conservar la
+     * calidad.
      *
      * @param image Imagen original
-     * @return ImageIcon redimensionado
-     */
-    private ImageIcon createScaledIcon(BufferedImage image) {
-        if (image.getWidth() != cardSize || image.getHeight() != cardSize) {
-            Image scaledImg = image.getScaledInstance(cardSize, cardSize, Image.SCALE_SMOOTH);
-            return new ImageIcon(scaledImg);
-        } else {
-            return new ImageIcon(image);
+     * @return Imagen redimensionada
+     */
+    private BufferedImage scaleImage(BufferedImage image) {
+        if (image.getWidth() == cardSize && image.getHeight() == cardSize) {
+            return image;
         }
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = Math.max(cardSize, w / 2);
+            h = Math.max(cardSize, h / 2);
+            if (w < 2 * cardSize && h < 2 * cardSize) {
+                w = cardSize;
+                h = cardSize;
+            }
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = next.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.drawImage(current, 0, 0, w, h, null);
+            g2d.dispose();
+            current = next;
+        } while (w != cardSize || h != cardSize);
+        return current;
+    }
+
+    /**
+     * Crea el placeholder del reverso mientras carga la imagen real
+     */
+    private BufferedImage createBackPlaceholder() {
+        BufferedImage placeholder = new BufferedImage(cardSize, cardSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = placeholder.createGraphics();
+        g2d.setColor(BACK_PLACEHOLDER_COLOR);
+        g2d.fillRect(0, 0, cardSize, cardSize);
+        g2d.dispose();
+        return placeholder;
     }
 
     /**
@@ -118,12 +313,58 @@ public class ImageResourceManager {
      * Obtiene la imagen de un animal por su ID
      *
      * @param animalId ID del animal (case-insensitive)
-     * @return ImageIcon del animal, o null si no existe
+     * @return ImageIcon del animal, o null si no existe o, sin precarga,
+     * todavía no se pidió con requestAnimalImage()
      */
     public ImageIcon getAnimalImage(String animalId) {
         return animalImageMap.get(animalId.toLowerCase());
     }
 
+    /**
+     * Obtiene la imagen de un animal y, si todavía no estaba cargada, empieza
+     * a cargarla. Mientras carga el icono muestra un placeholder. Debe
+     * llamarse en el EDT.
+     *
+     * @param animalId ID del animal (case-insensitive)
+     * @return ImageIcon del animal, o null si no es uno de los del gestor
+     */
+    public ImageIcon requestAnimalImage(String animalId) {
+        String key = animalId.toLowerCase();
+        ImageIcon icon = animalImageMap.get(key);
+        if (icon == null && animalIds.containsKey(key)) {
+            // La caché se guarda al terminar cada carga: sin precarga no hay
+            // un momento en que estén todas
+            loadAnimalImage(animalIds.get(key)).thenRunAsync(this::saveCache, loader);
+            icon = animalImageMap.get(key);
+        }
+        return icon;
+    }
+
+    /**
+     * Suelta la imagen de un animal que el tablero ya no muestra. Con
+     * precarga no hace nada: las caras quedan cargadas mientras viva el
+     * gestor. Debe llamarse en el EDT.
+     */
+    public void releaseAnimalImage(String animalId) {
+        if (!preloadFaces) {
+            animalImageMap.remove(animalId.toLowerCase());
+        }
+    }
+
+    /**
+     * Cantidad de caras de animales en memoria, reales o placeholders
+     */
+    public int getAnimalImageCount() {
+        return animalImageMap.size();
+    }
+
+    /**
+     * Si todas las caras se cargan al crear el gestor
+     */
+    public boolean isPreloadingFaces() {
+        return preloadFaces;
+    }
+
     /**
      * Obtiene la imagen de reverso de las cartas
      *
@@ -132,4 +373,42 @@ public class ImageResourceManager {
     public ImageIcon getBackImage() {
         return backImage;
     }
+
+    /**
+     * Registra una acción que se ejecuta en el EDT cada vez que una imagen
+     * real reemplaza a su placeholder (por ejemplo, repintar el tablero)
+     */
+    public void setOnImageLoaded(Runnable callback) {
+        this.onImageLoaded = callback;
+    }
+
+    /**
+     * Empaqueta el reverso y las caras actuales en un atlas con el formato de
+     * la pantalla. Conviene llamarlo cuando whenAllLoaded() haya terminado;
+     * antes, el atlas contendría placeholders. Sin precarga solo incluye las
+     * caras pedidas hasta el momento.
+     *
+     * @return Atlas con el reverso en CardAtlas.BACK_SLOT
+     */
+    public CardAtlas createAtlas() {
+        Map<String, Image> faces = new LinkedHashMap<>();
+        for (Map.Entry<String, ImageIcon> e : animalImageMap.entrySet()) {
+            faces.put(e.getKey(), e.getValue().getImage());
+        }
+        return new CardAtlas(backImage.getImage(), faces, cardSize, CardAtlas.defaultConfiguration());
+    }
+
+    /**
+     * Caché de imágenes escaladas en uso, o null si está desactivada
+     */
+    public ScaledImageCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Futuro que termina cuando todas las imágenes quedaron instaladas
+     */
+    public CompletableFuture<Void> whenAllLoaded() {
+        return allLoaded;
+    }
 }
@@ -0,0 +1,51 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.awt.Image;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+
+class ImageResourceManagerTest {
+
+    @Test
+    void testPlaceholdersAreReplacedOnTheEdt() throws Exception {
+        List<String> ids = Arrays.asList("gato", "mono", "noexiste");
+        AtomicInteger installed = new AtomicInteger();
+        AtomicBoolean offEdt = new AtomicBoolean();
+        ImageResourceManager[] manager = new ImageResourceManager[1];
+        Image[] placeholders = new Image[3];
+
+        // Con el EDT ocupado ninguna imagen real puede instalarse todavía
+        SwingUtilities.invokeAndWait(() -> {
+            manager[0] = new ImageResourceManager(ids, 20, null);
+            manager[0].setOnImageLoaded(() -> {
+                if (!SwingUtilities.isEventDispatchThread()) {
+                    offEdt.set(true);
+                }
+                installed.incrementAndGet();
+            });
+            placeholders[0] = manager[0].getAnimalImage("gato").getImage();
+            placeholders[1] = manager[0].getBackImage().getImage();
+            placeholders[2] = manager[0].getAnimalImage("noexiste").getImage();
+            assertFalse(manager[0].whenAllLoaded().isDone());
+        });
+        assertEquals(20, placeholders[0].getWidth(null), "El placeholder ya tiene el tamaño de la carta");
+
+        manager[0].whenAllLoaded().get(10, TimeUnit.SECONDS);
+
+        ImageIcon gato = manager[0].getAnimalImage("GATO");
+        assertNotSame(placeholders[0], gato.getImage(), "La imagen real reemplaza al placeholder");
+        assertEquals(20, gato.getIconWidth());
+        assertEquals(20, gato.getIconHeight());
+        assertNotSame(placeholders[1], manager[0].getBackImage().getImage());
+        // Sin archivo queda el placeholder
+        assertSame(placeholders[2], manager[0].getAnimalImage("noexiste").getImage());
+        // Reverso, gato y mono
+        assertEquals(3, installed.get());
+        assertFalse(offEdt.get(), "Las imágenes se instalan en el EDT");
+    }
+}
@@ -0,0 +1,348 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Cálculo exacto de la distribución de intentos necesarios para ganar, sin
+ * simular partidas. Complementa a MemoAnimaliaSimulator: para los jugadores
+ * RandomPlayer y PerfectMemoryPlayer da las mismas distribuciones, pero
+ * exactas y en milisegundos aun con cientos de parejas.
+ *
+ * Supone, como initBoard cuando hay nombres suficientes, que cada pareja
+ * tiene un símbolo propio y que la carta sobrante de los tableros impares no
+ * forma pareja con ninguna.
+ */
+public class MemoAnimaliaAttemptsCalculator {
+
+    /**
+     * Modelo de jugador
+     */
+    public enum PlayerModel {
+        /**
+         * Sin memoria: cada turno voltea dos cartas no emparejadas al azar,
+         * como MemoAnimaliaSimulator.RandomPlayer
+         */
+        RANDOM,
+        /**
+         * Memoria perfecta, como MemoAnimaliaSimulator.PerfectMemoryPlayer
+         */
+        PERFECT_MEMORY
+    }
+
+    /**
+     * Por debajo de este ancho de distribución no conviene repartir una capa
+     * entre hilos
+     */
+    private static final int PARALLEL_WIDTH = 256;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Distribución exacta de los intentos para ganar una partida
+     */
+    public static final class Distribution {
+
+        private final int rows;
+        private final int cols;
+        private final int attemptLimit;
+        private final PlayerModel model;
+        /**
+         * probabilities[t]: probabilidad de ganar usando exactamente t intentos
+         */
+        private final double[] probabilities;
+        private final double expectedAttempts;
+
+        private Distribution(int rows, int cols, int attemptLimit, PlayerModel model, double[] probabilities, double expectedAttempts) {
+            this.rows = rows;
+            this.cols = cols;
+            this.attemptLimit = attemptLimit;
+            this.model = model;
+            this.probabilities = probabilities;
+            this.expectedAttempts = expectedAttempts;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getCols() {
+            return cols;
+        }
+
+        public int getAttemptLimit() {
+            return attemptLimit;
+        }
+
+        public PlayerModel getModel() {
+            return model;
+        }
+
+        /**
+         * Probabilidad de ganar usando exactamente la cantidad de intentos
+         * indicada (0 más allá del límite)
+         */
+        public double getProbability(int attempts) {
+            return attempts >= 0 && attempts < probabilities.length ? probabilities[attempts] : 0.0;
+        }
+
+        /**
+         * Probabilidad de ganar usando como máximo la cantidad de intentos
+         * indicada
+         */
+        public double getProbabilityWithin(int attempts) {
+            double total = 0;
+            for (int t = 0; t <= Math.min(attempts, probabilities.length - 1); ++t) {
+                total += probabilities[t];
+            }
+            return total;
+        }
+
+        /**
+         * Probabilidad de ganar antes de agotar el límite de intentos
+         */
+        public double getWinProbability() {
+            return getProbabilityWithin(attemptLimit);
+        }
+
+        /**
+         * Intentos esperados para ganar sin límite de intentos
+         */
+        public double getExpectedAttempts() {
+            return expectedAttempts;
+        }
+
+        /**
+         * Menor cantidad de intentos con la que se gana con al menos la
+         * probabilidad indicada, o -1 si no se alcanza dentro del límite
+         */
+        public int getAttemptsForProbability(double p) {
+            double total = 0;
+            for (int t = 0; t < probabilities.length; ++t) {
+                total += probabilities[t];
+                if (total >= p) {
+                    return t;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%dx%d %s limite=%d victorias=%.4f%% intentos(media=%.4f p50=%d p90=%d p99=%d)",
+                    rows, cols, model, attemptLimit, getWinProbability() * 100.0, expectedAttempts,
+                    getAttemptsForProbability(0.5), getAttemptsForProbability(0.9), getAttemptsForProbability(0.99));
+        }
+    }
+
+    private MemoAnimaliaAttemptsCalculator() {
+    }
+
+    /**
+     * Calcula la distribución exacta de intentos para ganar
+     *
+     * @param rows Filas del tablero
+     * @param cols Columnas del tablero
+     * @param model Modelo de jugador
+     * @param attemptLimit Límite de intentos de la partida
+     */
+    public static Distribution compute(int rows, int cols, PlayerModel model, int attemptLimit) {
+        if (rows < 1 || cols < 1 || rows * cols < 2) {
+            throw new IllegalArgumentException("Tablero sin parejas: " + rows + "x" + cols);
+        }
+        if (attemptLimit < 0) {
+            throw new IllegalArgumentException("attemptLimit no puede ser negativo: " + attemptLimit);
+        }
+        int pairs = rows * cols / 2;
+        int extra = rows * cols % 2;
+        return model == PlayerModel.RANDOM
+                ? random(rows, cols, pairs, extra, attemptLimit)
+                : perfectMemory(rows, cols, pairs, extra, attemptLimit);
+    }
+
+    /**
+     * =============================================================
+     * Jugador al azar
+     * ------------------------------------------------------------- Con m
+     * parejas sin emparejar quedan N = 2m + extra cartas, y el turno acierta
+     * con probabilidad m / C(N, 2). Los intentos son una suma de geométricas;
+     * su distribución hasta el límite se arma pareja por pareja en O(parejas
+     * * límite).
+     * =============================================================
+     */
+    private static Distribution random(int rows, int cols, int pairs, int extra, int attemptLimit) {
+        // f[t]: probabilidad de haber emparejado todo en exactamente t turnos
+        // partiendo de m parejas; se construye desde m = 0 hacia arriba
+        double[] f = new double[attemptLimit + 1];
+        double[] g = new double[attemptLimit + 1];
+        f[0] = 1.0;
+        double expected = 0;
+        for (int m = 1; m <= pairs; ++m) {
+            int cards = 2 * m + extra;
+            double hit = m / ((double) cards * (cards - 1) / 2.0);
+            expected += 1.0 / hit;
+            // g[t] = hit * f[t - 1] + (1 - hit) * g[t - 1]
+            g[0] = 0;
+            for (int t = 1; t <= attemptLimit; ++t) {
+                g[t] = hit * f[t - 1] + (1 - hit) * g[t - 1];
+            }
+            double[] swap = f;
+            f = g;
+            g = swap;
+        }
+        return new Distribution(rows, cols, attemptLimit, PlayerModel.RANDOM, f, expected);
+    }
+
+    /**
+     * =============================================================
+     * Jugador de memoria perfecta
+     * ------------------------------------------------------------- Cada
+     * pareja se empareja en exactamente un turno, así que los intentos son
+     * parejas + W, donde W son los turnos perdidos: la primera carta es nueva
+     * y la segunda no es su pareja. Como el jugador elige las cartas nunca
+     * vistas al azar, W depende solo de
+     * <ul>
+     * <li>a: parejas de las que no se vio ninguna carta,</li>
+     * <li>k: parejas de las que se vio una sola carta,</li>
+     * <li>e: 1 si la carta sobrante sigue sin verse.</li>
+     * </ul>
+     * Las parejas ya conocidas completas no cambian W y se omiten.
+     *
+     * dist(a, k, e)[w] es la probabilidad de perder exactamente w turnos más
+     * desde ese estado. Cada transición reduce a, o mantiene a y reduce k, así
+     * que las capas se calculan con a creciente y dentro de la capa con k
+     * creciente. Solo hacen falta las capas a, a - 1 y a - 2: la tabla
+     * guarda tres capas indexadas por (k, e). Cada turno perdido empieza con
+     * la primera carta nueva de una pareja nunca vista o con la sobrante, así
+     * que desde (a, k, e) se pierden a lo sumo a + e turnos y el resto de la
+     * distribución es cero.
+     *
+     * Dentro de una capa los estados con e = 0 solo dependen de la misma w, y
+     * los estados con e = 1 usan la capa ya completa con e = 0, así que cada
+     * mitad se reparte entre hilos por rangos de w.
+     * =============================================================
+     */
+    private static Distribution perfectMemory(int rows, int cols, int pairs, int extra, int attemptLimit) {
+        int width = pairs + extra + 1;
+        int states = 2 * (pairs + 1);
+        double[][][] layers = new double[3][states][width];
+
+        for (int a = 0; a <= pairs; ++a) {
+            double[][] cur = layers[a % 3];
+            double[][] prev1 = layers[(a + 2) % 3];
+            double[][] prev2 = layers[(a + 1) % 3];
+            int maxK = pairs - a;
+            int aa = a;
+            for (int e = 0; e <= extra; ++e) {
+                int ee = e;
+                // Más allá de a + e la distribución es cero
+                int active = Math.min(a + e + 1, width);
+                int chunks = active >= PARALLEL_WIDTH ? Math.min(active / (PARALLEL_WIDTH / 4), PARALLELISM * 4) : 1;
+                IntStream range = IntStream.range(0, chunks);
+                (chunks > 1 ? range.parallel() : range).forEach(c -> {
+                    int from = active * c / chunks;
+                    int to = active * (c + 1) / chunks;
+                    for (int k = 0; k <= maxK; ++k) {
+                        fillState(cur, prev1, prev2, aa, k, ee, from, to);
+                    }
+                });
+            }
+        }
+
+        double[] w = layers[pairs % 3][extra];
+        double[] probabilities = new double[attemptLimit + 1];
+        double expected = 0;
+        for (int i = 0; i < width; ++i) {
+            expected += (pairs + i) * w[i];
+            if (pairs + i <= attemptLimit) {
+                probabilities[pairs + i] = w[i];
+            }
+        }
+        return new Distribution(rows, cols, attemptLimit, PlayerModel.PERFECT_MEMORY, probabilities, expected);
+    }
+
+    private static int key(int k, int e) {
+        return 2 * k + e;
+    }
+
+    /**
+     * Calcula dist(a, k, e)[from..to) a partir de los estados ya resueltos
+     */
+    private static void fillState(double[][] cur, double[][] prev1, double[][] prev2, int a, int k, int e, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        double[] out = cur[key(k, e)];
+        if (a == 0 && k == 0) {
+            Arrays.fill(out, from, to, 0.0);
+            if (from == 0) {
+                out[0] = 1.0;
+            }
+            return;
+        }
+        int unseen = 2 * a + k + e;
+        for (int w = from; w < to; ++w) {
+            double p = 0;
+            // La primera carta completa una pareja conocida
+            if (k > 0) {
+                p += (double) k / unseen * cur[key(k - 1, e)][w];
+            }
+            if (w > 0) {
+                // La primera carta es la sobrante; la segunda es nueva o
+                // completa una pareja conocida para el turno siguiente
+                if (e == 1) {
+                    int rest = 2 * a + k;
+                    double q = 1.0 / unseen;
+                    if (k > 0) {
+                        p += q * k / rest * cur[key(k - 1, 0)][w - 1];
+                    }
+                    if (a > 0) {
+                        p += q * 2 * a / rest * prev1[key(k + 1, 0)][w - 1];
+                    }
+                }
+            }
+            if (a > 0) {
+                // La primera carta es de una pareja nunca vista
+                double q = 2.0 * a / unseen;
+                int rest = unseen - 1;
+                p += q / rest * prev1[key(k, e)][w];
+                if (w > 0) {
+                    double lost = 0;
+                    if (k > 0) {
+                        lost += (double) k / rest * prev1[key(k, e)][w - 1];
+                    }
+                    if (a > 1) {
+                        lost += 2.0 * (a - 1) / rest * prev2[key(k + 2, e)][w - 1];
+                    }
+                    if (e == 1) {
+                        lost += 1.0 / rest * prev1[key(k + 1, 0)][w - 1];
+                    }
+                    p += q * lost;
+                }
+            }
+            out[w] = p;
+        }
+    }
+
+    /**
+     * Imprime la distribución de cada configuración para los dos modelos
+     *
+     * Uso: MemoAnimaliaAttemptsCalculator [filas columnas límite]...
+     */
+    public static void main(String[] args) {
+        int[][] configs = {{3, 3, 12}, {4, 4, 20}, {6, 6, 40}, {20, 20, 400}, {30, 30, 900}};
+        if (args.length > 0) {
+            configs = new int[args.length / 3][];
+            for (int i = 0; i < configs.length; ++i) {
+                configs[i] = new int[]{
+                    Integer.parseInt(args[i * 3]),
+                    Integer.parseInt(args[1 + i * 3]),
+                    Integer.parseInt(args[2 + i * 3])};
+            }
+        }
+        for (int[] config : configs) {
+            for (PlayerModel model : PlayerModel.values()) {
+                long start = System.nanoTime();
+                Distribution distribution = compute(config[0], config[1], model, config[2]);
+                System.out.printf("%s  (%.2f ms)%n", distribution, (System.nanoTime() - start) / 1e6);
+            }
+        }
+    }
+}
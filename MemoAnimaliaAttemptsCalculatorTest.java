@@ -0,0 +1,68 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class MemoAnimaliaAttemptsCalculatorTest {
+
+    /**
+     * Un nombre distinto por pareja y para la carta sobrante, como supone el
+     * cálculo
+     */
+    private static final List<String> IDS = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < 13; i++) {
+            IDS.add("animal" + i);
+        }
+    }
+
+    @Test
+    void testSmallBoardsByHand() {
+        // 2x2 con memoria perfecta: la segunda carta acierta con 1/3; si no,
+        // se pierde un turno y las dos parejas quedan conocidas
+        MemoAnimaliaAttemptsCalculator.Distribution perfect = MemoAnimaliaAttemptsCalculator.compute(2, 2,
+                MemoAnimaliaAttemptsCalculator.PlayerModel.PERFECT_MEMORY, 10);
+        assertEquals(1.0 / 3, perfect.getProbability(2), 1e-12);
+        assertEquals(2.0 / 3, perfect.getProbability(3), 1e-12);
+        assertEquals(8.0 / 3, perfect.getExpectedAttempts(), 1e-12);
+
+        // 2x2 al azar: acierta con 2/6 y luego seguro
+        MemoAnimaliaAttemptsCalculator.Distribution random = MemoAnimaliaAttemptsCalculator.compute(2, 2,
+                MemoAnimaliaAttemptsCalculator.PlayerModel.RANDOM, 3);
+        assertEquals(1.0 / 3, random.getProbability(2), 1e-12);
+        assertEquals(2.0 / 3 * 1.0 / 3, random.getProbability(3), 1e-12);
+        assertEquals(4.0, random.getExpectedAttempts(), 1e-12);
+        assertEquals(5.0 / 9, random.getWinProbability(), 1e-12);
+    }
+
+    @Test
+    void testMatchesSimulation() {
+        for (int[] board : new int[][]{{3, 3}, {4, 4}, {5, 5}}) {
+            int limit = board[0] * board[1];
+            MemoAnimaliaSimulator.Result simulated = new MemoAnimaliaSimulator(IDS, MemoAnimaliaSimulator.PerfectMemoryPlayer::new, 1)
+                    .simulate(board[0], board[1], limit, 50_000, 17L);
+            MemoAnimaliaAttemptsCalculator.Distribution exact = MemoAnimaliaAttemptsCalculator.compute(board[0], board[1],
+                    MemoAnimaliaAttemptsCalculator.PlayerModel.PERFECT_MEMORY, limit);
+            assertEquals(exact.getExpectedAttempts(), simulated.getMeanWinAttempts(), 0.05, exact + " / " + simulated);
+            long[] histogram = simulated.getWinAttemptsHistogram();
+            for (int t = 0; t <= limit; t++) {
+                assertEquals(exact.getProbability(t), (double) histogram[t] / simulated.getGames(), 0.01, "t=" + t);
+            }
+        }
+
+        MemoAnimaliaSimulator.Result simulated = new MemoAnimaliaSimulator(IDS, MemoAnimaliaSimulator.RandomPlayer::new, 1)
+                .simulate(3, 3, 12, 50_000, 17L);
+        MemoAnimaliaAttemptsCalculator.Distribution exact = MemoAnimaliaAttemptsCalculator.compute(3, 3,
+                MemoAnimaliaAttemptsCalculator.PlayerModel.RANDOM, 12);
+        assertEquals(exact.getWinProbability(), simulated.getWinRate(), 0.01);
+    }
+
+    @Test
+    void testLargeBoardIsAProperDistribution() {
+        MemoAnimaliaAttemptsCalculator.Distribution exact = MemoAnimaliaAttemptsCalculator.compute(25, 25,
+                MemoAnimaliaAttemptsCalculator.PlayerModel.PERFECT_MEMORY, 625);
+        assertEquals(1.0, exact.getWinProbability(), 1e-9);
+        assertEquals(0.0, exact.getProbabilityWithin(311), 0.0);
+        assertTrue(exact.getExpectedAttempts() > 312 && exact.getExpectedAttempts() < 624);
+    }
+}
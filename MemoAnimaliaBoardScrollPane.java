@@ -0,0 +1,134 @@
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseWheelEvent;
+import javax.swing.*;
+
+/**
+ * Vista desplazable y con zoom de un MemoAnimaliaBoardView, para tableros que
+ * no entran en pantalla.
+ *
+ * Ctrl + rueda del mouse acerca o aleja manteniendo fija la carta bajo el
+ * puntero; Ctrl + '+', Ctrl + '-' hacen lo mismo sobre el centro del viewport.
+ * La rueda sin Ctrl desplaza como en cualquier JScrollPane.
+ */
+public class MemoAnimaliaBoardScrollPane extends JScrollPane {
+
+    private static final double ZOOM_STEP = 1.25;
+
+    private final MemoAnimaliaBoardView board;
+    private final int minCellSize;
+    private final int maxCellSize;
+
+    /**
+     * Constructor de la vista
+     *
+     * @param board Tablero a mostrar
+     * @param minCellSize Lado mínimo de las cartas al alejar
+     * @param maxCellSize Lado máximo de las cartas al acercar (conviene que no
+     * supere el tamaño al que se cargaron las imágenes)
+     * @param cellSize Lado inicial de las cartas
+     */
+    public MemoAnimaliaBoardScrollPane(MemoAnimaliaBoardView board, int minCellSize, int maxCellSize, int cellSize) {
+        super(board);
+        this.board = board;
+        this.minCellSize = minCellSize;
+        this.maxCellSize = maxCellSize;
+        board.setCellSize(clamp(cellSize));
+
+        // Al desplazar solo se conservan las imágenes del área visible
+        getViewport().addChangeListener(e -> board.retainImagesFor(getViewport().getViewRect()));
+
+        board.addMouseWheelListener(e -> {
+            if ((e.getModifiersEx() & InputEvent.CTRL_DOWN_MASK) != 0) {
+                int steps = e.getWheelRotation();
+                zoomAt(zoomed(board.getCellSize(), -steps), e.getPoint());
+                e.consume();
+            } else {
+                // Sin Ctrl el evento sigue hacia el JScrollPane
+                MouseWheelEvent forwarded = (MouseWheelEvent) SwingUtilities.convertMouseEvent(board, e, this);
+                dispatchEvent(forwarded);
+            }
+        });
+
+        bindKey(KeyEvent.VK_PLUS, "zoomIn", 1);
+        bindKey(KeyEvent.VK_EQUALS, "zoomIn", 1);
+        bindKey(KeyEvent.VK_ADD, "zoomIn", 1);
+        bindKey(KeyEvent.VK_MINUS, "zoomOut", -1);
+        bindKey(KeyEvent.VK_SUBTRACT, "zoomOut", -1);
+    }
+
+    private void bindKey(int keyCode, String name, int steps) {
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(keyCode, InputEvent.CTRL_DOWN_MASK), name);
+        getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                zoom(steps);
+            }
+        });
+    }
+
+    private int clamp(int cellSize) {
+        return Math.max(minCellSize, Math.min(maxCellSize, cellSize));
+    }
+
+    /**
+     * Lado de carta tras avanzar la cantidad de pasos indicada
+     */
+    private int zoomed(int cellSize, int steps) {
+        double next = cellSize * Math.pow(ZOOM_STEP, steps);
+        // Garantiza al menos un píxel de cambio en lados chicos
+        int rounded = (int) Math.round(next);
+        if (rounded == cellSize && steps != 0) {
+            rounded += Integer.signum(steps);
+        }
+        return clamp(rounded);
+    }
+
+    /**
+     * Acerca (pasos positivos) o aleja (negativos) sobre el centro del
+     * viewport
+     */
+    public void zoom(int steps) {
+        Rectangle view = getViewport().getViewRect();
+        zoomAt(zoomed(board.getCellSize(), steps), new Point(view.x + view.width / 2, view.y + view.height / 2));
+    }
+
+    /**
+     * Cambia el lado de las cartas dejando el punto indicado del tablero en la
+     * misma posición del viewport
+     *
+     * @param cellSize Nuevo lado de las cartas
+     * @param anchor Punto en coordenadas del tablero
+     */
+    public void zoomAt(int cellSize, Point anchor) {
+        int oldCell = board.getCellSize();
+        cellSize = clamp(cellSize);
+        if (cellSize == oldCell) {
+            return;
+        }
+        JViewport viewport = getViewport();
+        Point position = viewport.getViewPosition();
+        double scale = (double) (cellSize + board.getGap()) / (oldCell + board.getGap());
+
+        board.setCellSize(cellSize);
+        // Se aplica el tamaño nuevo ya, sin esperar la validación diferida
+        Dimension size = board.getPreferredSize();
+        board.setSize(size);
+
+        Dimension extent = viewport.getExtentSize();
+        int x = (int) Math.round(anchor.x * scale) - (anchor.x - position.x);
+        int y = (int) Math.round(anchor.y * scale) - (anchor.y - position.y);
+        x = Math.max(0, Math.min(x, size.width - extent.width));
+        y = Math.max(0, Math.min(y, size.height - extent.height));
+        viewport.setViewPosition(new Point(x, y));
+        board.retainImagesFor(viewport.getViewRect());
+        revalidate();
+        repaint();
+    }
+
+    public MemoAnimaliaBoardView getBoard() {
+        return board;
+    }
+}
@@ -0,0 +1,501 @@
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import javax.swing.*;
+import javax.swing.border.BevelBorder;
+import javax.swing.border.Border;
+
+/**
+ * Componente que dibuja el tablero completo de MemoAnimalia por sí mismo.
+ *
+ * Reemplaza a los JButton por carta: no hay un componente por carta, el clic
+ * se traduce a un índice con aritmética sobre la grilla y al cambiar una
+ * carta solo se repinta su rectángulo. paintComponent recorre únicamente las
+ * filas y columnas que tocan el área de recorte, así que el costo de pintar
+ * depende de lo que cambió y no del tamaño del tablero.
+ *
+ * Las caras se toman de un CardAtlas cuando está disponible; mientras tanto
+ * se usan los ImageIcon del ImageResourceManager. En ambos casos se pintan
+ * desde copias ya escaladas al lado actual de la carta, que solo se guardan
+ * para los símbolos visibles.
+ *
+ * Con setCellSize() el lado de las cartas queda fijo y el tablero puede ir
+ * dentro de un JScrollPane (ver MemoAnimaliaBoardScrollPane). En ese caso
+ * solo se escalan las caras de las cartas boca arriba dentro del viewport, y
+ * las imágenes originales se piden al ImageResourceManager para el viewport
+ * más un margen de PREFETCH_MARGIN cartas y se sueltan al salir de él, así que
+ * la memoria de imágenes y el costo de pintar dependen del viewport y no de
+ * engine.getSize().
+ */
+public class MemoAnimaliaBoardView extends JComponent implements Scrollable {
+
+    /**
+     * Recibe los clics sobre cartas del tablero
+     */
+    public interface CardSelectionListener {
+
+        void cardSelected(int index);
+    }
+
+    // Colores fijos: no dependen del fondo del componente padre
+    private static final Border RAISED = BorderFactory.createBevelBorder(BevelBorder.RAISED, Color.WHITE, Color.GRAY);
+    private static final Border LOWERED = BorderFactory.createBevelBorder(BevelBorder.LOWERED, Color.WHITE, Color.GRAY);
+    private static final Color MATCHED_OVERLAY = new Color(255, 255, 255, 90);
+    private static final Color TEXT_BACKGROUND = new Color(235, 235, 235);
+
+    /**
+     * Cartas alrededor del viewport cuyas imágenes se preparan de antemano
+     */
+    public static final int PREFETCH_MARGIN = 2;
+
+    private final MemoAnimaliaEngine engine;
+    private final ImageResourceManager images;
+    private final int rows;
+    private final int cols;
+    private final int cardSize;
+    private final int gap;
+
+    /**
+     * Icono de cada símbolo del motor, o null si el animal no tiene imagen o
+     * todavía no se pidió
+     */
+    private final ImageIcon[] symbolIcons;
+    /**
+     * Posición de cada símbolo en el atlas, o -1 sin atlas o sin imagen
+     */
+    private final int[] symbolSlots;
+    private CardAtlas atlas;
+
+    private CardSelectionListener selectionListener;
+    /**
+     * Durante la vista previa se muestran todas las caras y se ignoran clics
+     */
+    private boolean preview;
+
+    /**
+     * Lado fijo de las cartas, o 0 para ajustarlas al tamaño del componente
+     */
+    private int fixedCell;
+
+    /**
+     * Cara de cada símbolo escalada al lado actual, o null si no está visible
+     */
+    private final Image[] scaledFaces;
+    private Image scaledBack;
+    private int scaledSize = -1;
+    private int scaledCount;
+    /**
+     * Bits de símbolos boca arriba en el viewport y de símbolos en el viewport
+     * más el margen, reutilizados en cada retainImagesFor()
+     */
+    private final long[] visibleSymbols;
+    private final long[] nearbySymbols;
+
+    // Geometría actual de la grilla, recalculada cuando cambia el tamaño
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+    private int cell;
+    private int pitch;
+    private int originX;
+    private int originY;
+
+    /**
+     * Constructor del tablero
+     *
+     * @param engine Motor cuyo estado se dibuja
+     * @param images Imágenes de las cartas
+     * @param cardSize Lado preferido de cada carta
+     * @param gap Separación entre cartas
+     */
+    public MemoAnimaliaBoardView(MemoAnimaliaEngine engine, ImageResourceManager images, int cardSize, int gap) {
+        this.engine = engine;
+        this.images = images;
+        this.rows = engine.getRows();
+        this.cols = engine.getCols();
+        this.cardSize = cardSize;
+        this.gap = gap;
+
+        int symbolCount = engine.getSymbolCount();
+        this.symbolIcons = new ImageIcon[symbolCount];
+        this.symbolSlots = new int[symbolCount];
+        for (int s = 0; s < symbolCount; ++s) {
+            symbolIcons[s] = images.getAnimalImage(engine.getSymbolName(s));
+            symbolSlots[s] = -1;
+        }
+        this.scaledFaces = new Image[symbolCount];
+        this.visibleSymbols = new long[(symbolCount + 63) >>> 6];
+        this.nearbySymbols = new long[visibleSymbols.length];
+
+        setOpaque(false);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e) || preview || !isEnabled() || selectionListener == null) {
+                    return;
+                }
+                int index = indexAt(e.getX(), e.getY());
+                if (index >= 0) {
+                    selectionListener.cardSelected(index);
+                }
+            }
+        });
+    }
+
+    public void setCardSelectionListener(CardSelectionListener listener) {
+        this.selectionListener = listener;
+    }
+
+    /**
+     * Empieza a dibujar desde el atlas indicado
+     */
+    public void setAtlas(CardAtlas atlas) {
+        this.atlas = atlas;
+        for (int s = 0; s < symbolSlots.length; ++s) {
+            symbolSlots[s] = atlas != null ? atlas.getSlot(engine.getSymbolName(s)) : -1;
+        }
+        invalidateImages();
+    }
+
+    /**
+     * Descarta las copias escaladas, por ejemplo cuando llega una imagen que
+     * reemplaza a su placeholder
+     */
+    public void invalidateImages() {
+        Arrays.fill(scaledFaces, null);
+        scaledBack = null;
+        scaledCount = 0;
+        repaint();
+    }
+
+    /**
+     * Fija el lado de las cartas (zoom). Con 0 las cartas se ajustan al tamaño
+     * del componente.
+     */
+    public void setCellSize(int cellSize) {
+        if (fixedCell != cellSize) {
+            fixedCell = Math.max(0, cellSize);
+            layoutWidth = -1;
+            revalidate();
+            repaint();
+        }
+    }
+
+    /**
+     * Lado actual de las cartas en píxeles
+     */
+    public int getCellSize() {
+        updateLayout();
+        return cell;
+    }
+
+    public int getGap() {
+        return gap;
+    }
+
+    /**
+     * Activa o desactiva la vista previa con todas las caras visibles
+     */
+    public void setPreview(boolean preview) {
+        if (this.preview != preview) {
+            this.preview = preview;
+            repaint();
+        }
+    }
+
+    public boolean isPreview() {
+        return preview;
+    }
+
+    /**
+     * Repinta solo el rectángulo de una carta
+     */
+    public void repaintCard(int index) {
+        if (index >= 0 && index < engine.getSize()) {
+            updateLayout();
+            repaint(cardX(index % cols), cardY(index / cols), cell, cell);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        int side = fixedCell > 0 ? fixedCell : cardSize;
+        Insets insets = getInsets();
+        return new Dimension(
+                cols * side + (cols - 1) * gap + insets.left + insets.right,
+                rows * side + (rows - 1) * gap + insets.top + insets.bottom);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        updateLayout();
+        return pitch;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        updateLayout();
+        int extent = orientation == SwingConstants.HORIZONTAL ? visibleRect.width : visibleRect.height;
+        return Math.max(pitch, extent - pitch);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        // Sin zoom fijo el tablero se ajusta al viewport; con zoom solo si cabe
+        return fixedCell == 0 || (getParent() instanceof JViewport
+                && getParent().getWidth() > getPreferredSize().width);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return fixedCell == 0 || (getParent() instanceof JViewport
+                && getParent().getHeight() > getPreferredSize().height);
+    }
+
+    /**
+     * Recalcula el lado de las cartas para que la grilla entre en el
+     * componente, centrándola
+     */
+    private void updateLayout() {
+        if (layoutWidth == getWidth() && layoutHeight == getHeight()) {
+            return;
+        }
+        layoutWidth = getWidth();
+        layoutHeight = getHeight();
+        Insets insets = getInsets();
+        int width = layoutWidth - insets.left - insets.right;
+        int height = layoutHeight - insets.top - insets.bottom;
+        cell = fixedCell > 0 ? fixedCell
+                : Math.max(1, Math.min((width - (cols - 1) * gap) / cols, (height - (rows - 1) * gap) / rows));
+        pitch = cell + gap;
+        originX = insets.left + Math.max(0, (width - (cols * pitch - gap)) / 2);
+        originY = insets.top + Math.max(0, (height - (rows * pitch - gap)) / 2);
+    }
+
+    private int cardX(int col) {
+        return originX + col * pitch;
+    }
+
+    private int cardY(int row) {
+        return originY + row * pitch;
+    }
+
+    /**
+     * Índice de la carta en un punto del componente
+     *
+     * @return El índice, o -1 si el punto cae fuera de la grilla o en una
+     * separación
+     */
+    public int indexAt(int x, int y) {
+        updateLayout();
+        int dx = x - originX;
+        int dy = y - originY;
+        if (dx < 0 || dy < 0) {
+            return -1;
+        }
+        int col = dx / pitch;
+        int row = dy / pitch;
+        if (col >= cols || row >= rows || dx % pitch >= cell || dy % pitch >= cell) {
+            return -1;
+        }
+        int index = row * cols + col;
+        return index < engine.getSize() ? index : -1;
+    }
+
+    /**
+     * Rectángulo que ocupa una carta en el componente
+     */
+    public Rectangle getCardBounds(int index) {
+        updateLayout();
+        return new Rectangle(cardX(index % cols), cardY(index / cols), cell, cell);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        updateLayout();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        // Solo las filas y columnas que tocan el área de recorte
+        int firstCol = Math.max(0, (clip.x - originX) / pitch);
+        int lastCol = Math.min(cols - 1, (clip.x + clip.width - originX) / pitch);
+        int firstRow = Math.max(0, (clip.y - originY) / pitch);
+        int lastRow = Math.min(rows - 1, (clip.y + clip.height - originY) / pitch);
+        int size = engine.getSize();
+
+        for (int row = firstRow; row <= lastRow; ++row) {
+            for (int col = firstCol; col <= lastCol; ++col) {
+                int index = row * cols + col;
+                if (index < size) {
+                    paintCard(g, index, cardX(col), cardY(row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Conserva solo las copias escaladas de las caras boca arriba dentro del
+     * rectángulo indicado, y las imágenes originales de los símbolos del
+     * rectángulo más PREFETCH_MARGIN cartas alrededor, para que el próximo
+     * desplazamiento no tenga que esperar a cargarlas.
+     *
+     * @param visible Área visible, en coordenadas del componente
+     */
+    public void retainImagesFor(Rectangle visible) {
+        updateLayout();
+        checkScaledSize();
+        int firstCol = Math.max(0, (visible.x - originX) / pitch);
+        int lastCol = Math.min(cols - 1, (visible.x + visible.width - 1 - originX) / pitch);
+        int firstRow = Math.max(0, (visible.y - originY) / pitch);
+        int lastRow = Math.min(rows - 1, (visible.y + visible.height - 1 - originY) / pitch);
+        int size = engine.getSize();
+
+        Arrays.fill(visibleSymbols, 0L);
+        Arrays.fill(nearbySymbols, 0L);
+        for (int row = Math.max(0, firstRow - PREFETCH_MARGIN); row <= Math.min(rows - 1, lastRow + PREFETCH_MARGIN); ++row) {
+            for (int col = Math.max(0, firstCol - PREFETCH_MARGIN); col <= Math.min(cols - 1, lastCol + PREFETCH_MARGIN); ++col) {
+                int index = row * cols + col;
+                if (index >= size) {
+                    continue;
+                }
+                int symbol = engine.getSymbolId(index);
+                nearbySymbols[symbol >>> 6] |= 1L << symbol;
+                if (row >= firstRow && row <= lastRow && col >= firstCol && col <= lastCol
+                        && (preview || engine.isMatched(index) || engine.isRevealed(index))) {
+                    visibleSymbols[symbol >>> 6] |= 1L << symbol;
+                }
+            }
+        }
+        for (int s = 0; s < scaledFaces.length; ++s) {
+            long bit = 1L << s;
+            if ((nearbySymbols[s >>> 6] & bit) != 0) {
+                icon(s);
+            } else if (symbolIcons[s] != null) {
+                images.releaseAnimalImage(engine.getSymbolName(s));
+                symbolIcons[s] = null;
+            }
+            boolean wanted = (visibleSymbols[s >>> 6] & bit) != 0;
+            if (wanted && scaledFaces[s] == null) {
+                scaledFace(s);
+            } else if (!wanted && scaledFaces[s] != null) {
+                scaledFaces[s] = null;
+                scaledCount--;
+            }
+        }
+    }
+
+    /**
+     * Cantidad de caras escaladas guardadas en este momento
+     */
+    public int getScaledImageCount() {
+        return scaledCount;
+    }
+
+    /**
+     * Descarta las copias escaladas si cambió el lado de las cartas
+     */
+    private void checkScaledSize() {
+        if (scaledSize != cell) {
+            Arrays.fill(scaledFaces, null);
+            scaledBack = null;
+            scaledCount = 0;
+            scaledSize = cell;
+        }
+    }
+
+    private Image scaledFace(int symbol) {
+        checkScaledSize();
+        Image image = scaledFaces[symbol];
+        if (image == null) {
+            image = createScaledImage();
+            Graphics g = image.getGraphics();
+            paintFace(g, symbol, 0, 0);
+            g.dispose();
+            scaledFaces[symbol] = image;
+            scaledCount++;
+        }
+        return image;
+    }
+
+    private Image scaledBack() {
+        checkScaledSize();
+        if (scaledBack == null) {
+            scaledBack = createScaledImage();
+            Graphics g = scaledBack.getGraphics();
+            if (atlas != null) {
+                atlas.paint(g, CardAtlas.BACK_SLOT, 0, 0, cell, cell);
+            } else {
+                g.drawImage(images.getBackImage().getImage(), 0, 0, cell, cell, null);
+            }
+            g.dispose();
+        }
+        return scaledBack;
+    }
+
+    private Image createScaledImage() {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        return gc != null
+                ? gc.createCompatibleImage(cell, cell, Transparency.TRANSLUCENT)
+                : new BufferedImage(cell, cell, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private void paintCard(Graphics g, int index, int x, int y) {
+        boolean matched = engine.isMatched(index);
+        if (preview || matched || engine.isRevealed(index)) {
+            g.drawImage(scaledFace(engine.getSymbolId(index)), x, y, null);
+        } else {
+            g.drawImage(scaledBack(), x, y, null);
+        }
+
+        if (matched) {
+            // Igual que un botón deshabilitado: imagen atenuada y hundida
+            g.setColor(MATCHED_OVERLAY);
+            g.fillRect(x, y, cell, cell);
+            LOWERED.paintBorder(this, g, x, y, cell, cell);
+        } else {
+            RAISED.paintBorder(this, g, x, y, cell, cell);
+        }
+    }
+
+    /**
+     * Icono de un símbolo; si el gestor no precarga las caras, lo pide la
+     * primera vez que hace falta
+     */
+    private ImageIcon icon(int symbol) {
+        if (symbolIcons[symbol] == null) {
+            symbolIcons[symbol] = images.requestAnimalImage(engine.getSymbolName(symbol));
+        }
+        return symbolIcons[symbol];
+    }
+
+    /**
+     * Dibuja la cara de un símbolo desde su imagen original
+     */
+    private void paintFace(Graphics g, int symbol, int x, int y) {
+        int slot = symbolSlots[symbol];
+        if (slot >= 0) {
+            atlas.paint(g, slot, x, y, cell, cell);
+        } else if (icon(symbol) != null) {
+            g.drawImage(symbolIcons[symbol].getImage(), x, y, cell, cell, null);
+        } else {
+            // Sin imagen: se muestra el nombre del animal
+            g.setColor(TEXT_BACKGROUND);
+            g.fillRect(x, y, cell, cell);
+            g.setColor(getForeground() != null ? getForeground() : Color.BLACK);
+            String name = engine.getSymbolName(symbol);
+            FontMetrics fm = g.getFontMetrics();
+            g.drawString(name, x + (cell - fm.stringWidth(name)) / 2, y + (cell + fm.getAscent()) / 2 - fm.getDescent());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.awt.Rectangle;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class MemoAnimaliaBoardViewTest {
+
+    private static MemoAnimaliaBoardView boardView(int rows, int cols) {
+        List<String> ids = Arrays.asList("A", "B", "C");
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(rows, cols, ids, 100);
+        MemoAnimaliaBoardView view = new MemoAnimaliaBoardView(engine, new ImageResourceManager(ids, 20, null), 20, 4);
+        view.setSize(view.getPreferredSize());
+        return view;
+    }
+
+    @Test
+    void testIndexAtMatchesCardBounds() {
+        MemoAnimaliaBoardView view = boardView(7, 5);
+        for (int i = 0; i < 35; i++) {
+            Rectangle r = view.getCardBounds(i);
+            assertEquals(i, view.indexAt(r.x, r.y));
+            assertEquals(i, view.indexAt(r.x + r.width - 1, r.y + r.height - 1));
+        }
+    }
+
+    @Test
+    void testGapsAndOutsideHitNothing() {
+        MemoAnimaliaBoardView view = boardView(3, 3);
+        Rectangle first = view.getCardBounds(0);
+        assertEquals(-1, view.indexAt(first.x + first.width, first.y), "La separación no es una carta");
+        assertEquals(-1, view.indexAt(first.x - 1, first.y));
+        Rectangle last = view.getCardBounds(8);
+        assertEquals(-1, view.indexAt(last.x + last.width + 50, last.y + last.height + 50));
+    }
+
+    @Test
+    void testScaledImagesFollowViewport() {
+        // Más símbolos distintos que cartas entran en el viewport
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add("animal" + i);
+        }
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(40, 40, ids, 10000, 7L);
+        ImageResourceManager images = new ImageResourceManager(ids, 20, null, false);
+        MemoAnimaliaBoardView view = new MemoAnimaliaBoardView(engine, images, 20, 0);
+        MemoAnimaliaBoardScrollPane pane = new MemoAnimaliaBoardScrollPane(view, 4, 20, 10);
+        pane.getViewport().setSize(30, 30);
+        view.setSize(view.getPreferredSize());
+
+        // Las 3 x 3 cartas de las filas y columnas 20 a 22 quedan emparejadas;
+        // su pareja se busca lejos del resto del viewport
+        Set<Integer> shown = new HashSet<>();
+        for (int row = 20; row <= 22; row++) {
+            for (int col = 20; col <= 22; col++) {
+                int index = row * 40 + col;
+                if (engine.isMatched(index)) {
+                    continue;
+                }
+                int partner = -1;
+                for (int other = 30 * 40; other < engine.getSize() && partner < 0; other++) {
+                    if (!engine.isMatched(other) && engine.getSymbolId(other) == engine.getSymbolId(index)) {
+                        partner = other;
+                    }
+                }
+                assertTrue(partner >= 0);
+                engine.flipCard(index);
+                assertEquals(MemoAnimaliaEngine.FlipResult.MATCH, engine.flipCard(partner));
+                shown.add(engine.getSymbolId(index));
+            }
+        }
+
+        // Viewport de 3 x 3 cartas más el margen de prefetch a cada lado
+        int side = 3 + 2 * MemoAnimaliaBoardView.PREFETCH_MARGIN;
+        pane.getViewport().setViewPosition(new java.awt.Point(200, 200));
+        int matchedCount = view.getScaledImageCount();
+        assertEquals(shown.size(), matchedCount, "Solo se escalan las caras boca arriba del viewport");
+        assertTrue(images.getAnimalImageCount() <= side * side);
+        assertTrue(images.getAnimalImageCount() < ids.size(), "Las caras lejanas no se cargan");
+
+        pane.getViewport().setViewPosition(new java.awt.Point(50, 50));
+        assertTrue(view.getScaledImageCount() < matchedCount, "Las imágenes fuera del viewport deben liberarse");
+        assertEquals(0, view.getScaledImageCount(), "Las cartas boca abajo no necesitan su cara escalada");
+        assertTrue(images.getAnimalImageCount() <= side * side);
+
+        pane.zoomAt(20, new java.awt.Point(55, 55));
+        assertEquals(20, view.getCellSize());
+        assertEquals(105, pane.getViewport().getViewPosition().x, "El zoom mantiene el punto bajo el puntero");
+        assertEquals(0, view.getScaledImageCount());
+        assertTrue(images.getAnimalImageCount() <= side * side);
+    }
+}
@@ -1,21 +1,20 @@
 //Cesar Augusto Perez Sanchez
 
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.ArrayList;
 import java.util.List;
 import javax.swing.*;
 
 /**
  * Controlador principal de la interfaz gráfica del juego MemoAnimalia
- * Implementa GameListener para recibir eventos del motor del juego
+ * Recibe los eventos del motor del juego agrupados por CoalescingGameListener
  */
-public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine.GameListener {
+public class MemoAnimaliaController extends JPanel implements CoalescingGameListener.ChangeSetListener {
 
     private MemoAnimaliaEngine engine;
-    private List<JButton> cardButtons;
+    private MemoAnimaliaBoardView boardView;
     private final ImageResourceManager imageManager;
+    private final CoalescingGameListener dispatcher;
+    private final MemoAnimaliaMetrics metrics = MemoAnimaliaMetrics.global();
 
     private JLabel attemptsLabel;
     private JLabel matchesLabel;
@@ -27,13 +26,16 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
     private int firstCardIndex = -1;
     private int secondCardIndex = -1;
     private int remainingSeconds;
-    private boolean gameOverDialogOpen = false;
 
     private static final int CARD_SIZE = 120;
+    private static final int MIN_CARD_SIZE = 16;
+    private static final int MIN_ZOOM_CARD_SIZE = 8;
+    private static final int MAX_BOARD_SIDE = 720; // lado máximo del tablero en píxeles
     private static final int GRID_PADDING = 10;
     private static final int HIDE_DELAY = 500;
     private static final int INITIAL_REVEAL_TIME_MS = 3000;
     private static final int COUNTDOWN_INTERVAL_MS = 1000; // 1 segundo
+    private static final int LAYOUT_POOL_SIZE = 2; // partidas ya mezcladas en espera
 
     // Constantes para mensajes del juego
     private static final String GAME_WON_MESSAGE = "¡FELICIDADES! 🎉\n\n"
@@ -59,27 +61,65 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
     }
 
     /**
-     * Constructor del controlador del juego MemoAnimalia. Se encarga de
-     * inicializar el motor del juego, configurar la interfaz gráfica y mostrar
-     * el mensaje de bienvenida.
+     * Constructor del controlador del juego MemoAnimalia con el tablero por
+     * defecto.
      *
      * @param animalIds Lista de IDs de animales
      * @throws IllegalArgumentException si el tamaño de la lista de animales no
      * es válido
      */
     public MemoAnimaliaController(List<String> animalIds) {
-        engine = new MemoAnimaliaEngine(3, 3, animalIds, 12);
-        engine.setListener(this);
-        imageManager = new ImageResourceManager(animalIds, CARD_SIZE);
+        this(animalIds, MemoAnimaliaEngine.DEFAULT_ROWS, MemoAnimaliaEngine.DEFAULT_COLS,
+                MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT);
+    }
 
-        setupUI();
+    /**
+     * Constructor del controlador del juego MemoAnimalia. Se encarga de
+     * inicializar el motor del juego, configurar la interfaz gráfica y mostrar
+     * el mensaje de bienvenida.
+     *
+     * @param animalIds Lista de IDs de animales
+     * @param rows Filas del tablero
+     * @param cols Columnas del tablero
+     * @param attemptLimit Límite de intentos
+     */
+    public MemoAnimaliaController(List<String> animalIds, int rows, int cols, int attemptLimit) {
+        engine = new MemoAnimaliaEngine(rows, cols, animalIds, attemptLimit);
+        dispatcher = new CoalescingGameListener(this);
+        engine.setListener(dispatcher);
+        engine.enableLayoutPool(LAYOUT_POOL_SIZE);
+        // En tableros grandes las cartas se achican para que el tablero entre
+        // en pantalla; las imágenes se escalan una sola vez a ese tamaño. Si
+        // ni así entra, el tablero se muestra con desplazamiento y zoom, y las
+        // imágenes se cargan al tamaño máximo de zoom y solo a medida que el
+        // viewport las necesita.
+        int fitSize = Math.min(CARD_SIZE, MAX_BOARD_SIDE / Math.max(rows, cols));
+        boolean scrollable = fitSize < MIN_CARD_SIZE;
+        int cardSize = scrollable ? CARD_SIZE : fitSize;
+        imageManager = new ImageResourceManager(animalIds, cardSize, ScaledImageCache.openDefault(), !scrollable);
+        // Las imágenes llegan en segundo plano; las copias escaladas del
+        // tablero se rehacen con la imagen nueva
+        imageManager.setOnImageLoaded(() -> {
+            if (boardView != null) {
+                boardView.invalidateImages();
+            }
+        });
+
+        setupUI(cardSize, scrollable);
+
+        // Con todas las imágenes listas el tablero pasa a pintar desde el atlas.
+        // El tablero desplazable no usa atlas: tendría todas las caras a la
+        // vez, y ahí solo se cargan las del viewport.
+        if (!scrollable) {
+            imageManager.whenAllLoaded().thenRunAsync(
+                    () -> boardView.setAtlas(imageManager.createAtlas()), SwingUtilities::invokeLater);
+        }
 
         hideTimer = new Timer(HIDE_DELAY, e -> {
             if (firstCardIndex >= 0 && secondCardIndex >= 0) {
                 engine.hideCards(firstCardIndex, secondCardIndex);
 
-                updateCardDisplay(firstCardIndex);
-                updateCardDisplay(secondCardIndex);
+                refreshChangedCards();
                 resetIndexes();
             }
         });
@@ -93,9 +133,12 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
 
     /**
      * Configura la interfaz gráfica del juego. Se encarga de crear los paneles
-     * y los botones de cartas con los que el usuario interactuará para jugar
+     * y el tablero con el que el usuario interactuará para jugar
+     *
+     * @param cardSize Lado de cada carta
+     * @param scrollable Si el tablero va dentro de una vista con zoom
      */
-    private void setupUI() {
+    private void setupUI(int cardSize, boolean scrollable) {
         setLayout(new BorderLayout(10, 10));
         setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
@@ -103,7 +146,7 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
         JPanel infoPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 5));
         infoPanel.setBackground(new Color(240, 240, 240));
 
-        attemptsLabel = new JLabel("Intentos: 0 / 12");
+        attemptsLabel = new JLabel("Intentos: 0 / " + engine.getAttemptLimit());
         attemptsLabel.setFont(new Font("Arial", Font.BOLD, 14));
         infoPanel.add(attemptsLabel);
 
@@ -118,111 +161,39 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
 
         add(infoPanel, BorderLayout.NORTH);
 
-        // Panel central con el tablero de cartas
-        JPanel boardPanel = new JPanel(new GridLayout(3, 3, GRID_PADDING, GRID_PADDING));
-        boardPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-
-        cardButtons = new ArrayList<>();
-        int boardSize = engine.getSize();
-
-        for (int i = 0; i < boardSize; i++) {
-            JButton cardButton = createCardButton(i);
-            cardButtons.add(cardButton);
-            boardPanel.add(cardButton);
+        // Panel central con el tablero de cartas, pintado por un solo componente
+        int gap = !scrollable && cardSize >= CARD_SIZE / 2 ? GRID_PADDING : 2;
+        boardView = new MemoAnimaliaBoardView(engine, imageManager, cardSize, gap);
+        boardView.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        boardView.setCardSelectionListener(this::onCardSelected);
+
+        if (scrollable) {
+            MemoAnimaliaBoardScrollPane scrollPane = new MemoAnimaliaBoardScrollPane(
+                    boardView, MIN_ZOOM_CARD_SIZE, cardSize, MIN_CARD_SIZE);
+            scrollPane.setPreferredSize(new Dimension(MAX_BOARD_SIDE, MAX_BOARD_SIDE));
+            add(scrollPane, BorderLayout.CENTER);
+        } else {
+            add(boardView, BorderLayout.CENTER);
         }
 
-        add(boardPanel, BorderLayout.CENTER);
-
         // Panel inferior con botón de reinicio
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         JButton resetButton = new JButton("Nuevo Juego");
         resetButton.setFont(new Font("Arial", Font.BOLD, 12));
-        resetButton.addActionListener(e -> {
-            engine.resetForNewGame();
-            updateAllCards();
-            resetIndexes();
-            hideTimer.stop();
-        });
+        // El motor avisa del reinicio y onChanges actualiza el tablero
+        resetButton.addActionListener(e -> engine.resetForNewGame());
         controlPanel.add(resetButton);
 
         add(controlPanel, BorderLayout.SOUTH);
     }
 
     /**
-     * Crea un botón de carta para el juego. Se encarga de crear el botón y
-     * configurar su tamaño, bordes y listener, además de cargar la imagen de
-     * reverso.
-     *
-     * @param index Índice de la carta
-     * @return Botón de carta
+     * Actualiza la visualización de las cartas cuyo estado cambió en el motor.
+     * El tablero lee el estado del motor, así que basta con repintar el
+     * rectángulo de cada carta modificada; las demás no se tocan.
      */
-    private JButton createCardButton(int index) {
-        JButton button = new JButton();
-        button.setPreferredSize(new Dimension(CARD_SIZE, CARD_SIZE));
-        button.setFocusPainted(false);
-        button.setBorder(BorderFactory.createRaisedBevelBorder());
-
-        // Mostrar reverso inicialmente para el boton de la carta
-        button.setIcon(imageManager.getBackImage());
-
-        button.addActionListener(new CardButtonListener(index));
-        return button;
-    }
-
-    /**
-     * Actualiza la visualización de una carta en la interfaz gráfica. Se
-     * encarga de mostrar la imagen del animal o el reverso de la carta según el
-     * estado de la carta.
-     *
-     * @param index Índice de la carta seleccionada
-     */
-    private void updateCardDisplay(int index) {
-        if (index < 0 || index >= cardButtons.size()) {
-            return;
-        }
-
-        JButton button = cardButtons.get(index);
-        MemoAnimaliaEngine.Card card = engine.getCard(index);
-
-        if (card.isMatched()) {
-            // Carta emparejada - mostrar imagen del animal
-            String animalId = card.getId().toLowerCase();
-            ImageIcon icon = imageManager.getAnimalImage(animalId);
-            if (icon != null) {
-                button.setIcon(icon);
-                button.setText(null);
-            } else {
-                button.setIcon(null);
-                button.setText(card.getId());
-            }
-            button.setEnabled(false);
-            button.setBorder(BorderFactory.createLoweredBevelBorder());
-        } else if (card.isRevealed()) {
-            // Carta revelada - mostrar imagen del animal
-            String animalId = card.getId().toLowerCase();
-            ImageIcon icon = imageManager.getAnimalImage(animalId);
-            if (icon != null) {
-                button.setIcon(icon);
-                button.setText(null);
-            } else {
-                button.setIcon(null);
-                button.setText(card.getId());
-            }
-        } else {
-            // Carta oculta - mostrar reverso
-            button.setIcon(imageManager.getBackImage());
-            button.setText(null);
-        }
-    }
-
-    /**
-     * Actualiza la visualización de todas las cartas en la interfaz gráfica.
-     */
-    private void updateAllCards() {
-        for (int i = 0; i < cardButtons.size(); i++) {
-            updateCardDisplay(i);
-            cardButtons.get(i).setEnabled(true);
-        }
+    private void refreshChangedCards() {
+        engine.drainDirty(boardView::repaintCard);
     }
 
     /**
@@ -251,22 +222,8 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
      */
     private void showAllCardsTemporarily() {
         // Revelar todas las cartas visualmente (sin modificar el estado del motor)
-        for (int i = 0; i < cardButtons.size(); i++) {
-            MemoAnimaliaEngine.Card card = engine.getCard(i);
-            JButton button = cardButtons.get(i);
-
-            // Mostrar la imagen del animal temporalmente
-            String animalId = card.getId().toLowerCase();
-            ImageIcon icon = imageManager.getAnimalImage(animalId);
-            if (icon != null) {
-                button.setIcon(icon);
-                button.setText(null);
-            } else {
-                button.setIcon(null);
-                button.setText(card.getId());
-            }
-            button.setEnabled(false); // Deshabilitar clicks durante la vista previa
-        }
+        // Los clics se ignoran durante la vista previa
+        boardView.setPreview(true);
 
         // Inicializar contador de tiempo
         remainingSeconds = INITIAL_REVEAL_TIME_MS / COUNTDOWN_INTERVAL_MS; // 3 segundos
@@ -292,10 +249,7 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
             }
 
             // Ocultar todas las cartas
-            for (int i = 0; i < cardButtons.size(); i++) {
-                updateCardDisplay(i);
-                cardButtons.get(i).setEnabled(true);
-            }
+            boardView.setPreview(false);
 
             // Restaurar el mensaje de estado normal
             statusLabel.setText("¡Encuentra las parejas!");
@@ -321,140 +275,108 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
     }
 
     /**
-     * Implementación de GameListener. Se encarga de actualizar la visualización
-     * de la carta seleccionada.
+     * Implementación de ChangeSetListener. Recibe en el EDT todos los eventos
+     * de un flip agrupados y los aplica en una sola pasada, de modo que cada
+     * clic produce una única tarea y un único repintado.
      *
-     * @param index Índice de la carta seleccionada
-     * @param card Carta seleccionada para actualizar su visualización
+     * @param changes Cambios acumulados desde la última entrega
      */
     @Override
-    public void onCardRevealed(int index, MemoAnimaliaEngine.Card card) {
-        SwingUtilities.invokeLater(() -> {
-            updateCardDisplay(index);
-        });
-    }
+    public void onChanges(CoalescingGameListener.ChangeSet changes) {
+        refreshChangedCards();
 
-    /**
-     * Implementación de GameListener. Se encarga de ocultar las cartas
-     * seleccionadas cuando no son parejas.
-     *
-     * @param index1 Índice de la primera carta seleccionada
-     * @param index2 Índice de la segunda carta seleccionada
-     */
-    @Override
-    public void onCardsHidden(int index1, int index2) {
-        SwingUtilities.invokeLater(() -> {
-            firstCardIndex = index1;
-            secondCardIndex = index2;
-            hideTimer.start();
-        });
-    }
-
-    /**
-     * Implementación de GameListener. Se encarga de actualizar la visualización
-     * de las cartas seleccionadas cuando no son parejas.
-     *
-     * @param index1 Índice de la primera carta seleccionada
-     * @param index2 Índice de la segunda carta seleccionada
-     */
-    @Override
-    public void onCardsMatched(int index1, int index2) {
-        SwingUtilities.invokeLater(() -> {
-            updateCardDisplay(index1);
-            updateCardDisplay(index2);
+        if (changes.getMatchedPairs().length > 0) {
             statusLabel.setText("¡Pareja encontrada!");
             statusLabel.setForeground(new Color(0, 150, 0));
-        });
-    }
+        }
 
-    /**
-     * Implementación de GameListener. Se encarga de actualizar el contador de
-     * intentos.
-     *
-     * @param attempts Intentos realizados
-     */
-    @Override
-    public void onAttemptChanged(int attempts) {
-        SwingUtilities.invokeLater(() -> {
-            attemptsLabel.setText("Intentos: " + attempts + " / " + engine.getAttemptLimit());
-            if (attempts > engine.getAttemptLimit()) {
-                attemptsLabel.setForeground(Color.RED);
-            } else {
-                attemptsLabel.setForeground(Color.BLACK);
-            }
-        });
+        // Cartas que no coinciden: se ocultan tras HIDE_DELAY
+        int[] hidden = changes.getHiddenPairs();
+        if (hidden.length > 0) {
+            firstCardIndex = hidden[hidden.length - 2];
+            secondCardIndex = hidden[hidden.length - 1];
+            hideTimer.start();
+        }
+
+        if (changes.getAttempts() >= 0) {
+            showAttempts(changes.getAttempts());
+        }
+        if (changes.getMatchesFound() >= 0) {
+            matchesLabel.setText("Parejas: " + changes.getMatchesFound());
+        }
+
+        if (changes.isGameWon()) {
+            showGameWon(changes.getWonAttempts());
+        }
+
+        if (changes.isAttemptLimitReached()) {
+            // El motor ya reinició la partida; se muestra el aviso y luego el
+            // tablero nuevo
+            showGameOver(changes.getAttemptLimit());
+            executeGameReset();
+        } else if (changes.isReset()) {
+            executeGameReset();
+        }
     }
 
     /**
-     * Implementación de GameListener. Se encarga de actualizar el contador de
-     * parejas encontradas.
+     * Actualiza el contador de intentos.
      *
-     * @param matchesFound Parejas encontradas
+     * @param attempts Intentos realizados
      */
-    @Override
-    public void onMatchCountChanged(int matchesFound) {
-        SwingUtilities.invokeLater(() -> {
-            matchesLabel.setText("Parejas: " + matchesFound);
-        });
+    private void showAttempts(int attempts) {
+        attemptsLabel.setText("Intentos: " + attempts + " / " + engine.getAttemptLimit());
+        if (attempts > engine.getAttemptLimit()) {
+            attemptsLabel.setForeground(Color.RED);
+        } else {
+            attemptsLabel.setForeground(Color.BLACK);
+        }
     }
 
     /**
-     * Implementación de GameListener. Se encarga de mostrar el mensaje de
-     * victoria cuando el jugador gana el juego.
+     * Muestra el mensaje de victoria cuando el jugador gana el juego.
      *
      * @param attempts Intentos realizados para ganar el juego
      */
-    @Override
-    public void onGameWon(int attempts) {
-        SwingUtilities.invokeLater(() -> {
-            statusLabel.setText("¡Felicidades! Ganaste en " + attempts + " intentos.");
-            statusLabel.setForeground(new Color(0, 150, 0));
+    private void showGameWon(int attempts) {
+        statusLabel.setText("¡Felicidades! Ganaste en " + attempts + " intentos.");
+        statusLabel.setForeground(new Color(0, 150, 0));
 
-            String message = String.format(GAME_WON_MESSAGE, attempts, engine.getAttemptLimit());
+        String message = String.format(GAME_WON_MESSAGE, attempts, engine.getAttemptLimit());
 
-            JOptionPane.showMessageDialog(
-                    this,
-                    message,
-                    "¡Victoria!",
-                    JOptionPane.INFORMATION_MESSAGE
-            );
-        });
+        JOptionPane.showMessageDialog(
+                this,
+                message,
+                "¡Victoria!",
+                JOptionPane.INFORMATION_MESSAGE
+        );
     }
 
     /**
-     * Implementación de GameListener. Se encarga de mostrar el mensaje de
-     * derrota cuando el jugador alcanza el límite de intentos.
+     * Muestra el mensaje de derrota cuando el jugador alcanza el límite de
+     * intentos.
      *
      * @param attemptLimit Límite de intentos
      */
-    @Override
-    public void onGameOverAttemptLimit(int attemptLimit) {
-
-        gameOverDialogOpen = true;
-
-        SwingUtilities.invokeLater(() -> {
-            statusLabel.setText("Límite de intentos alcanzado.");
-            statusLabel.setForeground(Color.RED);
+    private void showGameOver(int attemptLimit) {
+        statusLabel.setText("Límite de intentos alcanzado.");
+        statusLabel.setForeground(Color.RED);
 
-            String message = String.format(GAME_LOST_MESSAGE, attemptLimit);
+        String message = String.format(GAME_LOST_MESSAGE, attemptLimit);
 
-            JOptionPane.showMessageDialog(
-                    this,
-                    message,
-                    "Fin del Juego",
-                    JOptionPane.WARNING_MESSAGE
-            );
-
-            gameOverDialogOpen = false;
-
-            executeGameReset();
-        });
+        JOptionPane.showMessageDialog(
+                this,
+                message,
+                "Fin del Juego",
+                JOptionPane.WARNING_MESSAGE
+        );
     }
 
     /**
      * Ejecuta el reinicio del juego.
      */
     private void executeGameReset() {
+        metrics.recordReset();
         if (initialRevealTimer != null) {
             initialRevealTimer.stop();
             initialRevealTimer = null;
@@ -465,7 +387,7 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
         }
         hideTimer.stop();
 
-        updateAllCards();
+        refreshChangedCards();
         attemptsLabel.setText("Intentos: 0 / " + engine.getAttemptLimit());
         attemptsLabel.setForeground(Color.BLACK);
         matchesLabel.setText("Parejas: 0");
@@ -478,67 +400,20 @@ public class MemoAnimaliaController extends JPanel implements MemoAnimaliaEngine
     }
 
     /**
-     * Implementación de GameListener. Se encarga de reiniciar el juego cuando
-     * el jugador lo desea.
-     */
-    @Override
-    public void onGameReset() {
-        SwingUtilities.invokeLater(() -> {
-            // Si estamos esperando que el usuario cierre el diálogo de fin de juego,
-            // no reiniciar todavía
-            if (gameOverDialogOpen) {
-                return;
-            }
-
-            // Detener cualquier timer activo
-            if (initialRevealTimer != null) {
-                initialRevealTimer.stop();
-                initialRevealTimer = null;
-            }
-            if (countdownTimer != null) {
-                countdownTimer.stop();
-                countdownTimer = null;
-            }
-            hideTimer.stop();
-
-            updateAllCards();
-            attemptsLabel.setText("Intentos: 0 / " + engine.getAttemptLimit());
-            attemptsLabel.setForeground(Color.BLACK);
-            matchesLabel.setText("Parejas: 0");
-            statusLabel.setText("¡Encuentra las parejas!");
-            statusLabel.setForeground(new Color(0, 100, 0));
-            resetIndexes();
-
-            // Mostrar todas las cartas por 3 segundos nuevamente
-            showAllCardsTemporarily();
-        });
-    }
-
-    /**
-     * Listener para los botones de cartas. Se encarga de manejar el evento de
-     * clic en un botón de carta.
+     * Maneja el clic sobre una carta del tablero.
      *
      * @param cardIndex Índice de la carta seleccionada
      */
-    private class CardButtonListener implements ActionListener {
-
-        private final int cardIndex;
-
-        public CardButtonListener(int cardIndex) {
-            this.cardIndex = cardIndex;
+    private void onCardSelected(int cardIndex) {
+        // No permitir click en cartas ya emparejadas o reveladas
+        if (engine.isMatched(cardIndex) || engine.isRevealed(cardIndex)) {
+            return;
         }
 
-        @Override
-        public void actionPerformed(ActionEvent e) {
-            MemoAnimaliaEngine.Card card = engine.getCard(cardIndex);
-
-            // No permitir click en cartas ya emparejadas o reveladas
-            if (card.isMatched() || card.isRevealed()) {
-                return;
-            }
-
-            // Intentar voltear la carta
-            engine.flipCard(cardIndex);
-        }
+        // Intentar voltear la carta; la latencia incluye los listeners
+        // síncronos del motor
+        long start = metrics.startFlipTimer();
+        MemoAnimaliaEngine.FlipResult result = engine.flipCard(cardIndex);
+        metrics.recordFlip(result, start);
     }
 }
@@ -21,8 +21,11 @@
  * solo la lógica y el estado del juego.
  * =============================================================
  */
+import java.lang.invoke.VarHandle;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
 
 public class MemoAnimaliaEngine {
 
@@ -60,7 +63,8 @@ public class MemoAnimaliaEngine {
      * ------------------------------------------------------------- Representa
      * una carta individual en el juego. Cada carta tiene un ID (generalmente el
      * nombre del animal) y estados booleanos para saber si está revelada y si
-     * ya fue emparejada.
+     * ya fue emparejada. Las cartas que entrega el motor son vistas sobre su
+     * tablero empaquetado (ver CardView).
      * =============================================================
      */
     public static class Card {
@@ -138,9 +142,278 @@ public class MemoAnimaliaEngine {
 
         void onGameOverAttemptLimit(int attemptLimit);
 
+        /**
+         * Se llama dentro del flipCard que agotó los intentos (y de
+         * resetForNewGame), así que debe ser barato: el trabajo pesado, como
+         * repintar el tablero, conviene diferirlo igual que hace
+         * CoalescingGameListener.
+         */
         void onGameReset();
     }
 
+    /**
+     * =============================================================
+     * Interfaz MoveRecorder
+     * ------------------------------------------------------------- Recibe
+     * lo mínimo para reproducir una sesión: la semilla de cada partida y las
+     * cartas volteadas y ocultadas, en orden. Solo se informan las llamadas
+     * que cambiaron el estado del tablero.
+     * =============================================================
+     */
+    public interface MoveRecorder {
+
+        void gameStarted(long gameSeed);
+
+        void cardFlipped(int index);
+
+        void cardHidden(int index);
+    }
+
+    /**
+     * =============================================================
+     * Clase GameState
+     * ------------------------------------------------------------- Copia
+     * compacta del estado de una partida: disposición, bits de cartas
+     * reveladas y emparejadas, contadores y primera carta del turno. Se llena
+     * con captureState() y se aplica con restoreState(); puede reutilizarse
+     * para no reservar memoria en cada captura.
+     * =============================================================
+     */
+    public static final class GameState {
+
+        private final int[] symbols;
+        private final long[] revealedBits;
+        private final long[] matchedBits;
+        private int attempts;
+        private int matchesFound;
+        private int firstSelectedIndex;
+        private long gameSeed;
+        private boolean hasGameSeed;
+
+        /**
+         * Estado vacío para un tablero de la cantidad de cartas indicada
+         */
+        public GameState(int size) {
+            this.symbols = new int[size];
+            this.revealedBits = new long[(size + 63) >>> 6];
+            this.matchedBits = new long[(size + 63) >>> 6];
+            this.firstSelectedIndex = NO_SELECTION;
+        }
+
+        /**
+         * Estado a partir de sus partes, por ejemplo leídas de un archivo. Los
+         * arreglos se usan sin copiar.
+         */
+        GameState(int[] symbols, long[] revealedBits, long[] matchedBits, int attempts, int matchesFound,
+                int firstSelectedIndex, long gameSeed, boolean hasGameSeed) {
+            this.symbols = symbols;
+            this.revealedBits = revealedBits;
+            this.matchedBits = matchedBits;
+            this.attempts = attempts;
+            this.matchesFound = matchesFound;
+            this.firstSelectedIndex = firstSelectedIndex;
+            this.gameSeed = gameSeed;
+            this.hasGameSeed = hasGameSeed;
+        }
+
+        public int getSize() {
+            return symbols.length;
+        }
+
+        int[] symbols() {
+            return symbols;
+        }
+
+        long[] revealedBits() {
+            return revealedBits;
+        }
+
+        long[] matchedBits() {
+            return matchedBits;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public int getMatchesFound() {
+            return matchesFound;
+        }
+
+        /**
+         * Primera carta del turno en curso, o -1 si no hay
+         */
+        public int getFirstSelectedIndex() {
+            return firstSelectedIndex;
+        }
+
+        public boolean hasGameSeed() {
+            return hasGameSeed;
+        }
+
+        public long getGameSeed() {
+            return gameSeed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GameState)) {
+                return false;
+            }
+            GameState other = (GameState) o;
+            return attempts == other.attempts && matchesFound == other.matchesFound
+                    && firstSelectedIndex == other.firstSelectedIndex
+                    && hasGameSeed == other.hasGameSeed && gameSeed == other.gameSeed
+                    && Arrays.equals(symbols, other.symbols)
+                    && Arrays.equals(revealedBits, other.revealedBits)
+                    && Arrays.equals(matchedBits, other.matchedBits);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(attempts, matchesFound, firstSelectedIndex, hasGameSeed, gameSeed,
+                    Arrays.hashCode(symbols), Arrays.hashCode(revealedBits), Arrays.hashCode(matchedBits));
+        }
+
+        @Override
+        public String toString() {
+            return "GameState(size=" + symbols.length + ",attempts=" + attempts + ",matches=" + matchesFound
+                    + ",first=" + firstSelectedIndex + ")";
+        }
+    }
+
+    /**
+     * =============================================================
+     * Clase BoardSnapshot
+     * ------------------------------------------------------------- Vista
+     * inmutable y consistente del tablero en una versión dada, obtenida con
+     * snapshot() desde cualquier hilo. Los bits de estado se copian; la
+     * disposición y los nombres se comparten entre todas las instantáneas de
+     * una misma partida.
+     * =============================================================
+     */
+    public static final class BoardSnapshot {
+
+        private final long version;
+        private final int rows;
+        private final int cols;
+        private final Layout layout;
+        private final long[] revealedBits;
+        private final long[] matchedBits;
+        private final int attempts;
+        private final int matchesFound;
+        private final int firstSelectedIndex;
+
+        private BoardSnapshot(long version, int rows, int cols, Layout layout, long[] revealedBits,
+                long[] matchedBits, int attempts, int matchesFound, int firstSelectedIndex) {
+            this.version = version;
+            this.rows = rows;
+            this.cols = cols;
+            this.layout = layout;
+            this.revealedBits = revealedBits;
+            this.matchedBits = matchedBits;
+            this.attempts = attempts;
+            this.matchesFound = matchesFound;
+            this.firstSelectedIndex = firstSelectedIndex;
+        }
+
+        /**
+         * Cantidad de escrituras terminadas en el motor cuando se tomó; dos
+         * instantáneas con la misma versión son iguales
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getCols() {
+            return cols;
+        }
+
+        public int getSize() {
+            return layout.symbols.length;
+        }
+
+        public boolean isRevealed(int index) {
+            Objects.checkIndex(index, getSize());
+            return testBit(revealedBits, index);
+        }
+
+        public boolean isMatched(int index) {
+            Objects.checkIndex(index, getSize());
+            return testBit(matchedBits, index);
+        }
+
+        public int getSymbolId(int index) {
+            Objects.checkIndex(index, getSize());
+            return layout.symbols[index];
+        }
+
+        /**
+         * Nombre del animal de la carta en una posición
+         */
+        public String getCardId(int index) {
+            Objects.checkIndex(index, getSize());
+            return layout.names[layout.symbols[index]];
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public int getMatchesFound() {
+            return matchesFound;
+        }
+
+        /**
+         * Primera carta del turno en curso, o -1 si no hay
+         */
+        public int getFirstSelectedIndex() {
+            return firstSelectedIndex;
+        }
+
+        public boolean isGameWon() {
+            return matchesFound >= getSize() / 2;
+        }
+
+        /**
+         * Cantidad de cartas emparejadas
+         */
+        public int getMatchedCount() {
+            int count = 0;
+            for (long word : matchedBits) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "BoardSnapshot(version=" + version + ",size=" + getSize() + ",attempts=" + attempts
+                    + ",matches=" + matchesFound + ",first=" + firstSelectedIndex + ")";
+        }
+    }
+
+    /**
+     * Copia inmutable de la disposición de una partida, compartida por las
+     * instantáneas mientras no cambie
+     */
+    private static final class Layout {
+
+        final long version;
+        final int[] symbols;
+        final String[] names;
+
+        Layout(long version, int[] symbols, String[] names) {
+            this.version = version;
+            this.symbols = symbols;
+            this.names = names;
+        }
+    }
+
     /**
      * Cantidad de filas del tablero
      */
@@ -159,9 +432,94 @@ public class MemoAnimaliaEngine {
     private final int attemptLimit;
 
     /**
-     * Lista que contiene todas las cartas del tablero
+     * Tabla de símbolos del mazo: nombre del animal asociado a cada id entero
      */
-    private final List<Card> board = new ArrayList<>();
+    private String[] symbolNames = new String[0];
+    /**
+     * Id de símbolo de la carta en cada posición del tablero. Puede
+     * reemplazarse por una disposición ya mezclada del pool.
+     */
+    private int[] symbols;
+    /**
+     * Mazo en su orden original; las partidas con semilla se mezclan a partir
+     * de él para que la disposición dependa solo de la semilla
+     */
+    private int[] deck;
+    /**
+     * Bits de cartas reveladas en el turno actual (64 cartas por palabra)
+     */
+    private final long[] revealedBits;
+    /**
+     * Bits de cartas ya emparejadas (64 cartas por palabra)
+     */
+    private final long[] matchedBits;
+    /**
+     * Bits de cartas cuyo estado cambió desde el último drainDirty()
+     */
+    private final long[] dirtyBits;
+    /**
+     * Resumen de dirtyBits: un bit por palabra con algún bit encendido, para
+     * que drainDirty() no recorra las palabras limpias
+     */
+    private final long[] dirtyWords;
+    /**
+     * Vistas Card sobre el tablero empaquetado, creadas bajo demanda
+     */
+    private Card[] cardViews;
+
+    /**
+     * Pool opcional de disposiciones ya mezcladas para nuevas partidas
+     */
+    private BoardLayoutPool layoutPool;
+
+    /**
+     * Semilla del motor; solo tiene sentido si seeded es true
+     */
+    private final long seed;
+    private final boolean seeded;
+    /**
+     * Partidas iniciadas, usado para derivar la semilla de cada partida
+     */
+    private long gameNumber;
+    /**
+     * Semilla de la partida actual; válida solo si hasGameSeed es true (las
+     * partidas que salen del pool no tienen)
+     */
+    private long gameSeed;
+    private boolean hasGameSeed;
+
+    /**
+     * Registro opcional de jugadas (ver GameJournal)
+     */
+    private MoveRecorder recorder;
+
+    /**
+     * Secuencia del seqlock de snapshot(): impar mientras el motor está en
+     * medio de una escritura. Solo la escribe el hilo que juega. Sin
+     * instantáneas concurrentes avanza de a dos al terminar cada escritura,
+     * con un solo store release y sin barreras al empezar.
+     */
+    private final AtomicLong writeSequence = new AtomicLong();
+    /**
+     * Activa el seqlock; ver enableConcurrentSnapshots()
+     */
+    private boolean concurrentSnapshots;
+    /**
+     * Escrituras anidadas en curso (un flip puede reiniciar la partida)
+     */
+    private int writeDepth;
+    /**
+     * Hilo con una escritura en curso, o null
+     */
+    private Thread writer;
+    /**
+     * Cambia cada vez que cambia la disposición de las cartas
+     */
+    private long layoutVersion;
+    /**
+     * Última disposición copiada por snapshot(), para compartirla
+     */
+    private volatile Layout sharedLayout;
 
     /**
      * Listener para notificar eventos hacia la interfaz
@@ -177,20 +535,70 @@ public class MemoAnimaliaEngine {
      */
     private int matchesFound = 0;
 
+    /**
+     * Valor de firstSelectedIndex cuando no hay carta seleccionada
+     */
+    private static final int NO_SELECTION = -1;
+
     /**
      * Índice de la primera carta seleccionada en un turno
      */
-    private Integer firstSelectedIndex = null;
+    private int firstSelectedIndex = NO_SELECTION;
+    /**
+     * Primera carta del último turno cerrado, para avisar al listener
+     */
+    private int turnFirstIndex = NO_SELECTION;
 
     /**
      * Constructor principal del motor del juego.
      */
     public MemoAnimaliaEngine(int rows, int cols, List<String> imageIds, int attemptLimit) {
+        this(rows, cols, attemptLimit, false, 0L);
+        initBoard(imageIds);
+    }
+
+    /**
+     * Constructor de un motor determinista: la disposición de cada partida
+     * depende solo de la semilla y del número de partida, así que dos motores
+     * con los mismos parámetros juegan exactamente las mismas partidas.
+     *
+     * @param seed Semilla del motor
+     */
+    public MemoAnimaliaEngine(int rows, int cols, List<String> imageIds, int attemptLimit, long seed) {
+        this(rows, cols, attemptLimit, true, seed);
+        initBoard(imageIds);
+    }
+
+    /**
+     * Constructor a partir de un mazo ya armado, usado para reproducir un
+     * GameJournal
+     *
+     * @param names Nombre de cada id de símbolo
+     * @param deck Mazo en su orden original
+     */
+    MemoAnimaliaEngine(int rows, int cols, String[] names, int[] deck, int attemptLimit) {
+        this(rows, cols, attemptLimit, false, 0L);
+        if (deck.length != size) {
+            throw new IllegalArgumentException("El mazo tiene " + deck.length + " cartas y el tablero " + size);
+        }
+        System.arraycopy(deck, 0, symbols, 0, size);
+        symbolNames = names.clone();
+        this.deck = deck.clone();
+        startNewGame();
+    }
+
+    private MemoAnimaliaEngine(int rows, int cols, int attemptLimit, boolean seeded, long seed) {
         this.rows = rows;
         this.cols = cols;
         this.size = rows * cols;
         this.attemptLimit = attemptLimit;
-        initBoard(imageIds);
+        this.seeded = seeded;
+        this.seed = seed;
+        this.symbols = new int[size];
+        this.revealedBits = new long[(size + 63) >>> 6];
+        this.matchedBits = new long[(size + 63) >>> 6];
+        this.dirtyBits = new long[revealedBits.length];
+        this.dirtyWords = new long[(dirtyBits.length + 63) >>> 6];
     }
 
     /**
@@ -214,6 +622,39 @@ public class MemoAnimaliaEngine {
         this.listener = l;
     }
 
+    /**
+     * Asigna un registro de jugadas. Con un registro activo las partidas nuevas
+     * no salen del pool, para que todas tengan semilla.
+     */
+    public void setRecorder(MoveRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Activa un pool de disposiciones ya mezcladas. A partir de aquí cada
+     * nueva partida toma una disposición del pool (un intercambio de
+     * referencias) y solo mezcla en el momento si el pool está vacío. Los
+     * motores con semilla no usan el pool.
+     *
+     * @param capacity Cantidad máxima de disposiciones preparadas
+     * @return El pool, para consultar sus métricas
+     */
+    public BoardLayoutPool enableLayoutPool(int capacity) {
+        layoutPool = new BoardLayoutPool(symbols.clone(), capacity);
+        return layoutPool;
+    }
+
+    /**
+     * Desactiva el pool de disposiciones
+     */
+    public void disableLayoutPool() {
+        layoutPool = null;
+    }
+
+    public BoardLayoutPool getLayoutPool() {
+        return layoutPool;
+    }
+
     /**
      * Lista de animales predefinidos.
      */
@@ -225,12 +666,13 @@ public class MemoAnimaliaEngine {
      * =============================================================
      * Inicialización del tablero
      * ------------------------------------------------------------- Crea las
-     * cartas en forma de parejas, mezcla sus posiciones y reinicia contadores
-     * del juego. =============================================================
+     * cartas en forma de parejas una sola vez por motor y luego arranca la
+     * primera partida. =============================================================
      */
     private void initBoard(List<String> imageIds) {
+        MemoAnimaliaEvents.BoardInitEvent event = new MemoAnimaliaEvents.BoardInitEvent();
+        event.begin();
 
-        board.clear();
         int pairs = size / 2;
 
         List<String> ids = new ArrayList<>(imageIds != null ? imageIds : defaultImageIds());
@@ -238,26 +680,260 @@ public class MemoAnimaliaEngine {
             ids.addAll(ids);
         }
 
+        // Cada nombre distinto recibe un id entero; las comparaciones del
+        // juego se hacen sobre estos ids y nunca sobre cadenas
+        Map<String, Integer> symbolIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int slot = 0;
         for (int i = 0; i < pairs; ++i) {
-            String id = ids.get(i);
-            board.add(new Card(id));
-            board.add(new Card(id));
+            int symbol = internSymbol(ids.get(i), symbolIds, names);
+            symbols[slot++] = symbol;
+            symbols[slot++] = symbol;
         }
 
         if (size % 2 == 1) {
             String extraId = (ids.size() > pairs) ? ids.get(pairs) : "Extra";
-            board.add(new Card(extraId));
+            symbols[slot] = internSymbol(extraId, symbolIds, names);
+        }
+        symbolNames = names.toArray(new String[0]);
+        deck = symbols.clone();
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.cols = cols;
+            event.symbols = symbolNames.length;
+            event.commit();
         }
 
-        Collections.shuffle(board, ThreadLocalRandom.current());
+        startNewGame();
+    }
+
+    /**
+     * =============================================================
+     * Nueva partida
+     * ------------------------------------------------------------- Vuelve a
+     * mezclar en su lugar las cartas del mazo original y reinicia contadores.
+     * No reserva memoria: reutiliza el arreglo de símbolos, los bits de estado
+     * y las vistas Card ya creadas. Con un pool activo, la mezcla se reemplaza
+     * por el intercambio con una disposición preparada en segundo plano.
+     *
+     * Fuera del pool cada partida tiene una semilla propia (derivada de la del
+     * motor, o al azar si no tiene) y su disposición se obtiene mezclando el
+     * mazo original con esa semilla, así que la partida puede reproducirse.
+     * =============================================================
+     */
+    private void startNewGame() {
+        int[] layout = layoutPool != null && !seeded && recorder == null ? layoutPool.take() : null;
+        if (layout != null) {
+            MemoAnimaliaEvents.ShuffleEvent event = new MemoAnimaliaEvents.ShuffleEvent();
+            event.begin();
+            layoutPool.recycle(symbols);
+            symbols = layout;
+            hasGameSeed = false;
+            event.end();
+            if (event.shouldCommit()) {
+                event.size = size;
+                event.fromPool = true;
+                event.commit();
+            }
+            resetState();
+        } else {
+            gameNumber++;
+            startGame(seeded ? mix64(seed + gameNumber * GOLDEN_GAMMA) : ThreadLocalRandom.current().nextLong());
+        }
+    }
+
+    /**
+     * Inicia la partida que corresponde a una semilla de partida
+     */
+    private void startGame(long newGameSeed) {
+        MemoAnimaliaEvents.ShuffleEvent event = new MemoAnimaliaEvents.ShuffleEvent();
+        event.begin();
+        gameSeed = newGameSeed;
+        hasGameSeed = true;
+        System.arraycopy(deck, 0, symbols, 0, size);
+        shuffle(symbols, newGameSeed);
+        event.end();
+        if (event.shouldCommit()) {
+            event.size = size;
+            event.gameSeed = newGameSeed;
+            event.commit();
+        }
+        if (recorder != null) {
+            recorder.gameStarted(newGameSeed);
+        }
+        resetState();
+    }
+
+    /**
+     * Limpia cartas y contadores. Quien la llama avisa al listener cuando
+     * termina la escritura.
+     */
+    private void resetState() {
+        layoutVersion++;
+        // Solo las cartas que estaban reveladas o emparejadas cambian de estado
+        for (int w = 0; w < revealedBits.length; ++w) {
+            long changed = revealedBits[w] | matchedBits[w];
+            if (changed != 0) {
+                markDirty(w, changed);
+                revealedBits[w] = 0L;
+                matchedBits[w] = 0L;
+            }
+        }
 
         attempts = 0;
         matchesFound = 0;
-        firstSelectedIndex = null;
+        firstSelectedIndex = NO_SELECTION;
+    }
 
-        if (listener != null) {
-            listener.onGameReset();
+    /**
+     * Devuelve el id entero de un nombre de símbolo, registrándolo si es nuevo
+     */
+    private static int internSymbol(String name, Map<String, Integer> symbolIds, List<String> names) {
+        Integer symbol = symbolIds.get(name);
+        if (symbol == null) {
+            symbol = names.size();
+            symbolIds.put(name, symbol);
+            names.add(name);
         }
+        return symbol;
+    }
+
+    /**
+     * Incremento de SplitMix64
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Función de mezcla de SplitMix64
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Mezcla en su lugar con Fisher-Yates usando SplitMix64 a partir de una
+     * semilla. No reserva memoria y el resultado depende solo de la semilla y
+     * del contenido inicial del arreglo.
+     */
+    static void shuffle(int[] values, long seed) {
+        long state = seed;
+        for (int i = values.length - 1; i > 0; --i) {
+            state += GOLDEN_GAMMA;
+            // 32 bits altos escalados a [0, i]
+            int j = (int) (((mix64(state) >>> 32) * (i + 1)) >>> 32);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    /**
+     * Mezcla en su lugar un arreglo de símbolos con Fisher-Yates
+     */
+    static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    // -------------------------------------------------------------
+    // BITS DE ESTADO DE LAS CARTAS
+    // -------------------------------------------------------------
+    private static boolean testBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Cambia un bit de estado y, si realmente cambió, marca la carta como
+     * modificada
+     */
+    private void setBit(long[] bits, int index, boolean value) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long old = bits[word];
+        long updated = value ? old | mask : old & ~mask;
+        if (updated != old) {
+            bits[word] = updated;
+            markDirty(word, mask);
+        }
+    }
+
+    private void markDirty(int word, long mask) {
+        dirtyBits[word] |= mask;
+        dirtyWords[word >>> 6] |= 1L << word;
+    }
+
+    /**
+     * ============================================================= Clase
+     * interna CardView
+     * ------------------------------------------------------------- Card que
+     * no guarda estado propio: lee y escribe directamente los arreglos
+     * empaquetados del motor para su posición en el tablero.
+     * =============================================================
+     */
+    private final class CardView extends Card {
+
+        private final int index;
+
+        private CardView(int index) {
+            super(null);
+            this.index = index;
+        }
+
+        @Override
+        public String getId() {
+            return symbolNames[symbols[index]];
+        }
+
+        @Override
+        public boolean isRevealed() {
+            return testBit(revealedBits, index);
+        }
+
+        @Override
+        public void setRevealed(boolean r) {
+            beginWrite();
+            setBit(revealedBits, index, r);
+            endWrite();
+        }
+
+        @Override
+        public boolean isMatched() {
+            return testBit(matchedBits, index);
+        }
+
+        @Override
+        public void setMatched(boolean m) {
+            beginWrite();
+            setBit(matchedBits, index, m);
+            endWrite();
+        }
+
+        @Override
+        public String toString() {
+            return "Card(" + getId() + ",rev=" + isRevealed() + ",mat=" + isMatched() + ")";
+        }
+    }
+
+    /**
+     * Crea las vistas Card la primera vez que alguien las pide. Los juegos
+     * sin interfaz nunca llegan a crearlas.
+     */
+    private Card[] cardViews() {
+        if (cardViews == null) {
+            Card[] views = new Card[size];
+            for (int i = 0; i < size; ++i) {
+                views[i] = new CardView(i);
+            }
+            cardViews = views;
+        }
+        return cardViews;
     }
 
     // -------------------------------------------------------------
@@ -288,11 +964,207 @@ public class MemoAnimaliaEngine {
     }
 
     public Card getCard(int index) {
-        return board.get(index);
+        Objects.checkIndex(index, size);
+        return cardViews()[index];
     }
 
+    /**
+     * Vista de solo lectura sobre las cartas vivas del motor: refleja los
+     * cambios posteriores y no debe leerse desde otro hilo. Para eso está
+     * snapshot().
+     */
     public List<Card> getBoardSnapshot() {
-        return Collections.unmodifiableList(board);
+        return Collections.unmodifiableList(Arrays.asList(cardViews()));
+    }
+
+    // -------------------------------------------------------------
+    // INSTANTÁNEAS CONSISTENTES (SEQLOCK)
+    // -------------------------------------------------------------
+    /**
+     * Abre una escritura: la secuencia queda impar hasta endWrite(). Las
+     * escrituras anidadas solo cuentan una vez.
+     */
+    private void beginWrite() {
+        if (writeDepth++ == 0 && concurrentSnapshots) {
+            writer = Thread.currentThread();
+            writeSequence.setOpaque(writeSequence.getPlain() + 1);
+            // Que ningún cambio del estado se vea antes de la secuencia impar
+            VarHandle.storeStoreFence();
+        }
+    }
+
+    private void endWrite() {
+        if (--writeDepth == 0) {
+            if (concurrentSnapshots) {
+                writer = null;
+                writeSequence.setRelease(writeSequence.getPlain() + 1);
+            } else {
+                writeSequence.setRelease(writeSequence.getPlain() + 2);
+            }
+        }
+    }
+
+    /**
+     * Permite llamar a snapshot() desde otros hilos mientras se juega. Cada
+     * escritura pasa a pagar el seqlock, así que los motores que nadie lee
+     * desde afuera (simulaciones, reproducciones) no deberían activarlo. Debe
+     * llamarse desde el hilo que juega antes de compartir el motor, y no
+     * desde un listener.
+     */
+    public void enableConcurrentSnapshots() {
+        if (writeDepth != 0) {
+            throw new IllegalStateException("No se pueden activar las instantáneas en medio de una escritura");
+        }
+        concurrentSnapshots = true;
+    }
+
+    public boolean hasConcurrentSnapshots() {
+        return concurrentSnapshots;
+    }
+
+    /**
+     * Toma una instantánea inmutable y consistente del tablero. Puede
+     * llamarse desde cualquier hilo y nunca frena al que juega: copia el
+     * estado sin candados y vuelve a intentar si en el medio hubo una
+     * escritura. Nunca ve un turno a medias (una carta emparejada y su
+     * compañera no, o intentos sin la carta que los sumó).
+     *
+     * Desde otros hilos requiere enableConcurrentSnapshots(); sin eso solo
+     * puede llamarse desde el hilo que juega. Los listeners se avisan fuera
+     * de la escritura, así que desde un GameListener (o un suscriptor de
+     * GameEventPublisher que bloquea al motor) se ve el flip ya completo y
+     * nunca se queda esperando.
+     *
+     * El costo es copiar dos bits por carta; la disposición se copia una
+     * sola vez por partida y se comparte entre instantáneas.
+     */
+    public BoardSnapshot snapshot() {
+        if (!concurrentSnapshots || writer == Thread.currentThread()) {
+            return readSnapshot(writeSequence.getPlain() >>> 1);
+        }
+        for (int spins = 0;; ++spins) {
+            long before = writeSequence.getAcquire();
+            if ((before & 1) == 0) {
+                BoardSnapshot snapshot = readSnapshot(before >>> 1);
+                // Las lecturas de la copia no pueden pasar a después de
+                // releer la secuencia
+                VarHandle.acquireFence();
+                if (writeSequence.getOpaque() == before) {
+                    if (snapshot.layout != sharedLayout) {
+                        sharedLayout = snapshot.layout;
+                    }
+                    return snapshot;
+                }
+            }
+            if (spins < 64) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Copia el estado sin sincronizar; snapshot() descarta las copias que se
+     * cruzaron con una escritura
+     */
+    private BoardSnapshot readSnapshot(long version) {
+        Layout layout = sharedLayout;
+        long currentLayout = layoutVersion;
+        if (layout == null || layout.version != currentLayout) {
+            int[] currentSymbols = symbols;
+            layout = new Layout(currentLayout, Arrays.copyOf(currentSymbols, size), symbolNames);
+        }
+        return new BoardSnapshot(version, rows, cols, layout, revealedBits.clone(), matchedBits.clone(),
+                attempts, matchesFound, firstSelectedIndex);
+    }
+
+    /**
+     * Versión del tablero: cantidad de escrituras terminadas. Es la que
+     * tendría una instantánea tomada ahora.
+     */
+    public long getVersion() {
+        return writeSequence.get() >>> 1;
+    }
+
+    public boolean isRevealed(int index) {
+        Objects.checkIndex(index, size);
+        return testBit(revealedBits, index);
+    }
+
+    public boolean isMatched(int index) {
+        Objects.checkIndex(index, size);
+        return testBit(matchedBits, index);
+    }
+
+    /**
+     * Id entero del símbolo en una posición. Dos cartas son pareja si y solo
+     * si tienen el mismo id.
+     */
+    public int getSymbolId(int index) {
+        Objects.checkIndex(index, size);
+        return symbols[index];
+    }
+
+    /**
+     * Nombre del animal asociado a un id de símbolo
+     */
+    public String getSymbolName(int symbolId) {
+        return symbolNames[symbolId];
+    }
+
+    /**
+     * Cantidad de símbolos distintos en el mazo
+     */
+    public int getSymbolCount() {
+        return symbolNames.length;
+    }
+
+    /**
+     * Entrega los índices de las cartas cuyo estado (revelada o emparejada)
+     * cambió desde la llamada anterior, en orden creciente, y los olvida. El
+     * costo depende de la cantidad de cambios y no del tamaño del tablero.
+     *
+     * Al reiniciar solo se marcan las cartas que estaban reveladas o
+     * emparejadas: las que siguen ocultas no cambian de estado aunque la
+     * mezcla les haya dado otro símbolo.
+     *
+     * @param consumer Recibe cada índice modificado
+     * @return Cantidad de índices entregados
+     */
+    public int drainDirty(IntConsumer consumer) {
+        int count = 0;
+        for (int s = 0; s < dirtyWords.length; ++s) {
+            long summary = dirtyWords[s];
+            if (summary == 0) {
+                continue;
+            }
+            dirtyWords[s] = 0L;
+            while (summary != 0) {
+                int word = (s << 6) + Long.numberOfTrailingZeros(summary);
+                summary &= summary - 1;
+                long bits = dirtyBits[word];
+                dirtyBits[word] = 0L;
+                while (bits != 0) {
+                    consumer.accept((word << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Indica si hay cartas modificadas pendientes de drainDirty()
+     */
+    public boolean hasDirty() {
+        for (long summary : dirtyWords) {
+            if (summary != 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -301,101 +1173,290 @@ public class MemoAnimaliaEngine {
      * proceso de voltear cartas: - Primer click → revela carta - Segundo click
      * → compara ambas cartas - Si coinciden → suma acierto - Si no coinciden →
      * se ocultarán después
+     *
+     * Cada llamada emite un MemoAnimaliaEvents.FlipEvent cuando hay una
+     * grabación de JFR activa.
      * =============================================================
      */
     public FlipResult flipCard(int index) {
+        MemoAnimaliaEvents.FlipEvent event = new MemoAnimaliaEvents.FlipEvent();
+        event.begin();
+        FlipResult result;
+        beginWrite();
+        try {
+            result = flip(index);
+        } finally {
+            endWrite();
+        }
+        // Los listeners corren fuera de la escritura, así que un snapshot()
+        // desde otro hilo nunca espera a que terminen
+        if (listener != null) {
+            notifyFlip(index, result);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.index = index;
+            event.result = result.name();
+            event.attempts = attempts;
+            event.commit();
+        }
+        return result;
+    }
 
+    /**
+     * Aplica el flip al estado, sin avisar al listener
+     */
+    private FlipResult flip(int index) {
         if (index < 0 || index >= size) {
             return FlipResult.INVALID_INDEX;
         }
-        Card c = board.get(index);
-        if (c.isMatched() || c.isRevealed()) {
+        if (testBit(matchedBits, index) || testBit(revealedBits, index)) {
             return FlipResult.ALREADY_REVEALED;
         }
 
-        c.setRevealed(true);
-        if (listener != null) {
-            listener.onCardRevealed(index, c);
+        setBit(revealedBits, index, true);
+        if (recorder != null) {
+            recorder.cardFlipped(index);
         }
 
-        if (firstSelectedIndex == null) {
+        if (firstSelectedIndex == NO_SELECTION) {
             firstSelectedIndex = index;
             return FlipResult.OK_REVEALED;
-        } else {
-            int secondIndex = index;
-            Card firstCard = board.get(firstSelectedIndex);
-            Card secondCard = board.get(secondIndex);
+        }
+
+        int firstIndex = firstSelectedIndex;
+        turnFirstIndex = firstIndex;
+        firstSelectedIndex = NO_SELECTION;
+        attempts++;
 
-            attempts++;
-            if (listener != null) {
-                listener.onAttemptChanged(attempts);
+        if (symbols[firstIndex] == symbols[index]) {
+            setBit(matchedBits, firstIndex, true);
+            setBit(matchedBits, index, true);
+            matchesFound++;
+            return FlipResult.MATCH;
+        }
+        return FlipResult.NO_MATCH;
+    }
+
+    /**
+     * Avisa al listener de lo que hizo un flip, en el mismo orden en que
+     * ocurrió, y reinicia la partida si se agotaron los intentos
+     */
+    private void notifyFlip(int index, FlipResult result) {
+        if (result == FlipResult.INVALID_INDEX || result == FlipResult.ALREADY_REVEALED) {
+            return;
+        }
+        listener.onCardRevealed(index, getCard(index));
+        if (result == FlipResult.OK_REVEALED) {
+            return;
+        }
+
+        int firstIndex = turnFirstIndex;
+        listener.onAttemptChanged(attempts);
+        if (result == FlipResult.MATCH) {
+            listener.onCardsMatched(firstIndex, index);
+            listener.onMatchCountChanged(matchesFound);
+            if (isGameWon()) {
+                listener.onGameWon(attempts);
             }
+        } else {
+            listener.onCardsHidden(firstIndex, index);
+        }
 
-            if (firstCard.getId().equals(secondCard.getId())) {
+        if (attempts >= attemptLimit) {
+            listener.onGameOverAttemptLimit(attemptLimit);
+            resetForNewGame();
+        }
+    }
 
-                firstCard.setMatched(true);
-                secondCard.setMatched(true);
-                matchesFound++;
+    /**
+     * Oculta dos cartas (usada si no hicieron pareja)
+     */
+    public void hideCards(int index1, int index2) {
+        beginWrite();
+        try {
+            hideCard(index1);
+            hideCard(index2);
+        } finally {
+            endWrite();
+        }
+    }
 
-                if (listener != null) {
-                    listener.onCardsMatched(firstSelectedIndex, secondIndex);
-                }
-                if (listener != null) {
-                    listener.onMatchCountChanged(matchesFound);
-                }
+    private void hideCard(int index) {
+        if (index >= 0 && index < size && testBit(revealedBits, index)) {
+            setBit(revealedBits, index, false);
+            if (recorder != null) {
+                recorder.cardHidden(index);
+            }
+        }
+    }
 
-                firstSelectedIndex = null;
+    /**
+     * Indica si todas las parejas fueron encontradas
+     */
+    public boolean isGameWon() {
+        return matchesFound >= (size / 2);
+    }
 
-                if (isGameWon() && listener != null) {
-                    listener.onGameWon(attempts);
-                }
+    /**
+     * Reinicia toda la partida desde cero con el mismo mazo
+     */
+    public void resetForNewGame() {
+        beginWrite();
+        try {
+            startNewGame();
+        } finally {
+            endWrite();
+        }
+        if (listener != null) {
+            listener.onGameReset();
+        }
+    }
 
-                if (attempts >= attemptLimit && listener != null) {
-                    listener.onGameOverAttemptLimit(attemptLimit);
-                    resetForNewGame();
-                }
+    /**
+     * Reinicia con la disposición que corresponde a una semilla de partida,
+     * por ejemplo una leída de getGameSeed() o de un GameJournal
+     */
+    public void resetForGame(long gameSeed) {
+        beginWrite();
+        try {
+            startGame(gameSeed);
+        } finally {
+            endWrite();
+        }
+        if (listener != null) {
+            listener.onGameReset();
+        }
+    }
 
-                return FlipResult.MATCH;
-            } else {
-                if (listener != null) {
-                    listener.onCardsHidden(firstSelectedIndex, secondIndex);
-                }
-                firstSelectedIndex = null;
+    /**
+     * Copia el estado de la partida actual en un GameState nuevo
+     */
+    public GameState captureState() {
+        GameState state = new GameState(size);
+        captureState(state);
+        return state;
+    }
 
-                if (attempts >= attemptLimit && listener != null) {
-                    listener.onGameOverAttemptLimit(attemptLimit);
-                    resetForNewGame();
-                }
+    /**
+     * Copia el estado de la partida actual en un GameState existente, sin
+     * reservar memoria
+     */
+    public void captureState(GameState into) {
+        if (into.getSize() != size) {
+            throw new IllegalArgumentException("El estado es de " + into.getSize() + " cartas y el tablero de " + size);
+        }
+        System.arraycopy(symbols, 0, into.symbols, 0, size);
+        System.arraycopy(revealedBits, 0, into.revealedBits, 0, revealedBits.length);
+        System.arraycopy(matchedBits, 0, into.matchedBits, 0, matchedBits.length);
+        into.attempts = attempts;
+        into.matchesFound = matchesFound;
+        into.firstSelectedIndex = firstSelectedIndex;
+        into.gameSeed = gameSeed;
+        into.hasGameSeed = hasGameSeed;
+    }
 
-                return FlipResult.NO_MATCH;
+    /**
+     * Vuelve a un estado capturado antes. Las cartas reveladas o emparejadas
+     * antes o después quedan marcadas como modificadas; no se avisa al
+     * listener.
+     *
+     * @throws IllegalStateException si hay un MoveRecorder conectado, porque
+     * el registro dejaría de poder reproducirse
+     */
+    public void restoreState(GameState state) {
+        if (state.getSize() != size) {
+            throw new IllegalArgumentException("El estado es de " + state.getSize() + " cartas y el tablero de " + size);
+        }
+        if (recorder != null) {
+            throw new IllegalStateException("No se puede restaurar un estado mientras se registran jugadas");
+        }
+        validateState(state);
+        beginWrite();
+        try {
+            for (int w = 0; w < revealedBits.length; ++w) {
+                long changed = revealedBits[w] | matchedBits[w] | state.revealedBits[w] | state.matchedBits[w];
+                if (changed != 0) {
+                    markDirty(w, changed);
+                }
             }
+            System.arraycopy(state.symbols, 0, symbols, 0, size);
+            System.arraycopy(state.revealedBits, 0, revealedBits, 0, revealedBits.length);
+            System.arraycopy(state.matchedBits, 0, matchedBits, 0, matchedBits.length);
+            attempts = state.attempts;
+            matchesFound = state.matchesFound;
+            firstSelectedIndex = state.firstSelectedIndex;
+            gameSeed = state.gameSeed;
+            hasGameSeed = state.hasGameSeed;
+            layoutVersion++;
+        } finally {
+            endWrite();
         }
     }
 
     /**
-     * Oculta dos cartas (usada si no hicieron pareja)
+     * Revisa que un estado pueda ser de este motor antes de tocar nada: la
+     * disposición es una permutación del mazo, los contadores están en rango
+     * y no hay bits fuera del tablero
      */
-    public void hideCards(int index1, int index2) {
-        if (index1 >= 0 && index1 < size) {
-            board.get(index1).setRevealed(false);
+    private void validateState(GameState state) {
+        int pairs = size / 2;
+        if (state.attempts < 0 || state.matchesFound < 0 || state.matchesFound > pairs
+                || state.matchesFound > state.attempts) {
+            throw new IllegalArgumentException("Contadores fuera de rango: " + state);
+        }
+        if (state.firstSelectedIndex < NO_SELECTION || state.firstSelectedIndex >= size) {
+            throw new IllegalArgumentException("Carta elegida fuera del tablero: " + state.firstSelectedIndex);
+        }
+        int[] counts = new int[symbolNames.length];
+        for (int symbol : deck) {
+            counts[symbol]++;
+        }
+        for (int symbol : state.symbols) {
+            if (symbol < 0 || symbol >= counts.length || --counts[symbol] < 0) {
+                throw new IllegalArgumentException("La disposición no es una permutación del mazo: " + state);
+            }
         }
-        if (index2 >= 0 && index2 < size) {
-            board.get(index2).setRevealed(false);
+        int last = revealedBits.length - 1;
+        long outside = (size & 63) == 0 ? 0 : -1L << (size & 63);
+        if (state.revealedBits.length != revealedBits.length || state.matchedBits.length != matchedBits.length
+                || ((state.revealedBits[last] | state.matchedBits[last]) & outside) != 0) {
+            throw new IllegalArgumentException("Bits de cartas fuera del tablero: " + state);
         }
     }
 
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
     /**
-     * Indica si todas las parejas fueron encontradas
+     * Indica si la partida actual tiene semilla (no salió del pool)
      */
-    public boolean isGameWon() {
-        return matchesFound >= (size / 2);
+    public boolean hasGameSeed() {
+        return hasGameSeed;
     }
 
     /**
-     * Reinicia toda la partida desde cero
+     * Semilla de la partida actual
+     *
+     * @throws IllegalStateException si la partida salió del pool
      */
-    public void resetForNewGame() {
-        initBoard(null);
+    public long getGameSeed() {
+        if (!hasGameSeed) {
+            throw new IllegalStateException("La partida actual salió del pool y no tiene semilla");
+        }
+        return gameSeed;
+    }
+
+    /**
+     * Mazo en su orden original. No debe modificarse.
+     */
+    int[] deckSymbols() {
+        return deck;
     }
 
     /**
@@ -1,5 +1,7 @@
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.*;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -78,4 +80,228 @@ class MemoAnimaliaEngineTest {
 
 
     
+    @Test
+    void testCardViewFollowsPackedState() {
+        MemoAnimaliaEngine.Card card = engine.getCard(4);
+        assertFalse(card.isRevealed());
+
+        engine.flipCard(4);
+
+        assertTrue(card.isRevealed(), "La vista Card debe reflejar el estado del tablero");
+        assertTrue(engine.isRevealed(4));
+        assertEquals(engine.getSymbolName(engine.getSymbolId(4)), card.getId());
+    }
+
+    @Test
+    void testSymbolIdsMatchCardIds() {
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(4, 4, Arrays.asList("A", "B", "C"), 20);
+
+        for (int i = 0; i < engine.getSize(); i++) {
+            for (int j = 0; j < engine.getSize(); j++) {
+                boolean sameId = engine.getCard(i).getId().equals(engine.getCard(j).getId());
+                assertEquals(sameId, engine.getSymbolId(i) == engine.getSymbolId(j));
+            }
+        }
+    }
+
+    @Test
+    void testResetKeepsOriginalDeck() {
+        List<String> ids = Arrays.asList("A", "B", "C", "D");
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(2, 4, ids, 20);
+        engine.flipCard(0);
+        engine.flipCard(1);
+
+        engine.resetForNewGame();
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (MemoAnimaliaEngine.Card c : engine.getBoardSnapshot()) {
+            assertFalse(c.isRevealed() || c.isMatched(), "Las cartas deben quedar ocultas tras reiniciar");
+            counts.merge(c.getId(), 1, Integer::sum);
+        }
+        for (String id : ids) {
+            assertEquals(2, counts.get(id), "El reinicio debe conservar el mazo original");
+        }
+        assertEquals(0, engine.getAttempts());
+    }
+
+    @Test
+    void testDrainDirtyReportsOnlyChangedCards() {
+        MemoAnimaliaEngine big = new MemoAnimaliaEngine(100, 100, Arrays.asList("A", "B", "C"), 1000);
+        big.drainDirty(i -> { });
+        assertFalse(big.hasDirty());
+
+        int other = 1;
+        while (big.getSymbolId(other) == big.getSymbolId(0)) {
+            other++;
+        }
+        int second = other + 4000;
+        while (big.getSymbolId(second) == big.getSymbolId(0)) {
+            second++;
+        }
+        big.flipCard(0);
+        big.flipCard(second);
+        big.hideCards(0, second);
+        big.hideCards(0, second); // ya ocultas: no es un cambio
+
+        List<Integer> dirty = new ArrayList<>();
+        assertEquals(2, big.drainDirty(dirty::add));
+        assertEquals(Arrays.asList(0, second), dirty);
+        assertFalse(big.hasDirty(), "drainDirty debe limpiar el conjunto");
+
+        big.flipCard(5);
+        big.drainDirty(i -> { });
+        big.resetForNewGame();
+        dirty.clear();
+        big.drainDirty(dirty::add);
+        assertEquals(Collections.singletonList(5), dirty, "El reinicio solo marca las cartas que no estaban ocultas");
+    }
+
+    @Test
+    void testSnapshotIsImmutableAndVersioned() {
+        MemoAnimaliaEngine.BoardSnapshot before = engine.snapshot();
+        assertEquals(before.getVersion(), engine.snapshot().getVersion());
+
+        engine.flipCard(0);
+        MemoAnimaliaEngine.BoardSnapshot after = engine.snapshot();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertFalse(before.isRevealed(0), "Una instantánea no cambia con el motor");
+        assertTrue(after.isRevealed(0));
+        assertEquals(0, after.getFirstSelectedIndex());
+        assertEquals(engine.getCard(0).getId(), after.getCardId(0));
+    }
+
+    @Test
+    void testQueriesRejectIndexesOutsideTheBoard() {
+        // La última palabra de bits tiene lugar para más cartas que el tablero
+        int size = engine.getSize();
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.isRevealed(size));
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.isMatched(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.getSymbolId(size));
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.snapshot().getSymbolId(size));
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.snapshot().getCardId(-1));
+    }
+
+    @Test
+    void testRestoreRejectsInvalidStatesWithoutChangingTheBoard() throws Exception {
+        MemoAnimaliaEngine shared = new MemoAnimaliaEngine(2, 3, Arrays.asList("A", "B", "C"), 20);
+        shared.enableConcurrentSnapshots();
+        shared.flipCard(0);
+        MemoAnimaliaEngine.GameState before = shared.captureState();
+        int[] symbols = before.symbols().clone();
+        int[] repeated = symbols.clone();
+        repeated[0] = repeated[0] == repeated[1] ? repeated[2] : repeated[1];
+
+        List<MemoAnimaliaEngine.GameState> invalid = Arrays.asList(
+                new MemoAnimaliaEngine.GameState(repeated, new long[1], new long[1], 0, 0, -1, 0L, false),
+                new MemoAnimaliaEngine.GameState(symbols.clone(), new long[1], new long[1], 1, 4, -1, 0L, false),
+                new MemoAnimaliaEngine.GameState(symbols.clone(), new long[1], new long[1], -1, 0, -1, 0L, false),
+                new MemoAnimaliaEngine.GameState(symbols.clone(), new long[1], new long[1], 0, 0, 6, 0L, false),
+                new MemoAnimaliaEngine.GameState(symbols.clone(), new long[] {1L << 6}, new long[1], 0, 0, -1, 0L, false));
+        for (MemoAnimaliaEngine.GameState state : invalid) {
+            assertThrows(IllegalArgumentException.class, () -> shared.restoreState(state), state.toString());
+        }
+        assertEquals(before, shared.captureState());
+
+        // La escritura no quedó abierta: otro hilo puede tomar instantáneas
+        FutureTask<MemoAnimaliaEngine.BoardSnapshot> reader = new FutureTask<>(shared::snapshot);
+        new Thread(reader).start();
+        assertEquals(0, reader.get(5, TimeUnit.SECONDS).getFirstSelectedIndex());
+    }
+
+    @Test
+    void testConcurrentSnapshotsNeverSeeHalfTurns() throws Exception {
+        MemoAnimaliaEngine shared = new MemoAnimaliaEngine(10, 10, Arrays.asList("A", "B", "C", "D", "E", "F", "G"),
+                Integer.MAX_VALUE, 7L);
+        shared.enableConcurrentSnapshots();
+        int size = shared.getSize();
+        Thread player = new Thread(() -> {
+            Random random = new Random(1);
+            for (int turn = 0; turn < 200_000; ++turn) {
+                if (shared.isGameWon()) {
+                    shared.resetForNewGame();
+                }
+                int a = hiddenCard(shared, random, -1);
+                int b = hiddenCard(shared, random, a);
+                shared.flipCard(a);
+                if (shared.flipCard(b) == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                    shared.hideCards(a, b);
+                }
+            }
+        });
+        player.start();
+
+        long lastVersion = -1;
+        int checked = 0;
+        while (player.isAlive() || checked == 0) {
+            MemoAnimaliaEngine.BoardSnapshot s = shared.snapshot();
+            assertTrue(s.getVersion() >= lastVersion);
+            lastVersion = s.getVersion();
+            int matched = 0;
+            int loose = 0;
+            for (int i = 0; i < size; ++i) {
+                if (s.isMatched(i)) {
+                    matched++;
+                    assertTrue(s.isRevealed(i), "Una carta emparejada está revelada");
+                } else if (s.isRevealed(i)) {
+                    loose++;
+                }
+            }
+            assertEquals(2 * s.getMatchesFound(), matched, "Las parejas se ven completas");
+            assertTrue(loose <= 2, "A lo sumo un turno abierto: " + loose);
+            int first = s.getFirstSelectedIndex();
+            if (first >= 0) {
+                assertTrue(s.isRevealed(first) && !s.isMatched(first));
+                assertEquals(1, loose);
+            }
+            checked++;
+        }
+        player.join();
+        assertEquals(shared.getVersion(), shared.snapshot().getVersion());
+    }
+
+    @Test
+    void testListenerCanWaitForSnapshotFromAnotherThread() throws Exception {
+        MemoAnimaliaEngine shared = new MemoAnimaliaEngine(2, 3, Arrays.asList("A", "B", "C"), 20);
+        shared.enableConcurrentSnapshots();
+        List<MemoAnimaliaEngine.BoardSnapshot> seen = new ArrayList<>();
+        shared.setListener(new MemoAnimaliaEngine.GameListener() {
+            public void onCardRevealed(int index, MemoAnimaliaEngine.Card card) { }
+            public void onCardsMatched(int index1, int index2) { }
+            public void onAttemptChanged(int attempts) { }
+            public void onMatchCountChanged(int matchesFound) { }
+            public void onGameWon(int attempts) { }
+            public void onGameOverAttemptLimit(int attemptLimit) { }
+            public void onGameReset() { }
+
+            // Como un suscriptor que frena al motor hasta leer el tablero
+            public void onCardsHidden(int index1, int index2) {
+                Thread reader = new Thread(() -> seen.add(shared.snapshot()));
+                reader.start();
+                try {
+                    reader.join(5_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        int other = 1;
+        while (shared.getSymbolId(other) == shared.getSymbolId(0)) {
+            other++;
+        }
+        shared.flipCard(0);
+        assertEquals(MemoAnimaliaEngine.FlipResult.NO_MATCH, shared.flipCard(other));
+
+        assertEquals(1, seen.size(), "El lector no debe quedar esperando al listener");
+        assertEquals(1, seen.get(0).getAttempts());
+        assertEquals(-1, seen.get(0).getFirstSelectedIndex());
+    }
+
+    private static int hiddenCard(MemoAnimaliaEngine engine, Random random, int except) {
+        int index;
+        do {
+            index = random.nextInt(engine.getSize());
+        } while (index == except || engine.isRevealed(index) || engine.isMatched(index));
+        return index;
+    }
 }
@@ -0,0 +1,114 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos de Java Flight Recorder propios del juego. Aparecen en JMC bajo la
+ * categoría MemoAnimalia; memoanimalia.jfc los activa con umbrales adecuados.
+ *
+ * Mientras no hay una grabación activa, begin/end/commit no hacen nada y el
+ * JIT elimina el objeto del evento, así que el costo en flipCard es nulo.
+ *
+ * Uso: java -XX:StartFlightRecording:settings=memoanimalia.jfc,filename=juego.jfr -jar ...
+ */
+final class MemoAnimaliaEvents {
+
+    private MemoAnimaliaEvents() {
+    }
+
+    @Name("memoanimalia.Flip")
+    @Label("Volteo de carta")
+    @Category({"MemoAnimalia", "Juego"})
+    @StackTrace(false)
+    static final class FlipEvent extends Event {
+
+        @Label("Índice")
+        int index;
+
+        @Label("Resultado")
+        @Description("Valor de MemoAnimaliaEngine.FlipResult")
+        String result;
+
+        @Label("Intentos")
+        int attempts;
+    }
+
+    @Name("memoanimalia.BoardInit")
+    @Label("Inicialización del tablero")
+    @Category({"MemoAnimalia", "Juego"})
+    @StackTrace(false)
+    static final class BoardInitEvent extends Event {
+
+        @Label("Filas")
+        int rows;
+
+        @Label("Columnas")
+        int cols;
+
+        @Label("Símbolos")
+        int symbols;
+    }
+
+    @Name("memoanimalia.Shuffle")
+    @Label("Mezcla del tablero")
+    @Category({"MemoAnimalia", "Juego"})
+    @StackTrace(false)
+    static final class ShuffleEvent extends Event {
+
+        @Label("Cartas")
+        int size;
+
+        @Label("Desde el pool")
+        @Description("La disposición salió del pool ya mezclada")
+        boolean fromPool;
+
+        @Label("Semilla de partida")
+        long gameSeed;
+    }
+
+    @Name("memoanimalia.ImageLoad")
+    @Label("Carga de imagen")
+    @Category({"MemoAnimalia", "Recursos"})
+    @StackTrace(false)
+    static final class ImageLoadEvent extends Event {
+
+        @Label("Archivo")
+        String file;
+
+        @Label("Lado de carta")
+        int cardSize;
+
+        @Label("Desde la caché")
+        boolean fromCache;
+
+        @Label("Bytes del archivo")
+        @DataAmount
+        long fileSize;
+    }
+
+    @Name("memoanimalia.UiBatch")
+    @Label("Lote de actualización en el EDT")
+    @Category({"MemoAnimalia", "Interfaz"})
+    @StackTrace(false)
+    static final class UiBatchEvent extends Event {
+
+        @Label("Eventos del motor")
+        int events;
+
+        @Label("Cartas reveladas")
+        int revealed;
+
+        @Label("Parejas encontradas")
+        int matchedPairs;
+
+        @Label("Parejas ocultadas")
+        int hiddenPairs;
+
+        @Label("Reinicio")
+        boolean reset;
+    }
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.swing.SwingUtilities;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MemoAnimaliaEventsTest {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro");
+
+    @Test
+    void testScriptedGameIsRecorded(@TempDir Path dir) throws Exception {
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("/memoanimalia.jfc"), StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+        Path file = dir.resolve("juego.jfr");
+        int[] batches = new int[1];
+        MemoAnimaliaEngine engine;
+
+        try (Recording recording = new Recording(configuration)) {
+            recording.start();
+
+            // Partida completa con semilla, jugada con memoria perfecta
+            engine = new MemoAnimaliaEngine(3, 4, IDS, 100, 5L);
+            engine.setListener(new CoalescingGameListener(changes -> batches[0]++, new MemoAnimaliaMetrics(false)));
+            Map<Integer, Integer> firstBySymbol = new HashMap<>();
+            for (int i = 0; i < engine.getSize(); i++) {
+                Integer first = firstBySymbol.putIfAbsent(engine.getSymbolId(i), i);
+                if (first != null) {
+                    assertEquals(MemoAnimaliaEngine.FlipResult.OK_REVEALED, engine.flipCard(first));
+                    assertEquals(MemoAnimaliaEngine.FlipResult.MATCH, engine.flipCard(i));
+                }
+            }
+            assertTrue(engine.isGameWon());
+            engine.resetForNewGame();
+            SwingUtilities.invokeAndWait(() -> { });
+
+            ImageResourceManager images = new ImageResourceManager(IDS, 64, null);
+            images.whenAllLoaded().get(30, TimeUnit.SECONDS);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, List<RecordedEvent>> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().startsWith("memoanimalia."))
+                .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+
+        List<RecordedEvent> flips = events.get("memoanimalia.Flip");
+        assertEquals(12, flips.size());
+        assertEquals(6, flips.stream().filter(e -> e.getString("result").equals("MATCH")).count());
+        assertEquals(6, flips.get(flips.size() - 1).getInt("attempts"));
+
+        assertEquals(1, events.get("memoanimalia.BoardInit").size());
+        assertEquals(12, events.get("memoanimalia.BoardInit").get(0).getInt("rows") * events.get("memoanimalia.BoardInit").get(0).getInt("cols"));
+        List<RecordedEvent> shuffles = events.get("memoanimalia.Shuffle");
+        assertEquals(2, shuffles.size());
+        assertEquals(engine.getGameSeed(), shuffles.get(1).getLong("gameSeed"));
+        assertFalse(shuffles.get(1).getBoolean("fromPool"));
+
+        // Reverso y seis animales, decodificados y escalados
+        List<RecordedEvent> loads = events.get("memoanimalia.ImageLoad");
+        assertEquals(IDS.size() + 1, loads.size());
+        assertTrue(loads.stream().allMatch(e -> !e.getBoolean("fromCache") && e.getLong("fileSize") > 0));
+        assertTrue(loads.stream().allMatch(e -> e.getDuration().compareTo(Duration.ZERO) > 0));
+
+        List<RecordedEvent> ui = events.get("memoanimalia.UiBatch");
+        assertEquals(batches[0], ui.size());
+        assertTrue(ui.stream().mapToInt(e -> e.getInt("events")).sum() > 12);
+
+        // Duraciones plausibles: ninguna operación del juego llega a 10 s
+        for (List<RecordedEvent> list : events.values()) {
+            for (RecordedEvent e : list) {
+                assertFalse(e.getDuration().isNegative(), e.toString());
+                assertTrue(e.getDuration().compareTo(Duration.ofSeconds(10)) < 0, e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,435 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Contadores y latencias del camino de un clic: desde onCardSelected, pasando
+ * por flipCard y la entrega de eventos en el EDT, hasta el pedido de repintado.
+ *
+ * Los contadores son LongAdder (repartidos entre celdas, sin contención) y
+ * los histogramas usan un AtomicLongArray de cubetas, así que registrar nunca
+ * bloquea. Con el registro desactivado cada punto de medición se reduce a
+ * leer un campo volatile.
+ *
+ * La latencia de los volteos se muestrea: solo uno de cada
+ * -Dmemoanimalia.metrics.flipSample (64 por defecto, potencia de dos) lee el
+ * reloj. Los contadores se actualizan en todos, con un solo incremento por
+ * volteo.
+ *
+ * Se publica como MXBean (memoanimalia:type=Metrics) y puede volcar
+ * periódicamente una línea de texto por instantánea a un archivo.
+ */
+public final class MemoAnimaliaMetrics implements MemoAnimaliaMetricsMXBean {
+
+    public static final String OBJECT_NAME = "memoanimalia:type=Metrics";
+
+    private static final MemoAnimaliaMetrics GLOBAL = new MemoAnimaliaMetrics(
+            Boolean.parseBoolean(System.getProperty("memoanimalia.metrics", "true")));
+
+    /**
+     * =============================================================
+     * Histograma de latencias
+     * ------------------------------------------------------------- Cubetas
+     * log-lineales: valores menores que 16 van a su propia cubeta y cada
+     * potencia de dos mayor se divide en 16 cubetas iguales, con un error
+     * relativo de a lo sumo 1/16. record() es un incremento atómico sobre la
+     * cubeta, sin candados.
+     * =============================================================
+     */
+    public static final class LatencyHistogram {
+
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) Math.max(value, 0);
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        }
+
+        /**
+         * Menor valor que cae en la cubeta
+         */
+        static long lowerBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        }
+
+        public void record(long nanos) {
+            counts.incrementAndGet(bucket(nanos));
+            max.accumulate(nanos);
+        }
+
+        public long getCount() {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Percentil aproximado: el límite inferior de la cubeta que lo
+         * contiene
+         *
+         * @param p Percentil entre 0 y 100
+         */
+        public long getPercentile(double p) {
+            long[] copy = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                copy[i] = counts.get(i);
+                total += copy[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(total * p / 100.0));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                seen += copy[i];
+                if (seen >= target) {
+                    return lowerBound(i);
+                }
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; ++i) {
+                counts.set(i, 0);
+            }
+            max.reset();
+        }
+
+        @Override
+        public String toString() {
+            return "n=" + getCount() + " p50=" + getPercentile(50) + " p90=" + getPercentile(90)
+                    + " p99=" + getPercentile(99) + " max=" + getMax();
+        }
+    }
+
+    private volatile boolean enabled;
+
+    /**
+     * Máscara del muestreo de volteos: se mide cuando (contador & máscara) == 0
+     */
+    private final int flipSampleMask;
+    /**
+     * Contador del muestreo. No es atómico a propósito: una carrera solo
+     * corre la muestra, no altera los contadores.
+     */
+    private int flipSampleCounter;
+
+    /**
+     * Volteos por FlipResult; la suma es el total
+     */
+    private final LongAdder[] flipsByResult = new LongAdder[MemoAnimaliaEngine.FlipResult.values().length];
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder imageCacheHits = new LongAdder();
+    private final LongAdder imageCacheMisses = new LongAdder();
+
+    /**
+     * Desde el clic hasta que flipCard y los listeners síncronos terminan, en
+     * los volteos muestreados
+     */
+    private final LatencyHistogram flipLatency = new LatencyHistogram();
+    /**
+     * Entrega de un lote de eventos a la interfaz, en el EDT
+     */
+    private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+    /**
+     * Desde el primer evento de un lote hasta que el EDT lo atiende
+     */
+    private final LatencyHistogram edtQueueDelay = new LatencyHistogram();
+
+    private ScheduledExecutorService dumper;
+
+    public MemoAnimaliaMetrics(boolean enabled) {
+        this(enabled, Integer.getInteger("memoanimalia.metrics.flipSample", 64));
+    }
+
+    /**
+     * @param flipSample Se mide la latencia de uno de cada flipSample
+     * volteos; se redondea a una potencia de dos
+     */
+    public MemoAnimaliaMetrics(boolean enabled, int flipSample) {
+        this.enabled = enabled;
+        this.flipSampleMask = Integer.highestOneBit(Math.max(1, flipSample)) - 1;
+        for (int i = 0; i < flipsByResult.length; ++i) {
+            flipsByResult[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registro compartido por toda la aplicación. Se desactiva con
+     * -Dmemoanimalia.metrics=false.
+     */
+    public static MemoAnimaliaMetrics global() {
+        return GLOBAL;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Marca de tiempo para medir una latencia, o 0 si el registro está
+     * desactivado
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Marca de tiempo para medir un volteo, o 0 si el registro está
+     * desactivado o el volteo no entra en la muestra
+     */
+    public long startFlipTimer() {
+        if (!enabled || (flipSampleCounter++ & flipSampleMask) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Registra un volteo hecho por el jugador
+     *
+     * @param result Resultado de flipCard
+     * @param start Valor devuelto por startFlipTimer antes del volteo
+     */
+    public void recordFlip(MemoAnimaliaEngine.FlipResult result, long start) {
+        if (!enabled) {
+            return;
+        }
+        if (start != 0) {
+            flipLatency.record(System.nanoTime() - start);
+        }
+        flipsByResult[result.ordinal()].increment();
+    }
+
+    public void recordReset() {
+        if (enabled) {
+            resets.increment();
+        }
+    }
+
+    public void recordImageCache(boolean hit) {
+        if (enabled) {
+            (hit ? imageCacheHits : imageCacheMisses).increment();
+        }
+    }
+
+    /**
+     * Registra la entrega de un lote de eventos
+     *
+     * @param start Valor devuelto por startTimer antes de entregarlo
+     */
+    public void recordDispatch(long start) {
+        if (enabled && start != 0) {
+            dispatchLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Registra cuánto esperó un lote en la cola del EDT
+     *
+     * @param queued Valor devuelto por startTimer al encolarlo
+     */
+    public void recordEdtQueueDelay(long queued) {
+        if (enabled && queued != 0) {
+            edtQueueDelay.record(System.nanoTime() - queued);
+        }
+    }
+
+    public LatencyHistogram getFlipLatency() {
+        return flipLatency;
+    }
+
+    public LatencyHistogram getDispatchLatency() {
+        return dispatchLatency;
+    }
+
+    public LatencyHistogram getEdtQueueDelay() {
+        return edtQueueDelay;
+    }
+
+    @Override
+    public long getFlips() {
+        long total = 0;
+        for (LongAdder count : flipsByResult) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getMatches() {
+        return flipsByResult[MemoAnimaliaEngine.FlipResult.MATCH.ordinal()].sum();
+    }
+
+    @Override
+    public long getMismatches() {
+        return flipsByResult[MemoAnimaliaEngine.FlipResult.NO_MATCH.ordinal()].sum();
+    }
+
+    @Override
+    public long getResets() {
+        return resets.sum();
+    }
+
+    @Override
+    public long getImageCacheHits() {
+        return imageCacheHits.sum();
+    }
+
+    @Override
+    public long getImageCacheMisses() {
+        return imageCacheMisses.sum();
+    }
+
+    @Override
+    public long getFlipLatencyP50() {
+        return flipLatency.getPercentile(50);
+    }
+
+    @Override
+    public long getFlipLatencyP99() {
+        return flipLatency.getPercentile(99);
+    }
+
+    @Override
+    public long getDispatchLatencyP50() {
+        return dispatchLatency.getPercentile(50);
+    }
+
+    @Override
+    public long getDispatchLatencyP99() {
+        return dispatchLatency.getPercentile(99);
+    }
+
+    @Override
+    public long getEdtQueueDelayP50() {
+        return edtQueueDelay.getPercentile(50);
+    }
+
+    @Override
+    public long getEdtQueueDelayP99() {
+        return edtQueueDelay.getPercentile(99);
+    }
+
+    @Override
+    public String getSnapshot() {
+        return Instant.now() + " flips=" + getFlips() + " matches=" + getMatches() + " mismatches=" + getMismatches()
+                + " resets=" + getResets() + " imageCache=" + getImageCacheHits() + "/" + getImageCacheMisses()
+                + " flipNs[" + flipLatency + "] dispatchNs[" + dispatchLatency + "] edtQueueNs[" + edtQueueDelay + "]";
+    }
+
+    @Override
+    public void dumpTo(String file) throws IOException {
+        dumpTo(Paths.get(file));
+    }
+
+    /**
+     * Agrega la instantánea actual como una línea al final del archivo
+     */
+    public void dumpTo(Path file) throws IOException {
+        Files.write(file, (getSnapshot() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Vuelca una instantánea al archivo cada cierto tiempo, en un hilo
+     * daemon. Reemplaza un volcado periódico anterior.
+     *
+     * @return Tarea programada, para cancelarla
+     */
+    public synchronized ScheduledFuture<?> startPeriodicDump(Path file, long period, TimeUnit unit) {
+        stopPeriodicDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "memoanimalia-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        // Una excepción cancelaría la tarea para siempre: un fallo de
+        // escritura se informa y se reintenta en el siguiente período
+        return dumper.scheduleAtFixedRate(() -> {
+            try {
+                dumpTo(file);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("No se pudieron volcar las métricas a " + file + ": " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    @Override
+    public void reset() {
+        Arrays.stream(flipsByResult).forEach(LongAdder::reset);
+        resets.reset();
+        imageCacheHits.reset();
+        imageCacheMisses.reset();
+        flipLatency.reset();
+        dispatchLatency.reset();
+        edtQueueDelay.reset();
+    }
+
+    /**
+     * Publica el registro en el servidor de MBeans de la plataforma. Si ya
+     * había uno registrado con ese nombre se reemplaza.
+     */
+    public ObjectName registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudo registrar " + OBJECT_NAME, e);
+        }
+    }
+}
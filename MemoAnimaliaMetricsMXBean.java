@@ -0,0 +1,50 @@
+import java.io.IOException;
+
+/**
+ * Vista JMX de MemoAnimaliaMetrics. Las latencias están en nanosegundos.
+ */
+public interface MemoAnimaliaMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getFlips();
+
+    long getMatches();
+
+    long getMismatches();
+
+    long getResets();
+
+    long getImageCacheHits();
+
+    long getImageCacheMisses();
+
+    long getFlipLatencyP50();
+
+    long getFlipLatencyP99();
+
+    long getDispatchLatencyP50();
+
+    long getDispatchLatencyP99();
+
+    long getEdtQueueDelayP50();
+
+    long getEdtQueueDelayP99();
+
+    /**
+     * Instantánea completa en una línea
+     */
+    String getSnapshot();
+
+    /**
+     * Agrega la instantánea actual al archivo indicado
+     */
+    void dumpTo(String file) throws IOException;
+
+    /**
+     * Pone en cero contadores e histogramas
+     */
+    void reset();
+}
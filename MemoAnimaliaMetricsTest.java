@@ -0,0 +1,110 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MemoAnimaliaMetricsTest {
+
+    @Test
+    void testHistogramBucketsBoundRelativeError() {
+        for (long v : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            int bucket = MemoAnimaliaMetrics.LatencyHistogram.bucket(v);
+            long low = MemoAnimaliaMetrics.LatencyHistogram.lowerBound(bucket);
+            assertTrue(low <= v, v + " -> " + low);
+            assertTrue(v - low <= v / 16, v + " -> " + low);
+        }
+
+        MemoAnimaliaMetrics.LatencyHistogram histogram = new MemoAnimaliaMetrics.LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000, histogram.getPercentile(50), 500_000 / 16.0);
+        assertEquals(990_000, histogram.getPercentile(99), 990_000 / 16.0);
+    }
+
+    @Test
+    void testCountersAndDisabledRegistry() {
+        MemoAnimaliaMetrics metrics = new MemoAnimaliaMetrics(true);
+        long start = metrics.startTimer();
+        metrics.recordFlip(MemoAnimaliaEngine.FlipResult.OK_REVEALED, start);
+        metrics.recordFlip(MemoAnimaliaEngine.FlipResult.MATCH, start);
+        metrics.recordFlip(MemoAnimaliaEngine.FlipResult.NO_MATCH, start);
+        metrics.recordImageCache(true);
+        metrics.recordImageCache(false);
+        metrics.recordReset();
+        assertEquals(3, metrics.getFlips());
+        assertEquals(1, metrics.getMatches());
+        assertEquals(1, metrics.getMismatches());
+        assertEquals(1, metrics.getImageCacheHits());
+        assertEquals(1, metrics.getImageCacheMisses());
+        assertEquals(1, metrics.getResets());
+        assertEquals(3, metrics.getFlipLatency().getCount());
+
+        metrics.setEnabled(false);
+        assertEquals(0, metrics.startTimer());
+        metrics.recordFlip(MemoAnimaliaEngine.FlipResult.MATCH, 0);
+        assertEquals(3, metrics.getFlips());
+
+        metrics.reset();
+        assertEquals(0, metrics.getFlips());
+        assertEquals(0, metrics.getFlipLatency().getCount());
+    }
+
+    @Test
+    void testJmxAndDump(@TempDir Path dir) throws Exception {
+        MemoAnimaliaMetrics metrics = new MemoAnimaliaMetrics(true);
+        metrics.recordFlip(MemoAnimaliaEngine.FlipResult.MATCH, metrics.startTimer());
+        ObjectName name = metrics.registerMBean();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "Flips"));
+            assertEquals(1L, server.getAttribute(name, "Matches"));
+
+            Path file = dir.resolve("metricas.log");
+            server.invoke(name, "dumpTo", new Object[]{file.toString()}, new String[]{String.class.getName()});
+            metrics.dumpTo(file);
+            assertEquals(2, Files.readAllLines(file).size());
+            assertTrue(Files.readAllLines(file).get(0).contains("flips=1 matches=1"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    @Test
+    void testFlipLatencyIsSampled() {
+        MemoAnimaliaMetrics metrics = new MemoAnimaliaMetrics(true, 4);
+        for (int i = 0; i < 16; i++) {
+            metrics.recordFlip(MemoAnimaliaEngine.FlipResult.OK_REVEALED, metrics.startFlipTimer());
+        }
+        assertEquals(16, metrics.getFlips());
+        assertEquals(4, metrics.getFlipLatency().getCount());
+    }
+
+    @Test
+    void testPeriodicDumpSurvivesWriteFailure(@TempDir Path dir) throws Exception {
+        MemoAnimaliaMetrics metrics = new MemoAnimaliaMetrics(true);
+        Path file = dir.resolve("no-existe").resolve("metricas.log");
+        ScheduledFuture<?> dump = metrics.startPeriodicDump(file, 5, TimeUnit.MILLISECONDS);
+        try {
+            // Los primeros volcados fallan porque falta el directorio
+            Thread.sleep(30);
+            assertFalse(dump.isDone(), "Un fallo de escritura no debe cancelar el volcado");
+            Files.createDirectories(file.getParent());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!Files.exists(file) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(Files.exists(file));
+        } finally {
+            metrics.stopPeriodicDump();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Protocolo binario entre MemoAnimaliaServer y sus clientes.
+ *
+ * Cada mensaje es una trama con un prefijo de longitud: un short sin signo con
+ * la cantidad de bytes que siguen, un byte de código y los argumentos. Todos
+ * los números son big endian; los índices de carta y los ids de símbolo son
+ * shorts sin signo. Las tramas más comunes ocupan entre 3 y 7 bytes.
+ *
+ * <pre>
+ * cliente → servidor
+ *   NEW_GAME                          reinicia la partida; responde ACK
+ *   FLIP      índice                  responde RESULT
+ *   HIDE      índice, índice          responde ACK
+ *   PING                              responde ACK
+ *
+ * servidor → cliente
+ *   HELLO     filas, columnas, límite de intentos (int),
+ *             cantidad de símbolos, cada nombre (byte + UTF-8)
+ *   CARD_REVEALED       índice, símbolo
+ *   CARDS_HIDDEN        índice, índice
+ *   CARDS_MATCHED       índice, índice
+ *   ATTEMPTS_CHANGED    intentos (int)
+ *   MATCH_COUNT_CHANGED parejas (int)
+ *   GAME_WON            intentos (int)
+ *   ATTEMPT_LIMIT       límite (int)
+ *   GAME_RESET
+ *   RESULT    ordinal de MemoAnimaliaEngine.FlipResult (byte)
+ *   ACK
+ *   ERROR     código (byte); el servidor cierra la conexión
+ * </pre>
+ *
+ * Los eventos del GameListener que produce un comando llegan antes de su
+ * respuesta, y las respuestas salen en el orden de los comandos, así que un
+ * cliente puede encadenar varios comandos sin esperar (pipelining).
+ */
+public final class MemoAnimaliaProtocol {
+
+    // Cliente → servidor
+    public static final byte NEW_GAME = 0x01;
+    public static final byte FLIP = 0x02;
+    public static final byte HIDE = 0x03;
+    public static final byte PING = 0x04;
+
+    // Servidor → cliente
+    public static final byte HELLO = (byte) 0x80;
+    public static final byte CARD_REVEALED = (byte) 0x81;
+    public static final byte CARDS_HIDDEN = (byte) 0x82;
+    public static final byte CARDS_MATCHED = (byte) 0x83;
+    public static final byte ATTEMPTS_CHANGED = (byte) 0x84;
+    public static final byte MATCH_COUNT_CHANGED = (byte) 0x85;
+    public static final byte GAME_WON = (byte) 0x86;
+    public static final byte ATTEMPT_LIMIT = (byte) 0x87;
+    public static final byte GAME_RESET = (byte) 0x88;
+    public static final byte RESULT = (byte) 0x90;
+    public static final byte ACK = (byte) 0x91;
+    public static final byte ERROR = (byte) 0x9F;
+
+    // Códigos de ERROR
+    public static final byte ERROR_UNKNOWN_COMMAND = 1;
+    public static final byte ERROR_BAD_LENGTH = 2;
+
+    /**
+     * Bytes del prefijo de longitud
+     */
+    public static final int HEADER_BYTES = Short.BYTES;
+    /**
+     * Índice de carta más grande que cabe en una trama
+     */
+    public static final int MAX_INDEX = 0xFFFF;
+    /**
+     * Largo máximo del cuerpo de una trama (código y argumentos)
+     */
+    public static final int MAX_FRAME_BYTES = 0xFFFF;
+    /**
+     * Bytes UTF-8 máximos de un nombre de símbolo en HELLO
+     */
+    public static final int MAX_NAME_BYTES = 0xFF;
+
+    private static final MemoAnimaliaEngine.FlipResult[] RESULTS = MemoAnimaliaEngine.FlipResult.values();
+
+    private MemoAnimaliaProtocol() {
+    }
+
+    /**
+     * Largo del cuerpo (código y argumentos) de la trama que empieza en la
+     * posición del buffer, o -1 si todavía no llegó completa. No mueve la
+     * posición.
+     */
+    public static int completeFrame(ByteBuffer in) {
+        if (in.remaining() < HEADER_BYTES) {
+            return -1;
+        }
+        int length = in.getShort(in.position()) & 0xFFFF;
+        return in.remaining() - HEADER_BYTES >= length ? length : -1;
+    }
+
+    public static void writeFlip(ByteBuffer out, int index) {
+        out.putShort((short) 3).put(FLIP).putShort((short) index);
+    }
+
+    public static void writeHide(ByteBuffer out, int index1, int index2) {
+        out.putShort((short) 5).put(HIDE).putShort((short) index1).putShort((short) index2);
+    }
+
+    public static void writeNewGame(ByteBuffer out) {
+        out.putShort((short) 1).put(NEW_GAME);
+    }
+
+    public static void writePing(ByteBuffer out) {
+        out.putShort((short) 1).put(PING);
+    }
+
+    /**
+     * Nombre de símbolo en UTF-8 para HELLO, recortado a MAX_NAME_BYTES sin
+     * partir ningún carácter
+     */
+    public static byte[] encodeName(String name) {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer out = ByteBuffer.allocate(MAX_NAME_BYTES);
+        // Si no entra, el codificador se detiene antes del carácter que
+        // no cabe entero
+        encoder.encode(CharBuffer.wrap(name), out, true);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * Resultado de flipCard a partir del byte de una trama RESULT
+     */
+    public static MemoAnimaliaEngine.FlipResult flipResult(byte ordinal) {
+        return RESULTS[ordinal];
+    }
+}
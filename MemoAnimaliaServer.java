@@ -0,0 +1,476 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Servidor TCP no bloqueante que ofrece partidas de MemoAnimalia a clientes
+ * livianos con MemoAnimaliaProtocol.
+ *
+ * Un solo hilo atiende todas las conexiones con un Selector. Cada conexión
+ * tiene su propio motor, del que es GameListener: los eventos se codifican
+ * directamente en el buffer de salida de la conexión. Como solo ese hilo toca
+ * los motores, no hace falta ningún candado.
+ *
+ * Los comandos pueden llegar encadenados: cada lectura procesa todas las
+ * tramas completas del buffer. Las respuestas se acumulan y se escriben una
+ * vez por vuelta del ciclo, con una sola llamada por conexión. Si un cliente
+ * no lee, su conexión deja de leerse hasta que la salida baje del límite.
+ *
+ * Uso: MemoAnimaliaServer [puerto] [filas] [columnas]
+ */
+public class MemoAnimaliaServer implements AutoCloseable {
+
+    /**
+     * Buffer de entrada por conexión: alcanza para cientos de comandos
+     * encadenados
+     */
+    private static final int INPUT_BYTES = 1024;
+    private static final int INITIAL_OUTPUT_BYTES = 512;
+    /**
+     * Salida pendiente a partir de la cual se deja de leer la conexión
+     */
+    private static final int OUTPUT_HIGH_WATER = 64 * 1024;
+
+    private final int rows;
+    private final int cols;
+    private final List<String> imageIds;
+    private final int attemptLimit;
+    /**
+     * Argumentos de HELLO, iguales para todas las conexiones
+     */
+    private final byte[] hello;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread loop;
+    private volatile boolean closed;
+
+    /**
+     * Conexiones con salida pendiente en esta vuelta del ciclo
+     */
+    private final List<Connection> toFlush = new ArrayList<>();
+
+    private volatile int connections;
+    private volatile long commands;
+
+    /**
+     * =============================================================
+     * Clase Connection
+     * ------------------------------------------------------------- Una
+     * conexión con su partida. Solo la usa el hilo del servidor.
+     * =============================================================
+     */
+    private final class Connection implements MemoAnimaliaEngine.GameListener {
+
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final MemoAnimaliaEngine engine;
+        private final ByteBuffer in = ByteBuffer.allocate(INPUT_BYTES);
+        private ByteBuffer out = ByteBuffer.allocate(INITIAL_OUTPUT_BYTES);
+        private boolean queued;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.key = channel.register(selector, SelectionKey.OP_READ, this);
+            this.engine = new MemoAnimaliaEngine(rows, cols, imageIds, attemptLimit);
+            engine.setListener(this);
+            writeHello();
+        }
+
+        private void writeHello() {
+            frame(hello.length, MemoAnimaliaProtocol.HELLO).put(hello);
+        }
+
+        /**
+         * Reserva lugar para una trama y escribe su encabezado
+         *
+         * @param arguments Bytes de argumentos que siguen al código
+         */
+        private ByteBuffer frame(int arguments, byte code) {
+            int length = 1 + arguments;
+            if (length > MemoAnimaliaProtocol.MAX_FRAME_BYTES) {
+                throw new IllegalStateException("Trama de " + length + " bytes: no entra en el prefijo de longitud");
+            }
+            if (out.remaining() < MemoAnimaliaProtocol.HEADER_BYTES + length) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2,
+                        out.position() + MemoAnimaliaProtocol.HEADER_BYTES + length));
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+            if (!queued) {
+                queued = true;
+                toFlush.add(this);
+            }
+            return out.putShort((short) length).put(code);
+        }
+
+        /**
+         * Lee lo disponible y ejecuta todas las tramas completas
+         *
+         * @return false si la conexión terminó
+         */
+        boolean read() throws IOException {
+            if (channel.read(in) < 0) {
+                return false;
+            }
+            in.flip();
+            int length;
+            while ((length = MemoAnimaliaProtocol.completeFrame(in)) >= 0) {
+                int next = in.position() + MemoAnimaliaProtocol.HEADER_BYTES + length;
+                in.position(in.position() + MemoAnimaliaProtocol.HEADER_BYTES);
+                if (!execute(length)) {
+                    return false;
+                }
+                in.position(next);
+            }
+            in.compact();
+            if (!in.hasRemaining()) {
+                // Una trama que no entra en el buffer nunca es válida
+                error(MemoAnimaliaProtocol.ERROR_BAD_LENGTH);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Ejecuta el comando cuyo cuerpo empieza en la posición de in
+         */
+        private boolean execute(int length) {
+            if (length == 0) {
+                error(MemoAnimaliaProtocol.ERROR_BAD_LENGTH);
+                return false;
+            }
+            commands++;
+            byte code = in.get();
+            switch (code) {
+                case MemoAnimaliaProtocol.FLIP:
+                    if (length != 3) {
+                        break;
+                    }
+                    MemoAnimaliaEngine.FlipResult result = engine.flipCard(in.getShort() & 0xFFFF);
+                    frame(1, MemoAnimaliaProtocol.RESULT).put((byte) result.ordinal());
+                    return true;
+                case MemoAnimaliaProtocol.HIDE:
+                    if (length != 5) {
+                        break;
+                    }
+                    engine.hideCards(in.getShort() & 0xFFFF, in.getShort() & 0xFFFF);
+                    frame(0, MemoAnimaliaProtocol.ACK);
+                    return true;
+                case MemoAnimaliaProtocol.NEW_GAME:
+                    if (length != 1) {
+                        break;
+                    }
+                    engine.resetForNewGame();
+                    frame(0, MemoAnimaliaProtocol.ACK);
+                    return true;
+                case MemoAnimaliaProtocol.PING:
+                    if (length != 1) {
+                        break;
+                    }
+                    frame(0, MemoAnimaliaProtocol.ACK);
+                    return true;
+                default:
+                    error(MemoAnimaliaProtocol.ERROR_UNKNOWN_COMMAND);
+                    return false;
+            }
+            error(MemoAnimaliaProtocol.ERROR_BAD_LENGTH);
+            return false;
+        }
+
+        private void error(byte errorCode) {
+            frame(1, MemoAnimaliaProtocol.ERROR).put(errorCode);
+            flush();
+        }
+
+        /**
+         * Escribe la salida acumulada. Si el socket no la acepta toda, espera
+         * OP_WRITE y, pasado el límite, deja de leer comandos.
+         */
+        void flush() {
+            queued = false;
+            try {
+                out.flip();
+                channel.write(out);
+                out.compact();
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            if (!key.isValid()) {
+                return;
+            }
+            int pending = out.position();
+            int ops = pending > 0 ? SelectionKey.OP_WRITE : 0;
+            if (pending < OUTPUT_HIGH_WATER) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
+            }
+        }
+
+        void close() {
+            if (key.isValid()) {
+                key.cancel();
+                connections--;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ya no hay nada que hacer con esta conexión
+            }
+        }
+
+        // ---------------------------------------------------------
+        // EVENTOS DEL MOTOR
+        // ---------------------------------------------------------
+        @Override
+        public void onCardRevealed(int index, MemoAnimaliaEngine.Card card) {
+            frame(4, MemoAnimaliaProtocol.CARD_REVEALED).putShort((short) index)
+                    .putShort((short) engine.getSymbolId(index));
+        }
+
+        @Override
+        public void onCardsHidden(int index1, int index2) {
+            frame(4, MemoAnimaliaProtocol.CARDS_HIDDEN).putShort((short) index1).putShort((short) index2);
+        }
+
+        @Override
+        public void onCardsMatched(int index1, int index2) {
+            frame(4, MemoAnimaliaProtocol.CARDS_MATCHED).putShort((short) index1).putShort((short) index2);
+        }
+
+        @Override
+        public void onAttemptChanged(int attempts) {
+            frame(4, MemoAnimaliaProtocol.ATTEMPTS_CHANGED).putInt(attempts);
+        }
+
+        @Override
+        public void onMatchCountChanged(int matchesFound) {
+            frame(4, MemoAnimaliaProtocol.MATCH_COUNT_CHANGED).putInt(matchesFound);
+        }
+
+        @Override
+        public void onGameWon(int attempts) {
+            frame(4, MemoAnimaliaProtocol.GAME_WON).putInt(attempts);
+        }
+
+        @Override
+        public void onGameOverAttemptLimit(int limit) {
+            frame(4, MemoAnimaliaProtocol.ATTEMPT_LIMIT).putInt(limit);
+        }
+
+        @Override
+        public void onGameReset() {
+            frame(0, MemoAnimaliaProtocol.GAME_RESET);
+        }
+    }
+
+    /**
+     * Abre el servidor y empieza a aceptar conexiones
+     *
+     * @param address Dirección donde escuchar; puerto 0 elige uno libre
+     */
+    public MemoAnimaliaServer(InetSocketAddress address, int rows, int cols, List<String> imageIds, int attemptLimit)
+            throws IOException {
+        if ((long) rows * cols > MemoAnimaliaProtocol.MAX_INDEX + 1) {
+            throw new IllegalArgumentException("Tablero demasiado grande para el protocolo: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.imageIds = imageIds;
+        this.attemptLimit = attemptLimit;
+        this.hello = encodeHello(new MemoAnimaliaEngine(rows, cols, imageIds, attemptLimit));
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.loop = new Thread(this::run, "memoanimalia-server");
+        loop.start();
+    }
+
+    /**
+     * Argumentos de HELLO para un motor: filas, columnas, límite y los
+     * nombres de sus símbolos
+     *
+     * @throws IllegalArgumentException si no entran en una trama
+     */
+    private static byte[] encodeHello(MemoAnimaliaEngine engine) {
+        byte[][] names = new byte[engine.getSymbolCount()][];
+        int length = 2 * Short.BYTES + Integer.BYTES + Short.BYTES;
+        for (int s = 0; s < names.length; ++s) {
+            names[s] = MemoAnimaliaProtocol.encodeName(engine.getSymbolName(s));
+            length += 1 + names[s].length;
+        }
+        // El código de la trama también cuenta en el prefijo
+        if (1 + length > MemoAnimaliaProtocol.MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("Los " + names.length + " símbolos no entran en la trama HELLO ("
+                    + length + " bytes)");
+        }
+        ByteBuffer b = ByteBuffer.allocate(length);
+        b.putShort((short) engine.getRows()).putShort((short) engine.getCols()).putInt(engine.getAttemptLimit())
+                .putShort((short) names.length);
+        for (byte[] name : names) {
+            b.put((byte) name.length).put(name);
+        }
+        return b.array();
+    }
+
+    /**
+     * Servidor en la interfaz de loopback con la configuración por defecto
+     * del motor
+     */
+    public MemoAnimaliaServer(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), MemoAnimaliaEngine.DEFAULT_ROWS,
+                MemoAnimaliaEngine.DEFAULT_COLS, null, MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT);
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection c = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable() && !c.read()) {
+                            c.close();
+                            continue;
+                        }
+                        if (key.isValid() && key.isWritable() && !c.queued) {
+                            c.flush();
+                        }
+                    } catch (IOException e) {
+                        c.close();
+                    } catch (RuntimeException e) {
+                        // Un error en una conexión no debe tirar abajo a las demás
+                        System.err.println("Error en una conexión, se cierra: " + e);
+                        c.close();
+                    }
+                }
+                // Escrituras agrupadas: una por conexión y por vuelta
+                for (int i = 0; i < toFlush.size(); ++i) {
+                    Connection c = toFlush.get(i);
+                    if (c.queued) {
+                        c.flush();
+                    }
+                }
+                toFlush.clear();
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("El servidor se detuvo: " + e.getMessage());
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("No se pudo cerrar el servidor: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Acepta las conexiones pendientes. Un fallo al aceptar o al registrar una
+     * conexión (por ejemplo, sin descriptores libres) solo afecta a esa
+     * conexión: se cierra, se informa y el servidor sigue atendiendo.
+     */
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (IOException e) {
+                // Se reintenta en la próxima vuelta del ciclo
+                System.err.println("No se pudo aceptar una conexión: " + e.getMessage());
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                new Connection(channel);
+                connections++;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("No se pudo registrar una conexión: " + e);
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Ya no hay nada que hacer con esta conexión
+                }
+            }
+        }
+    }
+
+    /**
+     * Puerto en el que escucha el servidor
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Conexiones abiertas
+     */
+    public int getConnectionCount() {
+        return connections;
+    }
+
+    /**
+     * Comandos atendidos desde el arranque
+     */
+    public long getCommandCount() {
+        return commands;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : MemoAnimaliaEngine.DEFAULT_ROWS;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : MemoAnimaliaEngine.DEFAULT_COLS;
+        MemoAnimaliaServer server = new MemoAnimaliaServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), rows, cols, null,
+                MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT);
+        // El generador de carga lee esta línea para conocer el puerto
+        System.out.println("Escuchando en el puerto " + server.getPort());
+    }
+}
@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MemoAnimaliaServerTest {
+
+    /**
+     * Lee tramas completas de un canal bloqueante
+     */
+    private static final class FrameReader {
+
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(8192);
+
+        FrameReader(SocketChannel channel) {
+            this.channel = channel;
+            in.flip();
+        }
+
+        /**
+         * Siguiente trama, sin el prefijo de longitud
+         */
+        ByteBuffer next() throws IOException {
+            int length;
+            while ((length = MemoAnimaliaProtocol.completeFrame(in)) < 0) {
+                in.compact();
+                if (channel.read(in) < 0) {
+                    throw new IOException("Conexión cerrada");
+                }
+                in.flip();
+            }
+            in.position(in.position() + MemoAnimaliaProtocol.HEADER_BYTES);
+            ByteBuffer frame = in.slice();
+            frame.limit(length);
+            in.position(in.position() + length);
+            return frame;
+        }
+    }
+
+    @Test
+    void testPipelinedTurnProducesEventsThenResults() throws Exception {
+        try (MemoAnimaliaServer server = new MemoAnimaliaServer(0);
+                SocketChannel channel = SocketChannel.open(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()))) {
+            FrameReader reader = new FrameReader(channel);
+
+            ByteBuffer hello = reader.next();
+            assertEquals(MemoAnimaliaProtocol.HELLO, hello.get());
+            assertEquals(MemoAnimaliaEngine.DEFAULT_ROWS, hello.getShort());
+            assertEquals(MemoAnimaliaEngine.DEFAULT_COLS, hello.getShort());
+            assertEquals(MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT, hello.getInt());
+            assertTrue(hello.getShort() > 0);
+
+            // Tres comandos en una sola escritura
+            ByteBuffer out = ByteBuffer.allocate(64);
+            MemoAnimaliaProtocol.writeFlip(out, 0);
+            MemoAnimaliaProtocol.writeFlip(out, 1);
+            MemoAnimaliaProtocol.writePing(out);
+            out.flip();
+            channel.write(out);
+
+            List<Byte> codes = new ArrayList<>();
+            List<MemoAnimaliaEngine.FlipResult> results = new ArrayList<>();
+            int[] symbols = new int[2];
+            while (codes.isEmpty() || codes.get(codes.size() - 1) != MemoAnimaliaProtocol.ACK) {
+                ByteBuffer frame = reader.next();
+                byte code = frame.get();
+                codes.add(code);
+                if (code == MemoAnimaliaProtocol.RESULT) {
+                    results.add(MemoAnimaliaProtocol.flipResult(frame.get()));
+                } else if (code == MemoAnimaliaProtocol.CARD_REVEALED) {
+                    int index = frame.getShort();
+                    symbols[index] = frame.getShort();
+                }
+            }
+
+            assertEquals(MemoAnimaliaEngine.FlipResult.OK_REVEALED, results.get(0));
+            MemoAnimaliaEngine.FlipResult expected = symbols[0] == symbols[1]
+                    ? MemoAnimaliaEngine.FlipResult.MATCH : MemoAnimaliaEngine.FlipResult.NO_MATCH;
+            assertEquals(expected, results.get(1));
+            byte pairEvent = expected == MemoAnimaliaEngine.FlipResult.MATCH
+                    ? MemoAnimaliaProtocol.CARDS_MATCHED : MemoAnimaliaProtocol.CARDS_HIDDEN;
+            assertEquals(Arrays.asList(MemoAnimaliaProtocol.CARD_REVEALED, MemoAnimaliaProtocol.RESULT,
+                    MemoAnimaliaProtocol.CARD_REVEALED, MemoAnimaliaProtocol.ATTEMPTS_CHANGED, pairEvent),
+                    codes.subList(0, 5));
+            assertEquals(MemoAnimaliaProtocol.RESULT, codes.get(codes.size() - 2));
+            assertEquals(3, server.getCommandCount());
+        }
+    }
+
+    @Test
+    void testUnknownCommandClosesConnection() throws Exception {
+        try (MemoAnimaliaServer server = new MemoAnimaliaServer(0);
+                SocketChannel channel = SocketChannel.open(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()))) {
+            FrameReader reader = new FrameReader(channel);
+            assertEquals(MemoAnimaliaProtocol.HELLO, reader.next().get());
+
+            channel.write(ByteBuffer.wrap(new byte[]{0, 1, 0x7F}));
+            ByteBuffer error = reader.next();
+            assertEquals(MemoAnimaliaProtocol.ERROR, error.get());
+            assertEquals(MemoAnimaliaProtocol.ERROR_UNKNOWN_COMMAND, error.get());
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+
+    @Test
+    void testNamesAreCutOnCharacterBoundaries() {
+        byte[] two = MemoAnimaliaProtocol.encodeName("ñ".repeat(200));
+        assertEquals(254, two.length);
+        assertEquals("ñ".repeat(127), new String(two, StandardCharsets.UTF_8));
+
+        byte[] four = MemoAnimaliaProtocol.encodeName("\uD83D\uDC1D".repeat(100));
+        assertEquals(252, four.length);
+        assertEquals("\uD83D\uDC1D".repeat(63), new String(four, StandardCharsets.UTF_8));
+
+        assertArrayEquals("gato".getBytes(StandardCharsets.UTF_8), MemoAnimaliaProtocol.encodeName("gato"));
+    }
+
+    @Test
+    void testHelloThatDoesNotFitIsRejected() {
+        // 300 nombres de 255 bytes no entran en el prefijo de 16 bits
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ids.add(String.format("%03d", i) + "x".repeat(300));
+        }
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        assertThrows(IllegalArgumentException.class, () -> new MemoAnimaliaServer(address, 30, 20, ids, 100));
+    }
+}
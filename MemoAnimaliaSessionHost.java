@@ -0,0 +1,364 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Anfitrión de muchas partidas simultáneas de MemoAnimalia. Cada sesión tiene
+ * su propio motor y su propio candado, de modo que los comandos de una misma
+ * sesión se ejecutan en serie mientras que sesiones distintas avanzan en
+ * paralelo sin un candado global.
+ *
+ * Los comandos asíncronos se atienden en hilos virtuales cuando la JVM los
+ * ofrece (Java 21+) y en un pool de hilos de plataforma en caso contrario.
+ * Cada sesión encadena sus comandos asíncronos en una cola propia, así que se
+ * ejecutan en el orden en que se enviaron.
+ *
+ * Las sesiones pueden guardarse con saveSnapshot y recuperarse con
+ * loadSnapshot. La recuperación es perezosa: cada sesión del archivo se
+ * decodifica la primera vez que se la usa.
+ */
+public class MemoAnimaliaSessionHost implements AutoCloseable {
+
+    /**
+     * Una partida registrada en el anfitrión.
+     */
+    public static final class Session {
+
+        private final String id;
+        private final MemoAnimaliaEngine engine;
+        /**
+         * Serializa los comandos de esta sesión. Se usa ReentrantLock y no
+         * synchronized para no fijar hilos virtuales a su portador.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+        /**
+         * Último comando asíncrono encolado. Cada comando nuevo espera a que
+         * termine el anterior antes de pasar al ejecutor.
+         */
+        private final AtomicReference<CompletableFuture<?>> tail
+                = new AtomicReference<>(CompletableFuture.completedFuture(null));
+
+        private Session(String id, MemoAnimaliaEngine engine) {
+            this.id = id;
+            this.engine = engine;
+        }
+
+        /**
+         * Encola un comando detrás de los anteriores de esta sesión
+         */
+        private <T> CompletableFuture<T> enqueue(Function<MemoAnimaliaEngine, T> command, Executor executor) {
+            CompletableFuture<T> next = new CompletableFuture<>();
+            CompletableFuture<?> previous = tail.getAndSet(next);
+            previous.whenComplete((r, e) -> {
+                try {
+                    executor.execute(() -> {
+                        lock.lock();
+                        try {
+                            next.complete(command.apply(engine));
+                        } catch (Throwable t) {
+                            next.completeExceptionally(t);
+                        } finally {
+                            lock.unlock();
+                        }
+                    });
+                } catch (RejectedExecutionException rejected) {
+                    next.completeExceptionally(rejected);
+                }
+            });
+            return next;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService executor = newCommandExecutor();
+
+    private final int rows;
+    private final int cols;
+    private final int attemptLimit;
+    private final List<String> imageIds;
+
+    /**
+     * Instantánea cargada, o null. Sus sesiones se restauran al primer uso.
+     */
+    private volatile SessionSnapshotStore snapshot;
+    /**
+     * Ids de la instantánea que ya se restauraron o se cerraron sin usarse.
+     * Solo se agregan dentro de compute sobre la clave, así que cada sesión
+     * se reclama una sola vez.
+     */
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor del anfitrión
+     *
+     * @param rows Filas del tablero de cada sesión
+     * @param cols Columnas del tablero de cada sesión
+     * @param imageIds Animales del mazo
+     * @param attemptLimit Límite de intentos de cada partida
+     */
+    public MemoAnimaliaSessionHost(int rows, int cols, List<String> imageIds, int attemptLimit) {
+        this.rows = rows;
+        this.cols = cols;
+        this.imageIds = imageIds;
+        this.attemptLimit = attemptLimit;
+    }
+
+    /**
+     * Crea un ejecutor de hilos virtuales si la JVM lo permite. Se busca por
+     * reflexión para seguir compilando con Java 17.
+     */
+    static ExecutorService newCommandExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "memoanimalia-session");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Abre una sesión nueva o devuelve la existente con ese id
+     */
+    public Session openSession(String sessionId) {
+        return sessions.computeIfAbsent(sessionId, this::createSession);
+    }
+
+    /**
+     * Crea el motor de una sesión, con el estado guardado si la sesión está
+     * pendiente en la instantánea
+     */
+    private Session createSession(String sessionId) {
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(rows, cols, imageIds, attemptLimit);
+        if (claimPending(sessionId)) {
+            engine.restoreState(snapshot.restore(sessionId));
+        }
+        return new Session(sessionId, engine);
+    }
+
+    private boolean claimPending(String sessionId) {
+        SessionSnapshotStore store = snapshot;
+        return store != null && store.contains(sessionId) && claimed.add(sessionId);
+    }
+
+    private boolean isPending(String sessionId) {
+        SessionSnapshotStore store = snapshot;
+        return store != null && store.contains(sessionId) && !claimed.contains(sessionId);
+    }
+
+    /**
+     * Cierra una sesión, esté en memoria o pendiente en la instantánea
+     *
+     * @return true si la sesión existía
+     */
+    public boolean closeSession(String sessionId) {
+        boolean[] closed = new boolean[1];
+        sessions.compute(sessionId, (id, session) -> {
+            closed[0] = session != null || claimPending(id);
+            return null;
+        });
+        return closed[0];
+    }
+
+    /**
+     * Sesiones abiertas, contando las que siguen pendientes en la instantánea
+     */
+    public int getSessionCount() {
+        return sessions.size() + getPendingSessionCount();
+    }
+
+    /**
+     * Sesiones de la instantánea que todavía no se restauraron
+     */
+    public int getPendingSessionCount() {
+        SessionSnapshotStore store = snapshot;
+        return store == null ? 0 : store.getSessionCount() - claimed.size();
+    }
+
+    private Session requireSession(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            if (!isPending(sessionId)) {
+                throw new IllegalArgumentException("Sesión desconocida: " + sessionId);
+            }
+            session = openSession(sessionId);
+        }
+        return session;
+    }
+
+    /**
+     * Guarda todas las sesiones en un archivo de instantáneas. Cada sesión se
+     * copia con su candado tomado, así que su estado es consistente, pero el
+     * archivo no es una foto atómica del anfitrión completo.
+     *
+     * @return Cantidad de sesiones guardadas
+     */
+    public int saveSnapshot(Path file) throws IOException {
+        Map<String, MemoAnimaliaEngine.GameState> states = new LinkedHashMap<>();
+        // Las pendientes se copian tal cual; si alguna se restaura mientras
+        // tanto, su estado en memoria la reemplaza más abajo
+        SessionSnapshotStore store = snapshot;
+        if (store != null) {
+            for (String id : store.getSessionIds()) {
+                if (!claimed.contains(id)) {
+                    states.put(id, store.restore(id));
+                }
+            }
+        }
+        for (Session session : sessions.values()) {
+            session.lock.lock();
+            try {
+                states.put(session.id, session.engine.captureState());
+            } finally {
+                session.lock.unlock();
+            }
+        }
+        SessionSnapshotStore.write(file, new MemoAnimaliaEngine(rows, cols, imageIds, attemptLimit), states);
+        return states.size();
+    }
+
+    /**
+     * Carga un archivo de instantáneas. Solo se lee su índice; cada sesión se
+     * restaura la primera vez que se la usa. Las sesiones que ya están en
+     * memoria conservan su estado. Debe llamarse antes de atender comandos.
+     *
+     * @return Cantidad de sesiones en el archivo
+     * @throws IOException si el archivo no se puede leer o es de otro
+     * tablero o mazo
+     */
+    public int loadSnapshot(Path file) throws IOException {
+        SessionSnapshotStore store = SessionSnapshotStore.open(file);
+        if (!store.isCompatibleWith(new MemoAnimaliaEngine(rows, cols, imageIds, attemptLimit))) {
+            throw new IOException("La instantánea " + file + " es de otro tablero o mazo");
+        }
+        claimed.clear();
+        for (String id : sessions.keySet()) {
+            if (store.contains(id)) {
+                claimed.add(id);
+            }
+        }
+        snapshot = store;
+        return store.getSessionCount();
+    }
+
+    /**
+     * Ejecuta una operación sobre el motor de una sesión con su candado
+     * tomado. Es la única forma de tocar el motor desde fuera del anfitrión.
+     */
+    public <T> T withEngine(String sessionId, Function<MemoAnimaliaEngine, T> action) {
+        Session session = requireSession(sessionId);
+        session.lock.lock();
+        try {
+            return action.apply(session.engine);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Voltea una carta en la sesión indicada, bloqueando al llamador
+     */
+    public MemoAnimaliaEngine.FlipResult flipCard(String sessionId, int index) {
+        Session session = requireSession(sessionId);
+        session.lock.lock();
+        try {
+            return session.engine.flipCard(index);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Oculta dos cartas en la sesión indicada
+     */
+    public void hideCards(String sessionId, int index1, int index2) {
+        Session session = requireSession(sessionId);
+        session.lock.lock();
+        try {
+            session.engine.hideCards(index1, index2);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Reinicia la partida de la sesión indicada
+     */
+    public void resetSession(String sessionId) {
+        Session session = requireSession(sessionId);
+        session.lock.lock();
+        try {
+            session.engine.resetForNewGame();
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Versión asíncrona de withEngine. Los comandos de una misma sesión se
+     * ejecutan de a uno y en el orden en que se enviaron; los de sesiones
+     * distintas avanzan en paralelo.
+     */
+    public <T> CompletableFuture<T> submit(String sessionId, Function<MemoAnimaliaEngine, T> action) {
+        Session session;
+        try {
+            session = requireSession(sessionId);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return session.enqueue(action, executor);
+    }
+
+    /**
+     * Versión asíncrona de flipCard, en orden con los demás comandos
+     * asíncronos de la sesión
+     */
+    public CompletableFuture<MemoAnimaliaEngine.FlipResult> submitFlip(String sessionId, int index) {
+        return submit(sessionId, engine -> engine.flipCard(index));
+    }
+
+    /**
+     * Versión asíncrona de hideCards, en orden con los demás comandos
+     * asíncronos de la sesión
+     */
+    public CompletableFuture<Void> submitHide(String sessionId, int index1, int index2) {
+        return submit(sessionId, engine -> {
+            engine.hideCards(index1, index2);
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sessions.clear();
+        snapshot = null;
+        claimed.clear();
+    }
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+
+class MemoAnimaliaSessionHostTest {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro");
+
+    @Test
+    void testAsyncCommandsRunInSubmissionOrder() throws Exception {
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(4, 5, IDS, 30)) {
+            host.openSession("a");
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 2000; i++) {
+                int command = i;
+                futures.add(host.submit("a", engine -> {
+                    order.add(command);
+                    return command;
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+            assertEquals(2000, order.size());
+            for (int i = 0; i < order.size(); i++) {
+                assertEquals(i, order.get(i), "Comando fuera de orden");
+            }
+        }
+    }
+
+    @Test
+    void testSubmitFlipFollowsSubmitHide() throws Exception {
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(4, 5, IDS, 30)) {
+            host.openSession("a");
+            int partner = host.withEngine("a", engine -> {
+                int other = 1;
+                while (engine.getSymbolId(other) == engine.getSymbolId(0)) {
+                    other++;
+                }
+                return other;
+            });
+
+            // Se envían sin esperar: el hide debe verse antes del último flip
+            CompletableFuture<MemoAnimaliaEngine.FlipResult> first = host.submitFlip("a", 0);
+            CompletableFuture<MemoAnimaliaEngine.FlipResult> second = host.submitFlip("a", partner);
+            host.submitHide("a", 0, partner);
+            CompletableFuture<MemoAnimaliaEngine.FlipResult> again = host.submitFlip("a", 0);
+
+            assertEquals(MemoAnimaliaEngine.FlipResult.OK_REVEALED, first.get(10, TimeUnit.SECONDS));
+            assertEquals(MemoAnimaliaEngine.FlipResult.NO_MATCH, second.get(10, TimeUnit.SECONDS));
+            assertEquals(MemoAnimaliaEngine.FlipResult.OK_REVEALED, again.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testSharedSessionKeepsCountsConsistent() throws Exception {
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(6, 6, IDS, Integer.MAX_VALUE)) {
+            host.openSession("a");
+            int callers = 8;
+            ExecutorService pool = Executors.newFixedThreadPool(callers);
+            List<Future<Integer>> turns = new ArrayList<>();
+            for (int c = 0; c < callers; c++) {
+                int seed = c;
+                turns.add(pool.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    int closed = 0;
+                    for (int i = 0; i < 2000; i++) {
+                        int index = random.nextInt(36);
+                        MemoAnimaliaEngine.FlipResult result = i % 2 == 0
+                                ? host.flipCard("a", index)
+                                : host.submitFlip("a", index).get(10, TimeUnit.SECONDS);
+                        if (result == MemoAnimaliaEngine.FlipResult.MATCH || result == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                            closed++;
+                        }
+                        if (result == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                            host.submitHide("a", index, -1);
+                        }
+                    }
+                    return closed;
+                }));
+            }
+            int closed = 0;
+            for (Future<Integer> f : turns) {
+                closed += f.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+
+            assertEquals(closed, (int) host.withEngine("a", MemoAnimaliaEngine::getAttempts));
+        }
+    }
+
+    @Test
+    void testUnknownSessionFailsFuture() {
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(4, 5, IDS, 30)) {
+            CompletableFuture<MemoAnimaliaEngine.FlipResult> flip = host.submitFlip("nadie", 0);
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> flip.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+    }
+}
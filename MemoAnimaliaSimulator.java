@@ -0,0 +1,553 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Simulador Monte Carlo del juego MemoAnimalia sin interfaz gráfica. Juega
+ * muchas partidas en paralelo usando todos los núcleos para estimar la tasa de
+ * victorias y la distribución de intentos de cada configuración (filas,
+ * columnas, límite de intentos).
+ *
+ * Cada trabajador usa su propio motor, su propia estrategia y su propio
+ * SplittableRandom, de modo que no se comparte estado mutable entre hilos.
+ */
+public class MemoAnimaliaSimulator {
+
+    /**
+     * Cantidad de bloques de partidas por hilo, para repartir mejor la carga
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Estrategia de un jugador simulado. Cada trabajador crea su propia
+     * instancia, por lo que las implementaciones no necesitan ser seguras
+     * entre hilos.
+     */
+    public interface PlayerStrategy {
+
+        /**
+         * Se llama al comenzar cada partida con el tablero ya mezclado
+         */
+        void newGame(MemoAnimaliaEngine engine);
+
+        /**
+         * Elige la próxima carta a voltear
+         *
+         * @param engine Motor de la partida en curso
+         * @param firstIndex Carta ya volteada en este turno, o -1 si es la
+         * primera
+         * @param random Generador del trabajador
+         * @return Índice de una carta oculta
+         */
+        int chooseCard(MemoAnimaliaEngine engine, int firstIndex, SplittableRandom random);
+
+        /**
+         * Informa el símbolo de la carta que se acaba de voltear
+         */
+        default void cardRevealed(int index, int symbolId) {
+        }
+
+        /**
+         * Informa el resultado del turno completo
+         */
+        default void turnFinished(int index1, int index2, boolean matched) {
+        }
+    }
+
+    /**
+     * Jugador sin memoria: voltea dos cartas ocultas al azar en cada turno.
+     */
+    public static class RandomPlayer implements PlayerStrategy {
+
+        /**
+         * Posiciones que todavía no fueron emparejadas
+         */
+        private int[] pool = new int[0];
+        private int remaining;
+
+        @Override
+        public void newGame(MemoAnimaliaEngine engine) {
+            if (pool.length != engine.getSize()) {
+                pool = new int[engine.getSize()];
+            }
+            remaining = 0;
+            for (int i = 0; i < pool.length; ++i) {
+                if (!engine.isMatched(i)) {
+                    pool[remaining++] = i;
+                }
+            }
+        }
+
+        @Override
+        public int chooseCard(MemoAnimaliaEngine engine, int firstIndex, SplittableRandom random) {
+            if (firstIndex < 0) {
+                return pool[random.nextInt(remaining)];
+            }
+            // Elegir uniformemente entre las demás posiciones
+            int candidate = pool[random.nextInt(remaining - 1)];
+            return candidate == firstIndex ? pool[remaining - 1] : candidate;
+        }
+
+        @Override
+        public void turnFinished(int index1, int index2, boolean matched) {
+            if (matched) {
+                remove(index1);
+                remove(index2);
+            }
+        }
+
+        private void remove(int index) {
+            for (int i = 0; i < remaining; ++i) {
+                if (pool[i] == index) {
+                    pool[i] = pool[--remaining];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Jugador de memoria perfecta: recuerda cada carta vista y nunca repite
+     * un error.
+     *
+     * En cada turno, si conoce dos cartas ocultas del mismo símbolo las
+     * voltea. Si no, voltea una carta nunca vista; si su símbolo ya se vio
+     * completa la pareja y, si es nuevo, explora otra carta nunca vista. En el
+     * juego solitario esta política minimiza los intentos esperados: explorar
+     * con la segunda carta nunca es peor que voltear una conocida, porque no
+     * hay rival que aproveche lo revelado.
+     *
+     * Solo usa lo que el motor muestra al voltear, no lee los símbolos de
+     * antemano. Los arreglos se reservan al cambiar el tamaño del tablero; una
+     * partida no reserva memoria.
+     */
+    public static class PerfectMemoryPlayer implements PlayerStrategy {
+
+        private static final int NONE = -1;
+
+        /**
+         * Cartas nunca vistas, con su posición en el arreglo para quitarlas
+         * en O(1)
+         */
+        private int[] unseen = new int[0];
+        private int[] unseenSlot = new int[0];
+        private int unseenCount;
+
+        /**
+         * Cartas vistas y no emparejadas de cada símbolo, como lista
+         * doblemente enlazada sobre los índices del tablero
+         */
+        private int[] knownHead = new int[0];
+        private int[] knownCount = new int[0];
+        private int[] next = new int[0];
+        private int[] prev = new int[0];
+        private int[] symbolAt = new int[0];
+
+        /**
+         * Símbolos con al menos dos cartas conocidas, listos para emparejar
+         */
+        private int[] pairs = new int[0];
+        private int[] pairSlot = new int[0];
+        private int pairCount;
+
+        @Override
+        public void newGame(MemoAnimaliaEngine engine) {
+            int size = engine.getSize();
+            if (unseen.length != size) {
+                unseen = new int[size];
+                unseenSlot = new int[size];
+                next = new int[size];
+                prev = new int[size];
+                symbolAt = new int[size];
+            }
+            int symbols = engine.getSymbolCount();
+            if (knownHead.length != symbols) {
+                knownHead = new int[symbols];
+                knownCount = new int[symbols];
+                pairs = new int[symbols];
+                pairSlot = new int[symbols];
+            }
+            Arrays.fill(knownHead, NONE);
+            Arrays.fill(knownCount, 0);
+            Arrays.fill(pairSlot, NONE);
+            pairCount = 0;
+            unseenCount = 0;
+            for (int i = 0; i < size; ++i) {
+                unseenSlot[i] = NONE;
+                if (!engine.isMatched(i)) {
+                    unseenSlot[i] = unseenCount;
+                    unseen[unseenCount++] = i;
+                }
+            }
+        }
+
+        @Override
+        public int chooseCard(MemoAnimaliaEngine engine, int firstIndex, SplittableRandom random) {
+            if (firstIndex < 0) {
+                if (pairCount > 0) {
+                    return knownHead[pairs[pairCount - 1]];
+                }
+                return unseen[random.nextInt(unseenCount)];
+            }
+            // Pareja conocida de la primera carta, si la hay
+            int known = knownHead[symbolAt[firstIndex]];
+            if (known == firstIndex) {
+                known = next[known];
+            }
+            if (known != NONE) {
+                return known;
+            }
+            if (unseenCount > 0) {
+                return unseen[random.nextInt(unseenCount)];
+            }
+            // Sin cartas por descubrir la segunda es necesariamente un error
+            // conocido: cualquier otra carta vista sirve
+            for (int s = 0; s < knownHead.length; ++s) {
+                if (knownHead[s] != NONE && knownHead[s] != firstIndex) {
+                    return knownHead[s];
+                }
+            }
+            throw new IllegalStateException("No quedan cartas para voltear");
+        }
+
+        @Override
+        public void cardRevealed(int index, int symbolId) {
+            int slot = unseenSlot[index];
+            if (slot == NONE) {
+                return;
+            }
+            int last = unseen[--unseenCount];
+            unseen[slot] = last;
+            unseenSlot[last] = slot;
+            unseenSlot[index] = NONE;
+
+            symbolAt[index] = symbolId;
+            int head = knownHead[symbolId];
+            next[index] = head;
+            prev[index] = NONE;
+            if (head != NONE) {
+                prev[head] = index;
+            }
+            knownHead[symbolId] = index;
+            if (++knownCount[symbolId] == 2) {
+                pairSlot[symbolId] = pairCount;
+                pairs[pairCount++] = symbolId;
+            }
+        }
+
+        @Override
+        public void turnFinished(int index1, int index2, boolean matched) {
+            if (matched) {
+                forget(index1);
+                forget(index2);
+            }
+        }
+
+        private void forget(int index) {
+            int symbol = symbolAt[index];
+            if (prev[index] != NONE) {
+                next[prev[index]] = next[index];
+            } else {
+                knownHead[symbol] = next[index];
+            }
+            if (next[index] != NONE) {
+                prev[next[index]] = prev[index];
+            }
+            if (--knownCount[symbol] == 1) {
+                int slot = pairSlot[symbol];
+                int last = pairs[--pairCount];
+                pairs[slot] = last;
+                pairSlot[last] = slot;
+                pairSlot[symbol] = NONE;
+            }
+        }
+    }
+
+    /**
+     * Resultado agregado de una simulación para una configuración.
+     */
+    public static final class Result {
+
+        private final int rows;
+        private final int cols;
+        private final int attemptLimit;
+        private long games;
+        private long wins;
+        /**
+         * Partidas ganadas según los intentos usados (0..attemptLimit)
+         */
+        private final long[] winAttempts;
+
+        Result(int rows, int cols, int attemptLimit) {
+            this.rows = rows;
+            this.cols = cols;
+            this.attemptLimit = attemptLimit;
+            this.winAttempts = new long[attemptLimit + 1];
+        }
+
+        void recordGame(boolean won, int attempts) {
+            games++;
+            if (won) {
+                wins++;
+                winAttempts[attempts]++;
+            }
+        }
+
+        Result merge(Result other) {
+            games += other.games;
+            wins += other.wins;
+            for (int i = 0; i < winAttempts.length; ++i) {
+                winAttempts[i] += other.winAttempts[i];
+            }
+            return this;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getCols() {
+            return cols;
+        }
+
+        public int getAttemptLimit() {
+            return attemptLimit;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getWins() {
+            return wins;
+        }
+
+        public double getWinRate() {
+            return games == 0 ? 0.0 : (double) wins / games;
+        }
+
+        /**
+         * Copia del histograma de intentos de las partidas ganadas
+         */
+        public long[] getWinAttemptsHistogram() {
+            return winAttempts.clone();
+        }
+
+        /**
+         * Promedio de intentos de las partidas ganadas
+         */
+        public double getMeanWinAttempts() {
+            if (wins == 0) {
+                return 0.0;
+            }
+            double total = 0;
+            for (int i = 0; i < winAttempts.length; ++i) {
+                total += (double) i * winAttempts[i];
+            }
+            return total / wins;
+        }
+
+        /**
+         * Fracción de las partidas jugadas que se ganaron usando como máximo
+         * la cantidad de intentos indicada. Sirve para elegir un límite de
+         * intentos a partir de una simulación sin límite.
+         */
+        public double getWinRateWithin(int attempts) {
+            if (games == 0) {
+                return 0.0;
+            }
+            long won = 0;
+            for (int i = 0; i <= Math.min(attempts, attemptLimit); ++i) {
+                won += winAttempts[i];
+            }
+            return (double) won / games;
+        }
+
+        /**
+         * Percentil de intentos de las partidas ganadas
+         *
+         * @param p Percentil entre 0 y 100
+         */
+        public int getWinAttemptsPercentile(double p) {
+            long target = (long) Math.ceil(wins * p / 100.0);
+            long seen = 0;
+            for (int i = 0; i < winAttempts.length; ++i) {
+                seen += winAttempts[i];
+                if (seen >= target && seen > 0) {
+                    return i;
+                }
+            }
+            return attemptLimit;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%dx%d limite=%d partidas=%d victorias=%.2f%% intentos(media=%.2f p50=%d p90=%d p99=%d)",
+                    rows, cols, attemptLimit, games, getWinRate() * 100.0, getMeanWinAttempts(),
+                    getWinAttemptsPercentile(50), getWinAttemptsPercentile(90), getWinAttemptsPercentile(99));
+        }
+    }
+
+    private final List<String> imageIds;
+    private final Supplier<? extends PlayerStrategy> strategyFactory;
+    private final int parallelism;
+
+    /**
+     * Constructor del simulador
+     *
+     * @param imageIds Animales del mazo
+     * @param strategyFactory Crea una estrategia nueva para cada trabajador
+     * @param parallelism Cantidad de hilos a usar
+     */
+    public MemoAnimaliaSimulator(List<String> imageIds, Supplier<? extends PlayerStrategy> strategyFactory, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism debe ser positivo: " + parallelism);
+        }
+        this.imageIds = imageIds;
+        this.strategyFactory = strategyFactory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Simulador que usa todos los núcleos disponibles
+     */
+    public MemoAnimaliaSimulator(List<String> imageIds, Supplier<? extends PlayerStrategy> strategyFactory) {
+        this(imageIds, strategyFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Juega la cantidad indicada de partidas repartidas entre los hilos
+     *
+     * @param rows Filas del tablero
+     * @param cols Columnas del tablero
+     * @param attemptLimit Límite de intentos de cada partida
+     * @param games Cantidad total de partidas
+     * @param seed Semilla del generador raíz
+     * @return Resultado agregado
+     */
+    public Result simulate(int rows, int cols, int attemptLimit, long games, long seed) {
+        int chunks = (int) Math.max(1, Math.min(games, (long) parallelism * CHUNKS_PER_THREAD));
+
+        // Los generadores se separan antes de repartir el trabajo, porque
+        // SplittableRandom no es seguro entre hilos
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; ++c) {
+            randoms[c] = root.split();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> IntStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(c -> {
+                        long chunkGames = games / chunks + (c < games % chunks ? 1 : 0);
+                        return runChunk(rows, cols, attemptLimit, chunkGames, randoms[c]);
+                    })
+                    .reduce(Result::merge)
+                    .orElseGet(() -> new Result(rows, cols, attemptLimit))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error durante la simulación: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Juega un bloque de partidas en un solo hilo
+     */
+    private Result runChunk(int rows, int cols, int attemptLimit, long games, SplittableRandom random) {
+        Result result = new Result(rows, cols, attemptLimit);
+        PlayerStrategy strategy = strategyFactory.get();
+
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(rows, cols, imageIds, attemptLimit);
+        for (long g = 0; g < games; ++g) {
+            // La disposición sale del generador del bloque, así que la misma
+            // semilla repite exactamente las mismas partidas
+            engine.resetForGame(random.nextLong());
+            playGame(engine, strategy, random);
+            result.recordGame(engine.isGameWon(), engine.getAttempts());
+        }
+        return result;
+    }
+
+    /**
+     * Juega una partida completa hasta ganar o agotar los intentos
+     */
+    static void playGame(MemoAnimaliaEngine engine, PlayerStrategy strategy, SplittableRandom random) {
+        strategy.newGame(engine);
+
+        while (!engine.isGameWon() && engine.getAttempts() < engine.getAttemptLimit()) {
+            int first = strategy.chooseCard(engine, -1, random);
+            checkFlip(engine.flipCard(first), first);
+            strategy.cardRevealed(first, engine.getSymbolId(first));
+
+            int second = strategy.chooseCard(engine, first, random);
+            MemoAnimaliaEngine.FlipResult result = engine.flipCard(second);
+            checkFlip(result, second);
+            strategy.cardRevealed(second, engine.getSymbolId(second));
+
+            boolean matched = result == MemoAnimaliaEngine.FlipResult.MATCH;
+            if (!matched) {
+                engine.hideCards(first, second);
+            }
+            strategy.turnFinished(first, second, matched);
+        }
+    }
+
+    private static void checkFlip(MemoAnimaliaEngine.FlipResult result, int index) {
+        if (result == MemoAnimaliaEngine.FlipResult.ALREADY_REVEALED
+                || result == MemoAnimaliaEngine.FlipResult.INVALID_INDEX) {
+            throw new IllegalStateException("La estrategia eligió una carta no válida: " + index + " (" + result + ")");
+        }
+    }
+
+    /**
+     * Ejecuta un barrido de configuraciones desde consola con el jugador al
+     * azar y con el de memoria perfecta. Para el segundo se informa además
+     * la fracción de partidas que se ganarían con el límite por defecto.
+     *
+     * Uso: MemoAnimaliaSimulator [partidas] [filas columnas límite]...
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+        int[][] configs = {{3, 3, 12}, {4, 4, 20}, {6, 6, 40}};
+        if (args.length > 1) {
+            configs = new int[(args.length - 1) / 3][];
+            for (int i = 0; i < configs.length; ++i) {
+                configs[i] = new int[]{
+                    Integer.parseInt(args[1 + i * 3]),
+                    Integer.parseInt(args[2 + i * 3]),
+                    Integer.parseInt(args[3 + i * 3])};
+            }
+        }
+
+        List<String> ids = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo");
+        MemoAnimaliaSimulator random = new MemoAnimaliaSimulator(ids, RandomPlayer::new);
+        MemoAnimaliaSimulator perfect = new MemoAnimaliaSimulator(ids, PerfectMemoryPlayer::new);
+
+        for (int[] config : configs) {
+            Result best = null;
+            for (MemoAnimaliaSimulator simulator : new MemoAnimaliaSimulator[]{random, perfect}) {
+                long start = System.nanoTime();
+                Result result = simulator.simulate(config[0], config[1], config[2], games, start);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.println((simulator == random ? "azar:     " : "perfecto: ") + result);
+                System.out.printf("  %.2f s, %.0f partidas/s con %d hilos%n", seconds, games / seconds, simulator.parallelism);
+                best = result;
+            }
+            if (config[2] >= MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT) {
+                System.out.printf("  perfecto con DEFAULT_ATTEMPT_LIMIT=%d: %.2f%% de victorias%n",
+                        MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT,
+                        best.getWinRateWithin(MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT) * 100.0);
+            }
+        }
+    }
+}
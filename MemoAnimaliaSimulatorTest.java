@@ -0,0 +1,45 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class MemoAnimaliaSimulatorTest {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo");
+
+    @Test
+    void testPerfectMemoryPlayerNeverWastesATurn() {
+        for (int[] board : new int[][]{{3, 3}, {4, 4}, {5, 6}, {8, 8}}) {
+            int pairs = board[0] * board[1] / 2;
+            MemoAnimaliaSimulator.Result result = new MemoAnimaliaSimulator(IDS, MemoAnimaliaSimulator.PerfectMemoryPlayer::new, 1)
+                    .simulate(board[0], board[1], 10_000, 2_000, 11L);
+            assertEquals(result.getGames(), result.getWins());
+            // Con memoria perfecta cada turno descubre una carta nueva o
+            // empareja, así que nunca hacen falta más de cartas - 1
+            assertTrue(result.getWinAttemptsPercentile(100) <= board[0] * board[1] - 1, result.toString());
+            assertTrue(result.getWinAttemptsPercentile(0.01) >= pairs, result.toString());
+        }
+    }
+
+    @Test
+    void testPerfectMemoryPlayerBeatsRandomPlayer() {
+        MemoAnimaliaSimulator.Result random = new MemoAnimaliaSimulator(IDS, MemoAnimaliaSimulator.RandomPlayer::new, 1)
+                .simulate(4, 4, 1_000, 2_000, 5L);
+        MemoAnimaliaSimulator.Result perfect = new MemoAnimaliaSimulator(IDS, MemoAnimaliaSimulator.PerfectMemoryPlayer::new, 1)
+                .simulate(4, 4, 1_000, 2_000, 5L);
+        assertTrue(perfect.getMeanWinAttempts() < random.getMeanWinAttempts() / 2,
+                perfect + " / " + random);
+        assertEquals(1.0, perfect.getWinRateWithin(15), 0.0);
+    }
+
+    @Test
+    void testSameSeedGivesSameResult() {
+        MemoAnimaliaSimulator simulator = new MemoAnimaliaSimulator(IDS, MemoAnimaliaSimulator.RandomPlayer::new, 4);
+        MemoAnimaliaSimulator.Result first = simulator.simulate(4, 4, 30, 5_000, 9L);
+        MemoAnimaliaSimulator.Result second = simulator.simulate(4, 4, 30, 5_000, 9L);
+        MemoAnimaliaSimulator.Result other = simulator.simulate(4, 4, 30, 5_000, 10L);
+
+        assertEquals(first.getWins(), second.getWins());
+        assertArrayEquals(first.getWinAttemptsHistogram(), second.getWinAttemptsHistogram());
+        assertFalse(Arrays.equals(first.getWinAttemptsHistogram(), other.getWinAttemptsHistogram()));
+    }
+}
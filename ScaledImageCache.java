@@ -0,0 +1,334 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché en disco de imágenes ya redimensionadas, guardadas como píxeles ARGB
+ * sin comprimir. En los arranques siguientes el archivo se mapea en memoria y
+ * las imágenes se construyen copiando sus píxeles, sin decodificar PNG/JPEG ni
+ * volver a escalar.
+ *
+ * Cada entrada se identifica por la ruta del asset y el cardSize con que se
+ * escaló, así que varios tamaños de carta conviven en la caché. Además guarda
+ * la fecha de modificación y el tamaño en bytes del asset; si alguno no
+ * coincide, la entrada se considera vieja, se ignora y se descarta en el
+ * siguiente flush().
+ *
+ * Nunca se reescribe un archivo que puede estar mapeado (en Windows no se
+ * puede reemplazar): cada flush() escribe una generación nueva junto al
+ * archivo indicado ("nombre.1", "nombre.2", ...), la mapea y borra las
+ * anteriores que se puedan borrar. Al abrir se usa la generación más nueva.
+ *
+ * Formato (big endian): magic, versión, cantidad de entradas y luego, por
+ * entrada: ruta (short + UTF-8), mtime, tamaño, cardSize, ancho, alto y
+ * ancho * alto píxeles int.
+ */
+public class ScaledImageCache {
+
+    private static final int MAGIC = 0x4D41_4943; // "MAIC"
+    private static final int VERSION = 1;
+    private static final String DEFAULT_FILE = "image-cache-v" + VERSION + ".bin";
+
+    /**
+     * Ubicación de una entrada dentro del archivo mapeado
+     */
+    private static final class Entry {
+
+        final String path;
+        final long lastModified;
+        final long length;
+        final int cardSize;
+        final int width;
+        final int height;
+        final int pixelOffset;
+
+        Entry(String path, long lastModified, long length, int cardSize, int width, int height, int pixelOffset) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.cardSize = cardSize;
+            this.width = width;
+            this.height = height;
+            this.pixelOffset = pixelOffset;
+        }
+    }
+
+    /**
+     * Entrada nueva que todavía no se escribió
+     */
+    private static final class Pending {
+
+        final String path;
+        final long lastModified;
+        final long length;
+        final int cardSize;
+        final BufferedImage image;
+
+        Pending(String path, long lastModified, long length, int cardSize, BufferedImage image) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.cardSize = cardSize;
+            this.image = image;
+        }
+    }
+
+    /**
+     * Una generación del archivo mapeada junto con su índice. Se reemplaza
+     * entera en cada flush() para que lookup() nunca mezcle dos generaciones.
+     */
+    private static final class Generation {
+
+        final Path path;
+        final int number;
+        final MappedByteBuffer mapped;
+        final Map<String, Entry> index;
+
+        Generation(Path path, int number, MappedByteBuffer mapped, Map<String, Entry> index) {
+            this.path = path;
+            this.number = number;
+            this.mapped = mapped;
+            this.index = index;
+        }
+    }
+
+    private final Path file;
+    private volatile Generation current;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Abre la caché en el archivo indicado. Un archivo inexistente, de otra
+     * versión o dañado se trata como caché vacía.
+     */
+    public ScaledImageCache(Path file) {
+        this.file = file;
+        int newest = FileGenerations.newest(file);
+        Generation generation = new Generation(FileGenerations.path(file, newest), newest, null, new HashMap<>());
+        if (newest > 0) {
+            try {
+                generation = map(generation.path, newest);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Caché de imágenes ignorada (" + generation.path + "): " + e.getMessage());
+            }
+        }
+        this.current = generation;
+    }
+
+    private static Generation map(Path path, int number) throws IOException {
+        Map<String, Entry> entries = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readIndex(buffer, entries);
+            return new Generation(path, number, buffer, entries);
+        }
+    }
+
+    /**
+     * Borra todas las generaciones del archivo de caché. Las que sigan
+     * mapeadas por otra caché abierta pueden no borrarse (en Windows).
+     */
+    public static void delete(Path file) {
+        FileGenerations.deleteAll(file);
+    }
+
+    /**
+     * Caché en la ubicación por defecto (~/.memoanimalia), o null si se
+     * desactivó con -Dmemoanimalia.imageCache=false
+     */
+    public static ScaledImageCache openDefault() {
+        if (!Boolean.parseBoolean(System.getProperty("memoanimalia.imageCache", "true"))) {
+            return null;
+        }
+        return new ScaledImageCache(Paths.get(System.getProperty("user.home"), ".memoanimalia", DEFAULT_FILE));
+    }
+
+    private static void readIndex(ByteBuffer buffer, Map<String, Entry> entries) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("encabezado no reconocido");
+        }
+        int count = buffer.getInt();
+        for (int i = 0; i < count; ++i) {
+            byte[] key = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(key);
+            long lastModified = buffer.getLong();
+            long length = buffer.getLong();
+            int cardSize = buffer.getInt();
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int offset = buffer.position();
+            String path = new String(key, StandardCharsets.UTF_8);
+            entries.put(keyOf(path, cardSize),
+                    new Entry(path, lastModified, length, cardSize, width, height, offset));
+            buffer.position(offset + width * height * Integer.BYTES);
+        }
+    }
+
+    private static String keyOf(String path, int cardSize) {
+        return path + '@' + cardSize;
+    }
+
+    private static boolean isFresh(Entry entry, File source) {
+        return entry.lastModified == source.lastModified()
+                && entry.length == source.length();
+    }
+
+    /**
+     * Busca la imagen escalada de un asset. Puede llamarse desde varios hilos.
+     *
+     * @return La imagen, o null si no está o está vieja
+     */
+    public BufferedImage lookup(File source, int cardSize) {
+        Generation generation = current;
+        Entry entry = generation.index.get(keyOf(source.getAbsolutePath(), cardSize));
+        if (entry == null || !isFresh(entry, source)) {
+            misses.increment();
+            return null;
+        }
+        BufferedImage image = new BufferedImage(entry.width, entry.height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        // duplicate() para no compartir la posición entre hilos
+        IntBuffer ints = ((ByteBuffer) generation.mapped.duplicate().position(entry.pixelOffset)).asIntBuffer();
+        ints.get(pixels, 0, pixels.length);
+        hits.increment();
+        return image;
+    }
+
+    /**
+     * Registra una imagen recién escalada para escribirla en el próximo
+     * flush(). Puede llamarse desde varios hilos.
+     */
+    public void store(File source, int cardSize, BufferedImage image) {
+        String path = source.getAbsolutePath();
+        pending.put(keyOf(path, cardSize), new Pending(path, source.lastModified(), source.length(), cardSize, image));
+    }
+
+    /**
+     * Escribe una generación nueva si hubo entradas nuevas. Conserva las
+     * entradas anteriores que siguen vigentes y descarta las viejas. La
+     * generación se mueve a su nombre definitivo de forma atómica, así que
+     * otro proceso nunca lee una a medias, y después pasa a ser la que usa
+     * lookup().
+     */
+    public synchronized void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Generation old = current;
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (Map.Entry<String, Entry> e : old.index.entrySet()) {
+            if (isFresh(e.getValue(), new File(e.getValue().path))) {
+                entries.put(e.getKey(), e.getValue());
+            }
+        }
+        entries.putAll(pending);
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "image-cache", ".tmp");
+        int number;
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(12);
+                header.putInt(MAGIC).putInt(VERSION).putInt(entries.size()).flip();
+                writeFully(out, header);
+                for (Object value : entries.values()) {
+                    writeEntry(out, old.mapped, value);
+                }
+            }
+            number = FileGenerations.publish(file, tmp, old.number);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        current = map(FileGenerations.path(file, number), number);
+        // Solo se quitan las que se escribieron; un store() concurrente queda
+        // para el próximo flush()
+        pending.entrySet().removeIf(e -> entries.get(e.getKey()) == e.getValue());
+
+        FileGenerations.deleteOlder(file, number);
+    }
+
+    private static void writeEntry(FileChannel out, MappedByteBuffer mapped, Object value) throws IOException {
+        String path;
+        long lastModified;
+        long length;
+        int cardSize;
+        int width;
+        int height;
+        ByteBuffer pixels;
+        if (value instanceof Pending) {
+            Pending p = (Pending) value;
+            path = p.path;
+            lastModified = p.lastModified;
+            length = p.length;
+            cardSize = p.cardSize;
+            width = p.image.getWidth();
+            height = p.image.getHeight();
+            int[] argb = p.image.getRGB(0, 0, width, height, null, 0, width);
+            pixels = ByteBuffer.allocate(argb.length * Integer.BYTES);
+            pixels.asIntBuffer().put(argb);
+        } else {
+            Entry old = (Entry) value;
+            path = old.path;
+            lastModified = old.lastModified;
+            length = old.length;
+            cardSize = old.cardSize;
+            width = old.width;
+            height = old.height;
+            pixels = mapped.duplicate();
+            pixels.position(old.pixelOffset).limit(old.pixelOffset + width * height * Integer.BYTES);
+        }
+
+        byte[] keyBytes = path.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(2 + keyBytes.length + 8 + 8 + 4 + 4 + 4);
+        header.putShort((short) keyBytes.length).put(keyBytes)
+                .putLong(lastModified).putLong(length)
+                .putInt(cardSize).putInt(width).putInt(height).flip();
+        writeFully(out, header);
+        writeFully(out, pixels.slice());
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Imágenes servidas desde la caché
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Búsquedas sin entrada vigente
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Archivo de la generación en uso; puede no existir todavía
+     */
+    public Path getFile() {
+        return current.path;
+    }
+}
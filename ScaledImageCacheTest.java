@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ScaledImageCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private Path cacheFile;
+    private File asset;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cacheFile = dir.resolve("cache.bin");
+        asset = dir.resolve("gato.png").toFile();
+        Files.write(asset.toPath(), new byte[]{1, 2, 3, 4});
+    }
+
+    private static BufferedImage image(int size, int argb) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                image.setRGB(x, y, argb + x + y * size);
+            }
+        }
+        return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int w = expected.getWidth();
+        int h = expected.getHeight();
+        assertArrayEquals(expected.getRGB(0, 0, w, h, null, 0, w), actual.getRGB(0, 0, w, h, null, 0, w));
+    }
+
+    @Test
+    void testRoundTrip() throws Exception {
+        BufferedImage scaled = image(8, 0xFF102030);
+        ScaledImageCache cache = new ScaledImageCache(cacheFile);
+        assertNull(cache.lookup(asset, 8));
+        cache.store(asset, 8, scaled);
+        cache.flush();
+
+        ScaledImageCache reopened = new ScaledImageCache(cacheFile);
+        assertSamePixels(scaled, reopened.lookup(asset, 8));
+        assertEquals(1, reopened.getHits());
+    }
+
+    @Test
+    void testStaleModificationTimeIsAMiss() throws Exception {
+        ScaledImageCache cache = new ScaledImageCache(cacheFile);
+        cache.store(asset, 8, image(8, 0xFF000000));
+        cache.flush();
+
+        assertTrue(asset.setLastModified(asset.lastModified() - 60_000));
+        assertNull(new ScaledImageCache(cacheFile).lookup(asset, 8));
+    }
+
+    @Test
+    void testChangedAssetLengthIsAMiss() throws Exception {
+        ScaledImageCache cache = new ScaledImageCache(cacheFile);
+        cache.store(asset, 8, image(8, 0xFF000000));
+        cache.flush();
+
+        long modified = asset.lastModified();
+        Files.write(asset.toPath(), new byte[]{1, 2, 3, 4, 5, 6});
+        assertTrue(asset.setLastModified(modified));
+        assertNull(new ScaledImageCache(cacheFile).lookup(asset, 8));
+    }
+
+    @Test
+    void testCardSizesCoexist() throws Exception {
+        BufferedImage small = image(4, 0xFF000000);
+        BufferedImage big = image(8, 0xFF00FF00);
+        ScaledImageCache cache = new ScaledImageCache(cacheFile);
+        cache.store(asset, 4, small);
+        cache.flush();
+        cache.store(asset, 8, big);
+        cache.flush();
+
+        ScaledImageCache reopened = new ScaledImageCache(cacheFile);
+        assertSamePixels(small, reopened.lookup(asset, 4));
+        assertSamePixels(big, reopened.lookup(asset, 8));
+        assertNull(reopened.lookup(asset, 16));
+    }
+
+    @Test
+    void testFlushWritesNewGenerationWhileMapped() throws Exception {
+        ScaledImageCache cache = new ScaledImageCache(cacheFile);
+        cache.store(asset, 4, image(4, 0xFF000000));
+        cache.flush();
+        Path first = cache.getFile();
+        assertNotNull(cache.lookup(asset, 4));
+
+        cache.store(asset, 8, image(8, 0xFF000000));
+        cache.flush();
+
+        assertNotEquals(first, cache.getFile());
+        assertNotNull(cache.lookup(asset, 4), "La generación nueva conserva las entradas anteriores");
+        assertNotNull(cache.lookup(asset, 8));
+        assertEquals(cache.getFile(), new ScaledImageCache(cacheFile).getFile());
+
+        ScaledImageCache.delete(cacheFile);
+        assertNull(new ScaledImageCache(cacheFile).lookup(asset, 4));
+    }
+}
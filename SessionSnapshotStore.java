@@ -0,0 +1,314 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Archivo de instantáneas de muchas partidas en curso, pensado para que un
+ * anfitrión pueda reiniciarse sin perder sus sesiones.
+ *
+ * Todas las sesiones comparten la configuración del motor, que se guarda una
+ * sola vez al principio. Le sigue un índice con el id de cada sesión y la
+ * posición de su registro, y luego los registros. Al abrir el archivo solo se
+ * lee el índice; el archivo queda mapeado en memoria y cada sesión se decodifica
+ * recién cuando alguien la pide con restore().
+ *
+ * Como el archivo puede seguir mapeado mientras se guarda otra instantánea
+ * con el mismo nombre, cada write() crea una generación nueva (ver
+ * FileGenerations) y open() lee la más nueva.
+ *
+ * Formato (big endian):
+ * <pre>
+ * magic "MASS", versión
+ * filas, columnas, límite de intentos, bytes por símbolo (1, 2 o 4)
+ * cantidad de símbolos, cada nombre (short + UTF-8), mazo original (int por carta)
+ * cantidad de sesiones, por sesión: id (short + UTF-8) y posición (long)
+ * registros: attempts, matchesFound, firstSelectedIndex (int), semilla
+ * (byte de presencia + long), disposición (un símbolo por carta) y las
+ * palabras de bits reveladas y emparejadas (long)
+ * </pre>
+ */
+public class SessionSnapshotStore {
+
+    private static final int MAGIC = 0x4D41_5353; // "MASS"
+    private static final int VERSION = 1;
+
+    private final int rows;
+    private final int cols;
+    private final int attemptLimit;
+    private final String[] names;
+    private final int[] deck;
+    private final int symbolBytes;
+    private final MappedByteBuffer mapped;
+    private final Map<String, Long> index;
+
+    private SessionSnapshotStore(int rows, int cols, int attemptLimit, String[] names, int[] deck, int symbolBytes,
+            MappedByteBuffer mapped, Map<String, Long> index) {
+        this.rows = rows;
+        this.cols = cols;
+        this.attemptLimit = attemptLimit;
+        this.names = names;
+        this.deck = deck;
+        this.symbolBytes = symbolBytes;
+        this.mapped = mapped;
+        this.index = index;
+    }
+
+    private static int symbolBytesFor(int symbolCount) {
+        return symbolCount <= 0x100 ? 1 : symbolCount <= 0x10000 ? 2 : 4;
+    }
+
+    private static int recordSize(int size, int symbolBytes) {
+        int words = (size + 63) >>> 6;
+        return 3 * Integer.BYTES + 1 + Long.BYTES + size * symbolBytes + 2 * words * Long.BYTES;
+    }
+
+    /**
+     * Escribe las instantáneas de varias sesiones como una generación nueva
+     * del archivo. Nunca se reescribe una generación anterior, así que quien
+     * la tenga mapeada sigue viéndola; se borra cuando ya no está en uso.
+     *
+     * @param file Archivo de destino
+     * @param template Motor con la configuración común a todas las sesiones
+     * @param states Estado de cada sesión por id
+     */
+    public static void write(Path file, MemoAnimaliaEngine template, Map<String, MemoAnimaliaEngine.GameState> states)
+            throws IOException {
+        int size = template.getSize();
+        int symbolCount = template.getSymbolCount();
+        int symbolBytes = symbolBytesFor(symbolCount);
+        int recordSize = recordSize(size, symbolBytes);
+
+        byte[][] nameBytes = new byte[symbolCount][];
+        long headerSize = 4 * Integer.BYTES + 2 * Integer.BYTES + Integer.BYTES + (long) size * Integer.BYTES + Integer.BYTES;
+        for (int s = 0; s < symbolCount; ++s) {
+            nameBytes[s] = template.getSymbolName(s).getBytes(StandardCharsets.UTF_8);
+            headerSize += Short.BYTES + nameBytes[s].length;
+        }
+        byte[][] idBytes = new byte[states.size()][];
+        int i = 0;
+        for (String id : states.keySet()) {
+            idBytes[i] = id.getBytes(StandardCharsets.UTF_8);
+            if (idBytes[i].length > 0xFFFF) {
+                throw new IllegalArgumentException("Id de sesión demasiado largo: " + id);
+            }
+            headerSize += Short.BYTES + idBytes[i].length + Long.BYTES;
+            i++;
+        }
+        long total = headerSize + (long) recordSize * states.size();
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "sessions", ".tmp");
+        int number;
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Se escribe sobre el archivo mapeado: sin copias intermedias
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, total);
+                out.putInt(MAGIC).putInt(VERSION);
+                out.putInt(template.getRows()).putInt(template.getCols()).putInt(template.getAttemptLimit()).putInt(symbolBytes);
+                out.putInt(symbolCount);
+                for (byte[] name : nameBytes) {
+                    out.putShort((short) name.length).put(name);
+                }
+                for (int symbol : template.deckSymbols()) {
+                    out.putInt(symbol);
+                }
+                out.putInt(states.size());
+                long offset = headerSize;
+                for (byte[] id : idBytes) {
+                    out.putShort((short) id.length).put(id).putLong(offset);
+                    offset += recordSize;
+                }
+                for (MemoAnimaliaEngine.GameState state : states.values()) {
+                    if (state.getSize() != size) {
+                        throw new IllegalArgumentException("Estado de " + state.getSize() + " cartas en un tablero de " + size);
+                    }
+                    writeRecord(out, state, symbolBytes);
+                }
+                out.force();
+            }
+            number = FileGenerations.publish(file, tmp, 0);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        FileGenerations.deleteOlder(file, number);
+    }
+
+    /**
+     * Archivo que lee open(): la generación más nueva, o el propio archivo si
+     * no hay ninguna (instantáneas anteriores a las generaciones)
+     */
+    public static Path current(Path file) {
+        int newest = FileGenerations.newest(file);
+        return newest == 0 ? file : FileGenerations.path(file, newest);
+    }
+
+    /**
+     * Borra todas las generaciones del archivo. Las que sigan mapeadas pueden
+     * no borrarse (en Windows).
+     */
+    public static void delete(Path file) {
+        FileGenerations.deleteAll(file);
+    }
+
+    private static void writeRecord(ByteBuffer out, MemoAnimaliaEngine.GameState state, int symbolBytes) {
+        out.putInt(state.getAttempts()).putInt(state.getMatchesFound()).putInt(state.getFirstSelectedIndex());
+        out.put((byte) (state.hasGameSeed() ? 1 : 0)).putLong(state.getGameSeed());
+        for (int symbol : state.symbols()) {
+            if (symbolBytes == 1) {
+                out.put((byte) symbol);
+            } else if (symbolBytes == 2) {
+                out.putShort((short) symbol);
+            } else {
+                out.putInt(symbol);
+            }
+        }
+        for (long word : state.revealedBits()) {
+            out.putLong(word);
+        }
+        for (long word : state.matchedBits()) {
+            out.putLong(word);
+        }
+    }
+
+    /**
+     * Abre un archivo de instantáneas leyendo solo la configuración y el
+     * índice
+     *
+     * @throws IOException si el archivo no existe, es de otra versión o está
+     * dañado
+     */
+    public static SessionSnapshotStore open(Path file) throws IOException {
+        Path path = current(file);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IllegalArgumentException e) {
+            // map() no acepta más de 2 GB
+            throw new IOException("Archivo de instantáneas demasiado grande: " + path, e);
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Encabezado no reconocido en " + path);
+            }
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            int attemptLimit = buffer.getInt();
+            int symbolBytes = buffer.getInt();
+            if (symbolBytes != 1 && symbolBytes != 2 && symbolBytes != 4) {
+                throw new IOException("Bytes por símbolo no válidos en " + path + ": " + symbolBytes);
+            }
+            String[] names = new String[buffer.getInt()];
+            for (int s = 0; s < names.length; ++s) {
+                names[s] = readString(buffer);
+            }
+            int[] deck = new int[rows * cols];
+            for (int i = 0; i < deck.length; ++i) {
+                deck[i] = buffer.getInt();
+            }
+            int count = buffer.getInt();
+            Map<String, Long> index = new HashMap<>(count * 4 / 3 + 1);
+            long limit = buffer.capacity() - recordSize(deck.length, symbolBytes);
+            for (int i = 0; i < count; ++i) {
+                String id = readString(buffer);
+                long offset = buffer.getLong();
+                if (offset < 0 || offset > limit) {
+                    throw new IOException("Posición fuera del archivo para la sesión " + id);
+                }
+                index.put(id, offset);
+            }
+            return new SessionSnapshotStore(rows, cols, attemptLimit, names, deck, symbolBytes, buffer, index);
+        } catch (RuntimeException e) {
+            throw new IOException("Archivo de instantáneas dañado: " + path, e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indica si las sesiones del archivo pueden restaurarse en un motor
+     * como el indicado (mismo tablero, límite y mazo)
+     */
+    public boolean isCompatibleWith(MemoAnimaliaEngine engine) {
+        if (engine.getRows() != rows || engine.getCols() != cols || engine.getAttemptLimit() != attemptLimit
+                || engine.getSymbolCount() != names.length || !Arrays.equals(engine.deckSymbols(), deck)) {
+            return false;
+        }
+        for (int s = 0; s < names.length; ++s) {
+            if (!engine.getSymbolName(s).equals(names[s])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(String sessionId) {
+        return index.containsKey(sessionId);
+    }
+
+    public Set<String> getSessionIds() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    public int getSessionCount() {
+        return index.size();
+    }
+
+    /**
+     * Decodifica el estado guardado de una sesión. Puede llamarse desde
+     * varios hilos a la vez.
+     *
+     * @return El estado, o null si la sesión no está en el archivo
+     * @throws UncheckedIOException si el registro tiene símbolos o una carta
+     * elegida fuera del tablero
+     */
+    public MemoAnimaliaEngine.GameState restore(String sessionId) {
+        Long offset = index.get(sessionId);
+        if (offset == null) {
+            return null;
+        }
+        int size = deck.length;
+        int words = (size + 63) >>> 6;
+        // duplicate() para no compartir la posición entre hilos
+        ByteBuffer in = mapped.duplicate().position(Math.toIntExact(offset));
+        int attempts = in.getInt();
+        int matchesFound = in.getInt();
+        int firstSelectedIndex = in.getInt();
+        if (firstSelectedIndex < -1 || firstSelectedIndex >= size) {
+            throw damaged(sessionId, "carta elegida " + firstSelectedIndex);
+        }
+        boolean hasGameSeed = in.get() != 0;
+        long gameSeed = in.getLong();
+        int[] symbols = new int[size];
+        for (int i = 0; i < size; ++i) {
+            symbols[i] = symbolBytes == 1 ? in.get() & 0xFF : symbolBytes == 2 ? in.getShort() & 0xFFFF : in.getInt();
+            if (symbols[i] < 0 || symbols[i] >= names.length) {
+                throw damaged(sessionId, "símbolo " + symbols[i] + " en la carta " + i);
+            }
+        }
+        long[] revealed = new long[words];
+        long[] matched = new long[words];
+        in.asLongBuffer().get(revealed).get(matched);
+        return new MemoAnimaliaEngine.GameState(symbols, revealed, matched, attempts, matchesFound,
+                firstSelectedIndex, gameSeed, hasGameSeed);
+    }
+
+    private static UncheckedIOException damaged(String sessionId, String detail) {
+        return new UncheckedIOException(new IOException("Instantánea dañada de la sesión " + sessionId + ": " + detail));
+    }
+}
@@ -0,0 +1,136 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SessionSnapshotStoreTest {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro");
+
+    @Test
+    void testSnapshotRestoresSessionsLazily(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("sesiones.bin");
+        Map<String, MemoAnimaliaEngine.GameState> expected = new HashMap<>();
+
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(4, 5, IDS, 30)) {
+            SplittableRandom random = new SplittableRandom(3L);
+            for (int s = 0; s < 50; s++) {
+                String id = "s" + s;
+                host.openSession(id);
+                // Algunos volteos, a veces dejando una carta elegida
+                int flips = random.nextInt(7);
+                for (int f = 0; f < flips; f++) {
+                    int index = random.nextInt(20);
+                    if (host.flipCard(id, index) == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                        host.hideCards(id, index, -1);
+                    }
+                }
+                expected.put(id, host.withEngine(id, MemoAnimaliaEngine::captureState));
+            }
+            assertEquals(50, host.saveSnapshot(file));
+        }
+
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(4, 5, IDS, 30)) {
+            assertEquals(50, host.loadSnapshot(file));
+            assertEquals(50, host.getPendingSessionCount());
+            assertEquals(50, host.getSessionCount());
+
+            assertEquals(expected.get("s7"), host.withEngine("s7", MemoAnimaliaEngine::captureState));
+            assertEquals(49, host.getPendingSessionCount());
+            assertTrue(host.closeSession("s8"));
+            assertEquals(48, host.getPendingSessionCount());
+            assertThrows(IllegalArgumentException.class, () -> host.flipCard("s8", 0));
+
+            // Guardar de nuevo conserva también las sesiones sin restaurar
+            Path again = dir.resolve("sesiones2.bin");
+            assertEquals(49, host.saveSnapshot(again));
+            SessionSnapshotStore store = SessionSnapshotStore.open(again);
+            for (Map.Entry<String, MemoAnimaliaEngine.GameState> e : expected.entrySet()) {
+                if (!e.getKey().equals("s8")) {
+                    assertEquals(e.getValue(), store.restore(e.getKey()), e.getKey());
+                }
+            }
+            assertNull(store.restore("s8"));
+        }
+    }
+
+    @Test
+    void testSnapshotRejectsOtherBoards(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("sesiones.bin");
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(4, 5, IDS, 30)) {
+            host.openSession("a");
+            host.saveSnapshot(file);
+        }
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(4, 4, IDS, 30)) {
+            assertThrows(java.io.IOException.class, () -> host.loadSnapshot(file));
+        }
+    }
+
+    @Test
+    void testSaveOverLoadedSnapshot(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("sesiones.bin");
+        MemoAnimaliaEngine.GameState saved;
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(4, 5, IDS, 30)) {
+            host.openSession("a");
+            host.openSession("b");
+            host.flipCard("b", 3);
+            saved = host.withEngine("b", MemoAnimaliaEngine::captureState);
+            host.saveSnapshot(file);
+        }
+        Path first = SessionSnapshotStore.current(file);
+
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(4, 5, IDS, 30)) {
+            host.loadSnapshot(file);
+            host.flipCard("a", 0);
+            // El archivo cargado sigue mapeado: se guarda en otra generación
+            assertEquals(2, host.saveSnapshot(file));
+            assertNotEquals(first, SessionSnapshotStore.current(file));
+            // "b" todavía se lee de la generación mapeada
+            assertEquals(saved, host.withEngine("b", MemoAnimaliaEngine::captureState));
+        }
+
+        SessionSnapshotStore store = SessionSnapshotStore.open(file);
+        assertEquals(0, store.restore("a").getFirstSelectedIndex());
+        assertEquals(saved, store.restore("b"));
+    }
+
+    @Test
+    void testRestoreRejectsDamagedRecords(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("sesiones.bin");
+        MemoAnimaliaEngine template = new MemoAnimaliaEngine(4, 5, IDS, 30);
+        int[] badSymbol = new int[20];
+        badSymbol[7] = 200;
+        Map<String, MemoAnimaliaEngine.GameState> states = new HashMap<>();
+        states.put("ok", template.captureState());
+        states.put("simbolo", new MemoAnimaliaEngine.GameState(badSymbol, new long[1], new long[1], 0, 0, -1, 0L, false));
+        states.put("elegida", new MemoAnimaliaEngine.GameState(new int[20], new long[1], new long[1], 0, 0, 20, 0L, false));
+        SessionSnapshotStore.write(file, template, states);
+
+        SessionSnapshotStore store = SessionSnapshotStore.open(file);
+        assertEquals(template.captureState(), store.restore("ok"));
+        assertThrows(UncheckedIOException.class, () -> store.restore("simbolo"));
+        assertThrows(UncheckedIOException.class, () -> store.restore("elegida"));
+    }
+
+    @Test
+    void testFileNamesAreNotGlobs(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("sesiones[ab]{c}.bin");
+        // Coincidirían con el nombre usado como glob
+        Files.write(dir.resolve("sesionesac.bin.9"), new byte[]{1});
+        Files.write(dir.resolve("sesiones[ab]{c}.bin.+8"), new byte[]{1});
+
+        MemoAnimaliaEngine template = new MemoAnimaliaEngine(4, 5, IDS, 30);
+        Map<String, MemoAnimaliaEngine.GameState> states = new HashMap<>();
+        states.put("a", template.captureState());
+        SessionSnapshotStore.write(file, template, states);
+
+        assertEquals(dir.resolve("sesiones[ab]{c}.bin.1"), SessionSnapshotStore.current(file));
+        assertEquals(template.captureState(), SessionSnapshotStore.open(file).restore("a"));
+        SessionSnapshotStore.delete(file);
+        assertTrue(Files.exists(dir.resolve("sesionesac.bin.9")), "Solo se borran las generaciones propias");
+        assertEquals(file, SessionSnapshotStore.current(file));
+    }
+}
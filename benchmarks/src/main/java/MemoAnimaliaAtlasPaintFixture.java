@@ -0,0 +1,69 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.swing.ImageIcon;
+import memoanimalia.bench.AtlasPaintFixture;
+
+/**
+ * Implementación de AtlasPaintFixture sobre ImageResourceManager y CardAtlas
+ */
+public class MemoAnimaliaAtlasPaintFixture implements AtlasPaintFixture {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo",
+            "leon", "pato", "pez", "zorro");
+
+    private int side;
+    private int cardSize;
+    private CardAtlas atlas;
+    private ImageIcon[] icons;
+    private int[] slots;
+    private BufferedImage target;
+
+    @Override
+    public void setUp(int side, int cardSize) throws Exception {
+        this.side = side;
+        this.cardSize = cardSize;
+        ImageResourceManager images = new ImageResourceManager(IDS, cardSize, null);
+        images.whenAllLoaded().get();
+        atlas = images.createAtlas();
+
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(side, side, IDS, Integer.MAX_VALUE);
+        target = new BufferedImage(side * cardSize, side * cardSize, BufferedImage.TYPE_INT_RGB);
+        icons = new ImageIcon[engine.getSize()];
+        slots = new int[engine.getSize()];
+        Set<ImageIcon> distinct = new HashSet<>();
+        for (int i = 0; i < icons.length; ++i) {
+            String id = engine.getCard(i).getId();
+            icons[i] = images.getAnimalImage(id);
+            slots[i] = atlas.getSlot(id);
+            distinct.add(icons[i]);
+        }
+
+        long iconBytes = (long) distinct.size() * cardSize * cardSize * Integer.BYTES;
+        System.out.printf("%n%dx%d (%d cartas, %dpx): iconos %d imágenes, %d bytes | atlas 1 imagen, %d bytes%n",
+                side, side, engine.getSize(), cardSize, distinct.size(), iconBytes, atlas.getImageBytes());
+    }
+
+    @Override
+    public int paintIcons() {
+        Graphics2D g = target.createGraphics();
+        for (int i = 0; i < icons.length; ++i) {
+            icons[i].paintIcon(null, g, (i % side) * cardSize, (i / side) * cardSize);
+        }
+        g.dispose();
+        return target.getRGB(0, 0);
+    }
+
+    @Override
+    public int paintAtlas() {
+        Graphics2D g = target.createGraphics();
+        for (int i = 0; i < slots.length; ++i) {
+            atlas.paint(g, slots[i], (i % side) * cardSize, (i / side) * cardSize);
+        }
+        g.dispose();
+        return target.getRGB(0, 0);
+    }
+}
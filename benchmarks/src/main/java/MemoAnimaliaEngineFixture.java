@@ -0,0 +1,124 @@
+import java.util.Arrays;
+import java.util.List;
+import memoanimalia.bench.EngineFixture;
+
+/**
+ * Implementación de EngineFixture sobre MemoAnimaliaEngine. Vive en el paquete
+ * por defecto para poder usar las clases del juego; los fixtures de los demás
+ * benchmarks del motor la extienden.
+ */
+public class MemoAnimaliaEngineFixture implements EngineFixture {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo");
+
+    private int rows;
+    private int cols;
+    private boolean withListener;
+    protected MemoAnimaliaEngine engine;
+    protected int firstIndex;
+    protected int secondIndex;
+
+    /**
+     * Contador de eventos, para que el listener no sea eliminado como código
+     * muerto
+     */
+    private long events;
+
+    @Override
+    public void setUp(int rows, int cols, boolean withListener) {
+        this.rows = rows;
+        this.cols = cols;
+        this.withListener = withListener;
+        this.engine = createEngine();
+
+        // Dos posiciones con animales distintos para el turno sin pareja
+        firstIndex = 0;
+        secondIndex = 1;
+        while (engine.getSymbolId(secondIndex) == engine.getSymbolId(firstIndex)) {
+            secondIndex++;
+        }
+    }
+
+    private MemoAnimaliaEngine createEngine() {
+        // Sin límite efectivo para que el turno sin pareja nunca reinicie
+        MemoAnimaliaEngine e = new MemoAnimaliaEngine(rows, cols, IDS, Integer.MAX_VALUE);
+        if (withListener) {
+            e.setListener(new CountingListener());
+        }
+        return e;
+    }
+
+    @Override
+    public Object newEngine() {
+        return createEngine();
+    }
+
+    @Override
+    public void resetForNewGame() {
+        engine.resetForNewGame();
+    }
+
+    @Override
+    public int flipTurnNoMatch() {
+        MemoAnimaliaEngine.FlipResult first = engine.flipCard(firstIndex);
+        MemoAnimaliaEngine.FlipResult second = engine.flipCard(secondIndex);
+        engine.hideCards(firstIndex, secondIndex);
+        return first.ordinal() + second.ordinal();
+    }
+
+    @Override
+    public Object getBoardSnapshot() {
+        return engine.getBoardSnapshot();
+    }
+
+    @Override
+    public Object snapshot() {
+        return engine.snapshot();
+    }
+
+    /**
+     * Listener mínimo que solo cuenta eventos
+     */
+    private final class CountingListener implements MemoAnimaliaEngine.GameListener {
+
+        @Override
+        public void onCardRevealed(int index, MemoAnimaliaEngine.Card card) {
+            events++;
+        }
+
+        @Override
+        public void onCardsHidden(int index1, int index2) {
+            events++;
+        }
+
+        @Override
+        public void onCardsMatched(int index1, int index2) {
+            events++;
+        }
+
+        @Override
+        public void onAttemptChanged(int attempts) {
+            events++;
+        }
+
+        @Override
+        public void onMatchCountChanged(int matchesFound) {
+            events++;
+        }
+
+        @Override
+        public void onGameWon(int attempts) {
+            events++;
+        }
+
+        @Override
+        public void onGameOverAttemptLimit(int attemptLimit) {
+            events++;
+        }
+
+        @Override
+        public void onGameReset() {
+            events++;
+        }
+    }
+}
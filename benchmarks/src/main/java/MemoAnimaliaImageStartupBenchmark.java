@@ -0,0 +1,68 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compara el arranque de ImageResourceManager en frío (sin caché en disco) y
+ * en caliente (con la caché de píxeles ya escrita). Mide desde el constructor
+ * hasta que todas las imágenes quedaron instaladas.
+ *
+ * No es un benchmark JMH porque cada medición es un arranque completo que
+ * escribe la caché en disco en segundo plano y debe esperar a que termine
+ * antes de la ronda siguiente; JMH mediría o esa espera o un arranque que
+ * encuentra la caché a medio escribir.
+ *
+ * Debe ejecutarse desde la raíz del repositorio para encontrar assets/.
+ *
+ * Uso: MemoAnimaliaImageStartupBenchmark [repeticiones] [cardSize]
+ */
+public class MemoAnimaliaImageStartupBenchmark {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo",
+            "leon", "pato", "pez", "zorro");
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int cardSize = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+
+        Path dir = Files.createTempDirectory("memoanimalia-cache");
+        Path cacheFile = dir.resolve("image-cache.bin");
+
+        // Calentar el JIT y la inicialización de AWT/ImageIO
+        for (int i = 0; i < 3; ++i) {
+            ScaledImageCache.delete(cacheFile);
+            load(cacheFile, cardSize);
+            load(cacheFile, cardSize);
+        }
+
+        long cold = 0;
+        long warm = 0;
+        for (int i = 0; i < rounds; ++i) {
+            ScaledImageCache.delete(cacheFile);
+            cold += load(cacheFile, cardSize);
+            warm += load(cacheFile, cardSize);
+        }
+        System.out.printf("%d imágenes de %dpx, %d rondas%n", IDS.size() + 1, cardSize, rounds);
+        System.out.printf("frío:     %.2f ms%n", cold / 1e6 / rounds);
+        System.out.printf("caliente: %.2f ms%n", warm / 1e6 / rounds);
+        System.out.printf("caché: %d bytes%n", Files.size(new ScaledImageCache(cacheFile).getFile()));
+        ScaledImageCache.delete(cacheFile);
+        Files.deleteIfExists(dir);
+    }
+
+    private static long load(Path cacheFile, int cardSize) throws Exception {
+        long start = System.nanoTime();
+        ScaledImageCache cache = new ScaledImageCache(cacheFile);
+        ImageResourceManager manager = new ImageResourceManager(IDS, cardSize, cache);
+        manager.whenAllLoaded().get();
+        long elapsed = System.nanoTime() - start;
+        // Esperar a que la caché termine de escribirse antes de la siguiente ronda
+        for (int i = 0; i < 200 && cache.getMisses() > 0 && !Files.exists(cache.getFile()); ++i) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(20);
+        return elapsed;
+    }
+}
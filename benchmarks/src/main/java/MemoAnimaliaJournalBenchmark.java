@@ -0,0 +1,108 @@
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Graba partidas completas al azar en un GameJournal y luego mide la
+ * reproducción frente a una lectura secuencial del mismo archivo, que marca
+ * el límite de E/S. Informa también los bytes por volteo.
+ *
+ * No es un benchmark JMH: el resultado es un caudal (MB/s) sobre un archivo
+ * de cientos de megabytes que se graba una sola vez, comparado con la lectura
+ * cruda del mismo archivo en la misma ejecución, y repetir la grabación en
+ * cada iteración de JMH dominaría el tiempo total.
+ *
+ * Uso: MemoAnimaliaJournalBenchmark [partidas] [filas] [columnas]
+ */
+public class MemoAnimaliaJournalBenchmark {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo");
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rows = args.length > 2 ? Integer.parseInt(args[1]) : 4;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        Path file = Files.createTempFile("memoanimalia-journal", ".bin");
+        try {
+            long flips = record(file, games, rows, cols);
+            long size = Files.size(file);
+            System.out.printf("%,d partidas, %,d volteos, %,d bytes (%.2f bytes/volteo)%n",
+                    games, flips, size, (double) size / flips);
+
+            for (int round = 0; round < 3; ++round) {
+                long t0 = System.nanoTime();
+                long read = readAll(file);
+                long t1 = System.nanoTime();
+                GameJournal.ReplayResult result = GameJournal.replay(file);
+                long t2 = System.nanoTime();
+                System.out.printf("lectura: %8.1f MB/s | replay: %8.1f MB/s, %,.0f partidas/s (%s)%n",
+                        read / 1e6 / ((t1 - t0) / 1e9),
+                        result.getBytes() / 1e6 / ((t2 - t1) / 1e9),
+                        result.getGames() / ((t2 - t1) / 1e9),
+                        result);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Juega partidas completas eligiendo cartas ocultas al azar
+     */
+    private static long record(Path file, int games, int rows, int cols) throws Exception {
+        MemoAnimaliaEngine engine = new MemoAnimaliaEngine(rows, cols, IDS, Integer.MAX_VALUE, 1L);
+        SplittableRandom random = new SplittableRandom(1L);
+        int[] hidden = new int[engine.getSize()];
+        long flips = 0;
+        try (GameJournal.Writer journal = GameJournal.open(file)) {
+            journal.record(engine);
+            for (int g = 0; g < games; ++g) {
+                if (g > 0) {
+                    engine.resetForNewGame();
+                }
+                while (!engine.isGameWon()) {
+                    int count = 0;
+                    for (int i = 0; i < hidden.length; ++i) {
+                        if (!engine.isMatched(i)) {
+                            hidden[count++] = i;
+                        }
+                    }
+                    if (count < 2) {
+                        break;
+                    }
+                    int first = hidden[random.nextInt(count)];
+                    int second;
+                    do {
+                        second = hidden[random.nextInt(count)];
+                    } while (second == first);
+                    engine.flipCard(first);
+                    if (engine.flipCard(second) == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                        engine.hideCards(first, second);
+                    }
+                    flips += 2;
+                }
+            }
+            engine.setRecorder(null);
+        }
+        return flips;
+    }
+
+    private static long readAll(Path file) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int n;
+            while ((n = channel.read(buffer)) >= 0) {
+                total += n;
+                buffer.clear();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,22 @@
+import memoanimalia.bench.MetricsFixture;
+
+/**
+ * Implementación de MetricsFixture: el turno sin pareja medido con un
+ * MemoAnimaliaMetrics propio, como en el controlador
+ */
+public class MemoAnimaliaMetricsFixture extends MemoAnimaliaEngineFixture implements MetricsFixture {
+
+    private final MemoAnimaliaMetrics metrics = new MemoAnimaliaMetrics(true);
+
+    @Override
+    public int flipTurnNoMatchInstrumented() {
+        long start = metrics.startFlipTimer();
+        MemoAnimaliaEngine.FlipResult first = engine.flipCard(firstIndex);
+        metrics.recordFlip(first, start);
+        start = metrics.startFlipTimer();
+        MemoAnimaliaEngine.FlipResult second = engine.flipCard(secondIndex);
+        metrics.recordFlip(second, start);
+        engine.hideCards(firstIndex, secondIndex);
+        return first.ordinal() + second.ordinal();
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generador de carga para MemoAnimaliaServer: muchos clientes simulados, todos
+ * atendidos por un solo Selector, que juegan al azar con comandos encadenados
+ * y miden la latencia de cada respuesta.
+ *
+ * Cada cliente mantiene hasta "profundidad" comandos FLIP en vuelo y, cuando
+ * el servidor le avisa que dos cartas no coincidieron, agrega el HIDE
+ * correspondiente (y un NEW_GAME al ganar). Si no se indica un servidor, se
+ * lanza uno en otro proceso (con el mismo classpath) para que ambos lados no
+ * compartan el límite de descriptores de archivo.
+ *
+ * Los FLIP van a cartas al azar, así que muchos caen en cartas ya reveladas.
+ * Como flips solo se cuentan los que voltearon una carta (OK_REVEALED, MATCH
+ * o NO_MATCH); el total de comandos sí los incluye.
+ *
+ * No es un benchmark JMH: el servidor corre en otro proceso y lo medido son
+ * latencias de red con miles de conexiones abiertas a la vez, algo que no
+ * cabe en el modelo de hilos que repiten una operación de JMH.
+ *
+ * Uso: MemoAnimaliaNetworkLoadClient [clientes] [segundos] [profundidad] [host:puerto]
+ */
+public class MemoAnimaliaNetworkLoadClient {
+
+    private static final int INPUT_BYTES = 1024;
+    private static final int OUTPUT_BYTES = 256;
+    private static final int WARMUP_SECONDS = 3;
+
+    /**
+     * Un cliente simulado
+     */
+    private static final class Client {
+
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(INPUT_BYTES);
+        final ByteBuffer out = ByteBuffer.allocate(OUTPUT_BYTES);
+        /**
+         * Momentos de envío de los comandos en vuelo, en orden
+         */
+        final long[] sentAt;
+        int head;
+        int tail;
+        int size;
+        boolean ready;
+
+        Client(SocketChannel channel, int depth) {
+            this.channel = channel;
+            // Lugar para los FLIP en vuelo y los HIDE o NEW_GAME que generen
+            this.sentAt = new long[2 * depth + 2];
+        }
+
+        int inFlight() {
+            return tail - head;
+        }
+
+        void sent(long now) {
+            sentAt[tail++ % sentAt.length] = now;
+        }
+
+        long answered() {
+            return sentAt[head++ % sentAt.length];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        Process serverProcess = null;
+        InetSocketAddress address;
+        if (args.length > 3) {
+            String[] hostPort = args[3].split(":");
+            address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            serverProcess = startServer();
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), readPort(serverProcess));
+        }
+
+        try (Selector selector = Selector.open()) {
+            List<Client> clients = connect(selector, address, clientCount, depth);
+            System.out.printf("%d clientes conectados a %s%n", clients.size(), address);
+
+            SplittableRandom random = new SplittableRandom(42);
+            for (Client c : clients) {
+                refill(c, depth, random);
+                send(c, selector);
+            }
+
+            // Calentamiento del JIT en ambos procesos; no se mide
+            run(selector, depth, random, new MemoAnimaliaMetrics.LatencyHistogram(), new long[3], WARMUP_SECONDS);
+
+            MemoAnimaliaMetrics.LatencyHistogram latency = new MemoAnimaliaMetrics.LatencyHistogram();
+            long[] counts = new long[3]; // flips efectivos, comandos, HIDE o NEW_GAME descartados
+            long start = System.nanoTime();
+            run(selector, depth, random, latency, counts, seconds);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%d flips y %d comandos en %.1f s: %.0f flips/s, %.0f comandos/s (profundidad %d)%n",
+                    counts[0], counts[1], elapsed, counts[0] / elapsed, counts[1] / elapsed, depth);
+            System.out.printf("latencia: p50=%dus p90=%dus p99=%dus p99.9=%dus max=%dus%n",
+                    micros(latency.getPercentile(50)), micros(latency.getPercentile(90)),
+                    micros(latency.getPercentile(99)), micros(latency.getPercentile(99.9)),
+                    micros(latency.getMax()));
+            if (counts[2] > 0) {
+                System.out.printf("%d HIDE o NEW_GAME descartados por falta de lugar en el buffer de salida%n", counts[2]);
+            }
+            for (Client c : clients) {
+                c.channel.close();
+            }
+        } finally {
+            if (serverProcess != null) {
+                serverProcess.destroy();
+            }
+        }
+    }
+
+    /**
+     * Atiende a todos los clientes durante el tiempo indicado
+     */
+    private static void run(Selector selector, int depth, SplittableRandom random,
+            MemoAnimaliaMetrics.LatencyHistogram latency, long[] counts, int seconds) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < deadline) {
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client c = (Client) key.attachment();
+                if (key.isReadable()) {
+                    if (c.channel.read(c.in) < 0) {
+                        throw new IOException("El servidor cerró una conexión");
+                    }
+                    receive(c, latency, counts);
+                    refill(c, depth, random);
+                }
+                send(c, selector);
+            }
+        }
+    }
+
+    /**
+     * Lanza MemoAnimaliaServer en otro proceso, en un puerto libre
+     */
+    private static Process startServer() throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "MemoAnimaliaServer", "0")
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private static int readPort(Process server) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(server.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("El servidor terminó sin indicar su puerto");
+        }
+        return Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+    }
+
+    /**
+     * Abre las conexiones de a tandas para no desbordar la cola de aceptación
+     * y espera el HELLO de cada una
+     */
+    private static List<Client> connect(Selector selector, InetSocketAddress address, int count, int depth)
+            throws IOException {
+        List<Client> clients = new ArrayList<>(count);
+        int ready = 0;
+        while (ready < count) {
+            while (clients.size() < count && clients.size() - ready < 512) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Client c = new Client(channel, depth);
+                channel.register(selector, channel.connect(address) ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, c);
+                clients.add(c);
+            }
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Client c = (Client) key.attachment();
+                if (key.isConnectable()) {
+                    c.channel.finishConnect();
+                    key.interestOps(SelectionKey.OP_READ);
+                } else if (key.isReadable()) {
+                    if (c.channel.read(c.in) < 0) {
+                        throw new IOException("El servidor cerró una conexión");
+                    }
+                    c.in.flip();
+                    int length = MemoAnimaliaProtocol.completeFrame(c.in);
+                    if (length >= 0) {
+                        c.in.position(c.in.position() + MemoAnimaliaProtocol.HEADER_BYTES);
+                        if (c.in.get() != MemoAnimaliaProtocol.HELLO) {
+                            throw new IOException("Se esperaba HELLO");
+                        }
+                        c.size = c.in.getShort() * c.in.getShort();
+                        c.in.position(c.in.position() + length - 1 - 2 * Short.BYTES);
+                        c.ready = true;
+                        ready++;
+                    }
+                    c.in.compact();
+                }
+            }
+        }
+        return clients;
+    }
+
+    /**
+     * Procesa las tramas completas: las respuestas cierran un comando, el
+     * aviso de cartas que no coinciden agrega su HIDE y una partida ganada
+     * agrega un NEW_GAME. Si el buffer de salida no tiene lugar, el comando se
+     * descarta y se cuenta; el servidor reinicia la partida al agotar los
+     * intentos, así que el cliente no queda trabado.
+     */
+    private static void receive(Client c, MemoAnimaliaMetrics.LatencyHistogram latency, long[] counts) {
+        long now = System.nanoTime();
+        c.in.flip();
+        int length;
+        while ((length = MemoAnimaliaProtocol.completeFrame(c.in)) >= 0) {
+            int next = c.in.position() + MemoAnimaliaProtocol.HEADER_BYTES + length;
+            byte code = c.in.get(c.in.position() + MemoAnimaliaProtocol.HEADER_BYTES);
+            if (code == MemoAnimaliaProtocol.RESULT || code == MemoAnimaliaProtocol.ACK) {
+                latency.record(now - c.answered());
+                counts[1]++;
+                if (code == MemoAnimaliaProtocol.RESULT && flipped(c.in.get(next - 1))) {
+                    counts[0]++;
+                }
+            } else if (code == MemoAnimaliaProtocol.CARDS_HIDDEN) {
+                if (c.out.remaining() >= 7) {
+                    int base = c.in.position() + MemoAnimaliaProtocol.HEADER_BYTES + 1;
+                    MemoAnimaliaProtocol.writeHide(c.out, c.in.getShort(base) & 0xFFFF, c.in.getShort(base + 2) & 0xFFFF);
+                    c.sent(now);
+                } else {
+                    counts[2]++;
+                }
+            } else if (code == MemoAnimaliaProtocol.GAME_WON) {
+                // El servidor no reinicia solo una partida ganada
+                if (c.out.remaining() >= 3) {
+                    MemoAnimaliaProtocol.writeNewGame(c.out);
+                    c.sent(now);
+                } else {
+                    counts[2]++;
+                }
+            } else if (code == MemoAnimaliaProtocol.ERROR) {
+                throw new IllegalStateException("El servidor respondió ERROR " + c.in.get(next - 1));
+            }
+            c.in.position(next);
+        }
+        c.in.compact();
+    }
+
+    /**
+     * Indica si un RESULT corresponde a un flip que volteó una carta
+     */
+    private static boolean flipped(byte ordinal) {
+        MemoAnimaliaEngine.FlipResult result = MemoAnimaliaProtocol.flipResult(ordinal);
+        return result == MemoAnimaliaEngine.FlipResult.OK_REVEALED
+                || result == MemoAnimaliaEngine.FlipResult.MATCH
+                || result == MemoAnimaliaEngine.FlipResult.NO_MATCH;
+    }
+
+    /**
+     * Completa la profundidad de comandos en vuelo con FLIP al azar
+     */
+    private static void refill(Client c, int depth, SplittableRandom random) {
+        long now = System.nanoTime();
+        while (c.inFlight() < depth && c.out.remaining() >= 5) {
+            MemoAnimaliaProtocol.writeFlip(c.out, random.nextInt(c.size));
+            c.sent(now);
+        }
+    }
+
+    /**
+     * Escribe lo pendiente; si el socket no lo acepta todo, espera OP_WRITE
+     */
+    private static void send(Client c, Selector selector) throws IOException {
+        c.out.flip();
+        c.channel.write(c.out);
+        c.out.compact();
+        SelectionKey key = c.channel.keyFor(selector);
+        int ops = c.out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1000;
+    }
+}
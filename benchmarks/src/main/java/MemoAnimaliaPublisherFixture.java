@@ -0,0 +1,54 @@
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import memoanimalia.bench.PublisherFixture;
+
+/**
+ * Implementación de PublisherFixture: el motor publica en un
+ * GameEventPublisher con suscriptores lentos
+ */
+public class MemoAnimaliaPublisherFixture extends MemoAnimaliaEngineFixture implements PublisherFixture {
+
+    @Override
+    public void attachPublisher(int subscribers) {
+        GameEventPublisher publisher = new GameEventPublisher();
+        Executor executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "fixture-subscriber");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < subscribers; ++i) {
+            publisher.subscribe(new SlowSubscriber(), executor, Flow.defaultBufferSize(),
+                    GameEventPublisher.OverflowPolicy.DROP_OLDEST);
+        }
+        engine.setListener(publisher);
+    }
+
+    /**
+     * Suscriptor que tarda un milisegundo por evento
+     */
+    private static final class SlowSubscriber implements Flow.Subscriber<GameEventPublisher.GameEvent> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(GameEventPublisher.GameEvent event) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
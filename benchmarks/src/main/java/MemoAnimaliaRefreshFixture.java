@@ -0,0 +1,38 @@
+import java.util.function.IntConsumer;
+import memoanimalia.bench.RefreshFixture;
+
+/**
+ * Implementación de RefreshFixture: lo que la interfaz lee del motor al
+ * refrescar el tablero completo o solo las cartas modificadas
+ */
+public class MemoAnimaliaRefreshFixture extends MemoAnimaliaEngineFixture implements RefreshFixture {
+
+    /**
+     * Acumulador de refreshDirtyCards; el consumidor se crea una sola vez
+     */
+    private int refreshed;
+    private final IntConsumer dirtyRefresh = i -> refreshed += cardState(i);
+
+    @Override
+    public int refreshAllCards() {
+        int visible = 0;
+        for (int i = 0; i < engine.getSize(); ++i) {
+            visible += cardState(i);
+        }
+        return visible;
+    }
+
+    @Override
+    public int refreshDirtyCards() {
+        refreshed = 0;
+        engine.drainDirty(dirtyRefresh);
+        return refreshed;
+    }
+
+    /**
+     * Lo que la interfaz necesita saber de una carta para dibujarla
+     */
+    private int cardState(int index) {
+        return (engine.isRevealed(index) ? 1 : 0) + (engine.isMatched(index) ? 2 : 0) + engine.getSymbolId(index);
+    }
+}
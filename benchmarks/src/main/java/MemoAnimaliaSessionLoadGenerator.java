@@ -0,0 +1,191 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Generador de carga para MemoAnimaliaSessionHost. Abre muchas sesiones y
+ * simula llamadores que las comparten: cada comando va a una sesión al azar,
+ * así que varios llamadores compiten por la misma sesión como en una partida
+ * con espectadores o jugadores repetidos. Los comandos se envían por la API
+ * asíncrona del anfitrión y se mide la latencia desde que el llamador quiere
+ * enviar hasta que el futuro se completa. Entre comandos cada llamador espera
+ * un tiempo de reflexión.
+ *
+ * Los llamadores no tienen un hilo propio: son tareas que un pool fijo de
+ * hilos programa de nuevo al terminar cada comando, y un semáforo limita los
+ * comandos en vuelo para que el anfitrión tampoco necesite un hilo por
+ * llamador (en Java 17 su ejecutor es un pool que crece sin límite). La espera
+ * por el semáforo cuenta en la latencia.
+ *
+ * No es un benchmark JMH: mide la latencia de extremo a extremo con muchos
+ * llamadores concurrentes durante un tiempo fijo, y JMH solo reparte hilos
+ * iguales que repiten una operación sin tiempo de reflexión.
+ *
+ * Uso: MemoAnimaliaSessionLoadGenerator [sesiones] [llamadores] [segundos] [reflexión en us] [en vuelo]
+ */
+public class MemoAnimaliaSessionLoadGenerator {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo");
+
+    /**
+     * Resolución del histograma: un cubo por microsegundo hasta 10 ms
+     */
+    private static final int HISTOGRAM_BUCKETS = 10_000;
+
+    /**
+     * Objetivo de latencia: p99 por debajo de 1 ms
+     */
+    private static final int TARGET_P99_MICROS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int callers = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long thinkNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 3 ? Long.parseLong(args[3]) : 1_000);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxInFlight = args.length > 4 ? Integer.parseInt(args[4]) : threads * 4;
+
+        try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(
+                MemoAnimaliaEngine.DEFAULT_ROWS, MemoAnimaliaEngine.DEFAULT_COLS, IDS, MemoAnimaliaEngine.DEFAULT_ATTEMPT_LIMIT)) {
+
+            long start = System.nanoTime();
+            String[] ids = new String[sessionCount];
+            for (int i = 0; i < sessionCount; ++i) {
+                ids[i] = "s" + i;
+                host.openSession(ids[i]);
+            }
+            System.out.printf("%d sesiones abiertas en %.2f s%n", sessionCount, (System.nanoTime() - start) / 1e9);
+
+            // Primera carta del turno en curso de cada sesión. Solo se toca
+            // dentro de los comandos de esa sesión, que el anfitrión ejecuta
+            // de a uno y en orden.
+            int[] firstCard = new int[sessionCount];
+            Arrays.fill(firstCard, -1);
+
+            ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(threads, r -> {
+                Thread t = new Thread(r, "load-caller");
+                t.setDaemon(true);
+                return t;
+            });
+            Load load = new Load(host, ids, firstCard, scheduler, new Semaphore(maxInFlight),
+                    System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds), thinkNanos, callers);
+            for (int c = 0; c < callers; ++c) {
+                SplittableRandom random = new SplittableRandom(c);
+                // Arranques repartidos a lo largo de un tiempo de reflexión
+                scheduler.schedule(() -> load.send(random), random.nextLong(Math.max(1, thinkNanos)), TimeUnit.NANOSECONDS);
+            }
+            load.finished.await();
+            scheduler.shutdown();
+
+            long[] merged = new long[HISTOGRAM_BUCKETS + 1];
+            long total = 0;
+            for (int i = 0; i < merged.length; ++i) {
+                merged[i] = load.histogram.get(i);
+                total += merged[i];
+            }
+
+            int p99 = percentile(merged, total, 99.0);
+            System.out.printf("%d comandos en %d s (%.0f comandos/s) con %d llamadores sobre %d sesiones, %d hilos y hasta %d en vuelo%n",
+                    total, seconds, (double) total / seconds, callers, sessionCount, threads, maxInFlight);
+            System.out.printf("latencia: p50=%dus p99=%dus p99.9=%dus%n",
+                    percentile(merged, total, 50.0), p99, percentile(merged, total, 99.9));
+            System.out.printf("%s: p99 de %dus %s el objetivo de %dus%n", p99 < TARGET_P99_MICROS ? "PASA" : "NO PASA",
+                    p99, p99 < TARGET_P99_MICROS ? "cumple" : "no cumple", TARGET_P99_MICROS);
+        }
+    }
+
+    /**
+     * Estado compartido por todos los llamadores simulados
+     */
+    private static final class Load {
+
+        private final MemoAnimaliaSessionHost host;
+        private final String[] ids;
+        private final int[] firstCard;
+        private final ScheduledExecutorService scheduler;
+        private final Semaphore inFlight;
+        private final long deadline;
+        private final long thinkNanos;
+        private final int size = MemoAnimaliaEngine.DEFAULT_ROWS * MemoAnimaliaEngine.DEFAULT_COLS;
+        private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS + 1);
+        private final CountDownLatch finished;
+
+        Load(MemoAnimaliaSessionHost host, String[] ids, int[] firstCard, ScheduledExecutorService scheduler,
+                Semaphore inFlight, long deadline, long thinkNanos, int callers) {
+            this.host = host;
+            this.ids = ids;
+            this.firstCard = firstCard;
+            this.scheduler = scheduler;
+            this.inFlight = inFlight;
+            this.deadline = deadline;
+            this.thinkNanos = thinkNanos;
+            this.finished = new CountDownLatch(callers);
+        }
+
+        /**
+         * Envía un flip a una sesión al azar y, al completarse, programa el
+         * siguiente del mismo llamador. El flip y lo que sigue (ocultar tras
+         * un NO_MATCH, reiniciar la partida terminada) van en un mismo
+         * comando asíncrono, porque la sesión la comparten varios llamadores
+         * y entre dos comandos puede haber jugado otro.
+         */
+        void send(SplittableRandom random) {
+            if (System.nanoTime() >= deadline) {
+                finished.countDown();
+                return;
+            }
+            int session = random.nextInt(ids.length);
+            int index = random.nextInt(size);
+
+            long t0 = System.nanoTime();
+            inFlight.acquireUninterruptibly();
+            host.submit(ids[session], engine -> play(engine, firstCard, session, index)).whenComplete((result, error) -> {
+                inFlight.release();
+                record(histogram, System.nanoTime() - t0);
+                if (error != null) {
+                    error.printStackTrace();
+                }
+                scheduler.schedule(() -> send(random), thinkNanos, TimeUnit.NANOSECONDS);
+            });
+        }
+    }
+
+    private static MemoAnimaliaEngine.FlipResult play(MemoAnimaliaEngine engine, int[] firstCard, int session, int index) {
+        MemoAnimaliaEngine.FlipResult result = engine.flipCard(index);
+        if (result == MemoAnimaliaEngine.FlipResult.OK_REVEALED) {
+            firstCard[session] = index;
+        } else if (result == MemoAnimaliaEngine.FlipResult.MATCH || result == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+            if (result == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                engine.hideCards(firstCard[session], index);
+            }
+            firstCard[session] = -1;
+            if (engine.isGameWon() || engine.getAttempts() >= engine.getAttemptLimit()) {
+                engine.resetForNewGame();
+            }
+        }
+        return result;
+    }
+
+    private static void record(AtomicLongArray histogram, long nanos) {
+        int micros = (int) Math.min(HISTOGRAM_BUCKETS, nanos / 1000);
+        histogram.incrementAndGet(micros);
+    }
+
+    private static int percentile(long[] histogram, long total, double p) {
+        long target = (long) Math.ceil(total * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; ++i) {
+            seen += histogram[i];
+            if (seen >= target) {
+                return i;
+            }
+        }
+        return histogram.length - 1;
+    }
+}
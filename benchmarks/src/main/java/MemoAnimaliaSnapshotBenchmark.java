@@ -0,0 +1,69 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Guarda muchas sesiones a medio jugar en un archivo de instantáneas y mide
+ * cuánto tarda otro anfitrión en cargarlo y en restaurar todas las sesiones
+ * una por una.
+ *
+ * No es un benchmark JMH: cada medición (guardar, cargar, restaurar todas) se
+ * hace una sola vez sobre cien mil sesiones, y lo que interesa es ese tiempo
+ * total y el tamaño del archivo, no el de una operación promedio.
+ *
+ * Uso: MemoAnimaliaSnapshotBenchmark [sesiones] [filas] [columnas]
+ */
+public class MemoAnimaliaSnapshotBenchmark {
+
+    private static final List<String> IDS = Arrays.asList("abeja", "gato", "elefante", "tigre", "mono", "pajaro", "vaca", "caballo", "conejo");
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rows = args.length > 2 ? Integer.parseInt(args[1]) : 4;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        Path file = Files.createTempFile("memoanimalia-sessions", ".bin");
+        try {
+            try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(rows, cols, IDS, Integer.MAX_VALUE)) {
+                SplittableRandom random = new SplittableRandom(1L);
+                int size = rows * cols;
+                for (int s = 0; s < sessions; ++s) {
+                    String id = "sesion-" + s;
+                    host.openSession(id);
+                    for (int f = random.nextInt(8); f > 0; --f) {
+                        int index = random.nextInt(size);
+                        if (host.flipCard(id, index) == MemoAnimaliaEngine.FlipResult.NO_MATCH) {
+                            host.hideCards(id, index, -1);
+                        }
+                    }
+                }
+                long t0 = System.nanoTime();
+                host.saveSnapshot(file);
+                long t1 = System.nanoTime();
+                System.out.printf("guardar %,d sesiones: %,.1f ms, %,d bytes (%.1f bytes/sesión)%n",
+                        sessions, (t1 - t0) / 1e6, Files.size(SessionSnapshotStore.current(file)),
+                        (double) Files.size(SessionSnapshotStore.current(file)) / sessions);
+            }
+
+            for (int round = 0; round < 3; ++round) {
+                try (MemoAnimaliaSessionHost host = new MemoAnimaliaSessionHost(rows, cols, IDS, Integer.MAX_VALUE)) {
+                    long t0 = System.nanoTime();
+                    host.loadSnapshot(file);
+                    long t1 = System.nanoTime();
+                    long attempts = 0;
+                    for (int s = 0; s < sessions; ++s) {
+                        attempts += host.withEngine("sesion-" + s, MemoAnimaliaEngine::getAttempts);
+                    }
+                    long t2 = System.nanoTime();
+                    System.out.printf("cargar índice: %,.1f ms | restaurar todas: %,.1f ms (%,.0f sesiones/s, %d intentos)%n",
+                            (t1 - t0) / 1e6, (t2 - t1) / 1e6, sessions / ((t2 - t1) / 1e9), attempts);
+                }
+            }
+        } finally {
+            SessionSnapshotStore.delete(file);
+            Files.deleteIfExists(file);
+        }
+    }
+}
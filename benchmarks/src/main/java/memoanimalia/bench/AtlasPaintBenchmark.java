@@ -0,0 +1,58 @@
+package memoanimalia.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de pintar un tablero completo con un ImageIcon por carta frente a
+ * subregiones de un CardAtlas. La memoria de imágenes de cada enfoque se
+ * imprime al preparar cada tablero.
+ *
+ * Debe ejecutarse desde la raíz del repositorio para encontrar assets/.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class AtlasPaintBenchmark {
+
+    /**
+     * Cartas por lado del tablero
+     */
+    @Param({"10", "32", "50"})
+    public int side;
+
+    @Param({"64"})
+    public int cardSize;
+
+    private AtlasPaintFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = AtlasPaintFixture.load();
+        fixture.setUp(side, cardSize);
+    }
+
+    @Benchmark
+    public int paintIcons() {
+        return fixture.paintIcons();
+    }
+
+    @Benchmark
+    public int paintAtlas() {
+        return fixture.paintAtlas();
+    }
+}
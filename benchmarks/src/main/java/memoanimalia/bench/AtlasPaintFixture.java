@@ -0,0 +1,36 @@
+package memoanimalia.bench;
+
+/**
+ * Pintado de un tablero completo para AtlasPaintBenchmark. La implementación
+ * (MemoAnimaliaAtlasPaintFixture) vive en el paquete por defecto; ver
+ * Fixtures.
+ */
+public interface AtlasPaintFixture {
+
+    /**
+     * Carga las imágenes, arma el atlas y prepara el lienzo de un tablero de
+     * side x side cartas. Necesita assets/ en el directorio de trabajo.
+     *
+     * @param side Cartas por lado
+     * @param cardSize Lado de cada carta en píxeles
+     */
+    void setUp(int side, int cardSize) throws Exception;
+
+    /**
+     * Pinta el tablero con un ImageIcon por carta, como los JButton
+     *
+     * @return Valor derivado del lienzo, para el Blackhole
+     */
+    int paintIcons();
+
+    /**
+     * Pinta el tablero con subregiones del CardAtlas
+     *
+     * @return Valor derivado del lienzo, para el Blackhole
+     */
+    int paintAtlas();
+
+    static AtlasPaintFixture load() {
+        return Fixtures.load(AtlasPaintFixture.class, "MemoAnimaliaAtlasPaintFixture");
+    }
+}
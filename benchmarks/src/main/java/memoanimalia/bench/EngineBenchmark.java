@@ -0,0 +1,79 @@
+package memoanimalia.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de los caminos críticos de MemoAnimaliaEngine: un turno sin
+ * pareja, resetForNewGame, initBoard (a través del constructor) y
+ * getBoardSnapshot y snapshot, para tableros de 3x3 a 100x100, con y sin GameListener.
+ *
+ * flipCard y hideCards se miden juntos como un turno (dos volteos y ocultar):
+ * hideCards solo cambia algo si las dos cartas están boca arriba, y
+ * prepararlas en cada invocación (Level.Invocation) costaría más que lo que
+ * se quiere medir.
+ *
+ * Cada benchmark mide rendimiento (ops/ms) y latencia muestreada.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    /**
+     * Tamaño del tablero como filas x columnas
+     */
+    @Param({"3x3", "10x10", "32x32", "100x100"})
+    public String board;
+
+    @Param({"false", "true"})
+    public boolean listener;
+
+    private EngineFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] dims = board.split("x");
+        fixture = EngineFixture.load();
+        fixture.setUp(Integer.parseInt(dims[0]), Integer.parseInt(dims[1]), listener);
+    }
+
+    @Benchmark
+    public int flipTurnNoMatch() {
+        return fixture.flipTurnNoMatch();
+    }
+
+    @Benchmark
+    public void resetForNewGame() {
+        fixture.resetForNewGame();
+    }
+
+    @Benchmark
+    public Object initBoard() {
+        return fixture.newEngine();
+    }
+
+    @Benchmark
+    public Object getBoardSnapshot() {
+        return fixture.getBoardSnapshot();
+    }
+
+    @Benchmark
+    public Object snapshot() {
+        return fixture.snapshot();
+    }
+}
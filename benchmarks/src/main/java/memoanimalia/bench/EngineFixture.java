@@ -0,0 +1,54 @@
+package memoanimalia.bench;
+
+/**
+ * Operaciones del motor que miden los benchmarks. La implementación
+ * (MemoAnimaliaEngineFixture) vive en el paquete por defecto; ver Fixtures.
+ *
+ * Los benchmarks que necesitan algo más que el motor tienen su propio fixture
+ * que extiende este (RefreshFixture, PublisherFixture, MetricsFixture).
+ */
+public interface EngineFixture {
+
+    /**
+     * Crea el motor a medir
+     *
+     * @param rows Filas del tablero
+     * @param cols Columnas del tablero
+     * @param withListener Si se conecta un GameListener al motor
+     */
+    void setUp(int rows, int cols, boolean withListener);
+
+    /**
+     * Construye un motor nuevo (incluye initBoard)
+     */
+    Object newEngine();
+
+    /**
+     * Reinicia y mezcla la partida actual
+     */
+    void resetForNewGame();
+
+    /**
+     * Turno completo sin pareja: dos flipCard y hideCards
+     *
+     * @return Valor derivado de los resultados, para el Blackhole
+     */
+    int flipTurnNoMatch();
+
+    /**
+     * Devuelve la vista del tablero
+     */
+    Object getBoardSnapshot();
+
+    /**
+     * Devuelve una instantánea consistente del tablero (snapshot())
+     */
+    Object snapshot();
+
+    /**
+     * Carga la implementación del paquete por defecto
+     */
+    static EngineFixture load() {
+        return Fixtures.load(EngineFixture.class, "MemoAnimaliaEngineFixture");
+    }
+}
@@ -0,0 +1,31 @@
+package memoanimalia.bench;
+
+/**
+ * Carga de las implementaciones de los fixtures.
+ *
+ * JMH no admite clases de benchmark en el paquete por defecto y, a su vez, una
+ * clase con paquete no puede referirse a las clases del juego. Cada fixture se
+ * declara aquí como interfaz y se implementa en el paquete por defecto
+ * (MemoAnimalia...Fixture); la implementación se carga una sola vez por
+ * reflexión y la llamada a través de la interfaz es monomórfica, así que el
+ * JIT la integra.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Crea la implementación de un fixture
+     *
+     * @param type Interfaz del fixture
+     * @param className Clase del paquete por defecto que la implementa
+     */
+    static <T> T load(Class<T> type, String className) {
+        try {
+            return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se pudo cargar " + className, e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package memoanimalia.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo del registro de métricas en el camino de un clic: el mismo turno sin
+ * pareja, con listener, con y sin medir cada volteo.
+ *
+ * El motor no se instrumenta, así que el resto de los benchmarks no cambia;
+ * este mide lo que el controlador agrega por clic.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private MetricsFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = MetricsFixture.load();
+        fixture.setUp(4, 4, true);
+    }
+
+    @Benchmark
+    public int turn() {
+        return fixture.flipTurnNoMatch();
+    }
+
+    @Benchmark
+    public int instrumentedTurn() {
+        return fixture.flipTurnNoMatchInstrumented();
+    }
+}
@@ -0,0 +1,19 @@
+package memoanimalia.bench;
+
+/**
+ * Motor con el registro de métricas del controlador, para MetricsBenchmark
+ */
+public interface MetricsFixture extends EngineFixture {
+
+    /**
+     * El mismo turno que flipTurnNoMatch, midiendo cada volteo con el
+     * registro de métricas como lo hace el controlador
+     *
+     * @return Valor derivado de los resultados, para el Blackhole
+     */
+    int flipTurnNoMatchInstrumented();
+
+    static MetricsFixture load() {
+        return Fixtures.load(MetricsFixture.class, "MemoAnimaliaMetricsFixture");
+    }
+}
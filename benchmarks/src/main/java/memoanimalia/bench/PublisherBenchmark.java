@@ -0,0 +1,46 @@
+package memoanimalia.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Turno sin pareja con el motor publicando en un GameEventPublisher. Los
+ * suscriptores tardan un milisegundo por evento, así que siempre van
+ * atrasados; el costo del turno no debería depender de cuántos haya.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublisherBenchmark {
+
+    @Param({"0", "1", "8"})
+    public int subscribers;
+
+    private PublisherFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = PublisherFixture.load();
+        fixture.setUp(4, 4, false);
+        fixture.attachPublisher(subscribers);
+    }
+
+    @Benchmark
+    public int turn() {
+        return fixture.flipTurnNoMatch();
+    }
+}
@@ -0,0 +1,21 @@
+package memoanimalia.bench;
+
+/**
+ * Motor que publica sus eventos en un GameEventPublisher, para
+ * PublisherBenchmark
+ */
+public interface PublisherFixture extends EngineFixture {
+
+    /**
+     * Conecta al motor un GameEventPublisher con suscriptores lentos (cada
+     * evento les cuesta un milisegundo) que descartan lo que no alcanzan a
+     * consumir. Se llama después de setUp.
+     *
+     * @param subscribers Cantidad de suscriptores
+     */
+    void attachPublisher(int subscribers);
+
+    static PublisherFixture load() {
+        return Fixtures.load(PublisherFixture.class, "MemoAnimaliaPublisherFixture");
+    }
+}
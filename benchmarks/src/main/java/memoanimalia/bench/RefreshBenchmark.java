@@ -0,0 +1,57 @@
+package memoanimalia.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo de refrescar la interfaz después de un turno: recorrer todo el
+ * tablero frente a drenar el conjunto de cartas modificadas del motor.
+ *
+ * Cada operación juega un turno sin pareja (cuatro cambios de estado) y luego
+ * refresca. El refresco completo crece con el tamaño del tablero; el
+ * incremental debería quedar casi constante.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RefreshBenchmark {
+
+    /**
+     * Tamaño del tablero como filas x columnas
+     */
+    @Param({"3x3", "32x32", "100x100", "316x316"})
+    public String board;
+
+    private RefreshFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] dims = board.split("x");
+        fixture = RefreshFixture.load();
+        fixture.setUp(Integer.parseInt(dims[0]), Integer.parseInt(dims[1]), false);
+    }
+
+    @Benchmark
+    public int refreshAllCards() {
+        return fixture.flipTurnNoMatch() + fixture.refreshAllCards();
+    }
+
+    @Benchmark
+    public int refreshDirtyCards() {
+        return fixture.flipTurnNoMatch() + fixture.refreshDirtyCards();
+    }
+}
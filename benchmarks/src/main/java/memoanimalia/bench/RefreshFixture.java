@@ -0,0 +1,28 @@
+package memoanimalia.bench;
+
+/**
+ * Motor más las dos formas de refrescar la interfaz que compara
+ * RefreshBenchmark
+ */
+public interface RefreshFixture extends EngineFixture {
+
+    /**
+     * Refresco completo como el de la interfaz anterior: lee el estado de
+     * todas las cartas del tablero
+     *
+     * @return Valor derivado del estado leído, para el Blackhole
+     */
+    int refreshAllCards();
+
+    /**
+     * Refresco incremental: lee solo las cartas que el motor marcó como
+     * modificadas
+     *
+     * @return Valor derivado del estado leído, para el Blackhole
+     */
+    int refreshDirtyCards();
+
+    static RefreshFixture load() {
+        return Fixtures.load(RefreshFixture.class, "MemoAnimaliaRefreshFixture");
+    }
+}